@@ -0,0 +1,36 @@
+package com.teletronics.storage.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SHA-256 of uploaded content, read through {@link com.teletronics.storage.util.HashingInputStream}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileHashBenchmark {
+
+    @Param({"1024", "1048576", "16777216"})
+    private int size;
+
+    private FileService fileService;
+    private MockMultipartFile file;
+
+    @Setup
+    public void setUp() {
+        fileService = StorageStandIns.fileService(null, null, Runnable::run);
+        var content = new byte[size];
+        new Random(42).nextBytes(content);
+        file = new MockMultipartFile("file", "content.bin", "application/octet-stream", content);
+    }
+
+    @Benchmark
+    public String generateFileHash() throws IOException {
+        return fileService.generateFileHash(file);
+    }
+}
@@ -0,0 +1,51 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.dto.FileCursorPageDTO;
+import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.model.FileEntity;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Mapping of stored files to their API form, one at a time and as listing pages.
+ * The repository answers from memory, so only the mapping is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileListingBenchmark {
+
+    @Param({"10", "100"})
+    private int size;
+
+    private FileService fileService;
+    private FileEntity file;
+
+    @Setup
+    public void setUp() {
+        var listing = IntStream.range(0, size)
+                .mapToObj(StorageStandIns::file)
+                .map(FileService.fileToDTOMapper)
+                .toList();
+        fileService = StorageStandIns.fileService(null, StorageStandIns.fileRepository(listing), Runnable::run);
+        file = StorageStandIns.file(1);
+    }
+
+    @Benchmark
+    public FileEntityDTO mapFile() {
+        return FileService.fileToDTOMapper.apply(file);
+    }
+
+    @Benchmark
+    public Page<FileEntityDTO> offsetPage() {
+        return fileService.getFiles("user-1", null, 0, size, "uploadDate", "desc");
+    }
+
+    @Benchmark
+    public FileCursorPageDTO cursorPage() {
+        return fileService.getFilesAfter("user-1", null, null, size - 1, "uploadDate", "desc", false);
+    }
+}
@@ -0,0 +1,166 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.FileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-ins for storage and Mongo, so benchmarks measure the service
+ * code and the copying of content rather than the network.
+ */
+final class StorageStandIns {
+    static final String BUCKET = "teletronics";
+
+    private StorageStandIns() {
+    }
+
+    static FileService fileService(S3Client s3Client, FileRepository fileRepository, Executor partUploadPool) {
+        var meterRegistry = new SimpleMeterRegistry();
+        var multipartUploader = new MultipartUploader(s3Client, partUploadPool, 16);
+        ReflectionTestUtils.setField(multipartUploader, "s3Bucket", BUCKET);
+        ReflectionTestUtils.setField(multipartUploader, "partSize", DataSize.ofMegabytes(16));
+        ReflectionTestUtils.setField(multipartUploader, "partConcurrency", 4);
+        ReflectionTestUtils.setField(multipartUploader, "partRetries", 0);
+
+        var fileService = new FileService(
+                s3Client,
+                fileRepository,
+                multipartUploader,
+                null,
+                new InMemoryUploadStatusStore(100_000, Duration.ofHours(1)),
+                event -> {
+                },
+                null,
+                new FileExistenceFilter(null, meterRegistry, false, 1, 0.01),
+                new NoOpTagFacetService(),
+                new UploadMetrics(meterRegistry));
+        ReflectionTestUtils.setField(fileService, "s3Bucket", BUCKET);
+        ReflectionTestUtils.setField(fileService, "contentAddressable", false);
+        ReflectionTestUtils.setField(fileService, "nonBlocking", false);
+        return fileService;
+    }
+
+    static FileEntity file(int index) {
+        return FileEntity.builder()
+                .id("file-" + index)
+                .filename("report-" + index + ".pdf")
+                .ownerId("user-" + (index % 10))
+                .fileHash("hash-" + index)
+                .contentType("application/pdf")
+                .fileSize(1024L * index)
+                .uploadDate(Instant.ofEpochSecond(1_700_000_000L + index))
+                .isPublic(index % 2 == 0)
+                .tags(Set.of("java", "spring"))
+                .objectKey("file-" + index)
+                .build();
+    }
+
+    /**
+     * Answers saves without keeping the file, so long runs neither grow the heap nor
+     * skew the allocation numbers, and listings from a fixed list of files. Any
+     * other repository method fails, so a benchmark cannot silently measure a call
+     * it does not stub.
+     */
+    static FileRepository fileRepository(List<FileEntityDTO> listing) {
+        return (FileRepository) Proxy.newProxyInstance(FileRepository.class.getClassLoader(), new Class<?>[]{FileRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> args[0];
+                    case "findAccessible" -> {
+                        var pageable = (Pageable) args[2];
+                        yield new PageImpl<>(listing.subList(0, Math.min(pageable.getPageSize(), listing.size())), pageable, listing.size());
+                    }
+                    case "findAccessibleAfter" -> listing.subList(0, Math.min((int) args[5], listing.size()));
+                    case "countAccessible" -> (long) listing.size();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryFileRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Reads every request body to its end, like a real client sending it, and
+     * keeps nothing.
+     */
+    static final class InMemoryS3Client implements S3Client {
+        private final AtomicLong uploadIds = new AtomicLong();
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody requestBody) {
+            drain(requestBody);
+            return PutObjectResponse.builder().eTag("etag").build();
+        }
+
+        @Override
+        public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+            return CreateMultipartUploadResponse.builder().uploadId("upload-" + uploadIds.incrementAndGet()).build();
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody requestBody) {
+            drain(requestBody);
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        }
+
+        @Override
+        public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            return CompleteMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+            return AbortMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private static void drain(RequestBody requestBody) {
+            try (var content = requestBody.contentStreamProvider().newStream()) {
+                content.transferTo(OutputStream.nullOutputStream());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Tag counts live in Mongo; keeping them is not part of what is measured.
+     */
+    private static final class NoOpTagFacetService extends TagFacetService {
+
+        NoOpTagFacetService() {
+            super(null, null, null);
+        }
+
+        @Override
+        public void filesAdded(Collection<FileEntity> files) {
+        }
+    }
+}
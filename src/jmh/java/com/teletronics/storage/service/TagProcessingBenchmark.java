@@ -0,0 +1,34 @@
+package com.teletronics.storage.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Normalization of the tags sent with every upload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TagProcessingBenchmark {
+
+    @Param({"1", "5"})
+    private int count;
+
+    private TagService tagService;
+    private List<String> tags;
+
+    @Setup
+    public void setUp() {
+        tagService = new TagService(null, null, null);
+        tags = IntStream.range(0, count).mapToObj(i -> " Tag-" + i + " ").toList();
+    }
+
+    @Benchmark
+    public Set<String> processTags() {
+        return tagService.processTags(tags);
+    }
+}
@@ -0,0 +1,72 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A whole upload as run by the upload executor: the content is hashed while it is
+ * streamed to storage, in one PUT or in 16 MB parts, then the metadata is saved.
+ * Storage and Mongo are in memory, so this is the cost of the service itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UploadBenchmark {
+
+    @Param({"1024", "1048576", "33554432"})
+    private int size;
+
+    private final AtomicLong fileIds = new AtomicLong();
+    private ExecutorService partUploadPool;
+    private FileService fileService;
+    private MockMultipartFile file;
+    private String fileHash;
+    private String lastFileId;
+
+    @Setup
+    public void setUp() throws IOException {
+        partUploadPool = Executors.newFixedThreadPool(4);
+        fileService = StorageStandIns.fileService(new StorageStandIns.InMemoryS3Client(),
+                StorageStandIns.fileRepository(List.of()), partUploadPool);
+        var content = new byte[size];
+        new Random(42).nextBytes(content);
+        file = new MockMultipartFile("file", "content.bin", "application/octet-stream", content);
+        fileHash = fileService.generateFileHash(file);
+    }
+
+    /**
+     * A failed upload is cheaper than a completed one, so an iteration whose uploads
+     * failed would report a throughput it never reached.
+     */
+    @TearDown(Level.Iteration)
+    public void checkUploadCompleted() {
+        var status = fileService.getUploadStatus(lastFileId);
+        if (!Constants.STATUS_COMPLETED.equals(status)) {
+            throw new IllegalStateException("Upload " + lastFileId + " ended with status " + status);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        partUploadPool.shutdownNow();
+    }
+
+    @Benchmark
+    public String uploadFileAsync() {
+        var fileId = "file-" + fileIds.incrementAndGet();
+        lastFileId = fileId;
+        // called on the instance, not through the proxy, so it runs on the benchmark thread
+        fileService.uploadFileAsync(fileId, "user-1", file, fileHash, true, Set.of("java"));
+        return fileService.getUploadStatus(fileId);
+    }
+}
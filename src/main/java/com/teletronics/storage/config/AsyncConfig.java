@@ -1,20 +1,121 @@
 package com.teletronics.storage.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @Configuration
+@EnableAsync
 public class AsyncConfig {
 
+    static final String VIRTUAL_MODE = "virtual";
+
+    @Value("${storage.executor.mode}")
+    private String executorMode;
+
+    /**
+     * Upload tasks. In {@code virtual} mode every upload runs on a virtual thread
+     * and {@code storage.executor.maxConcurrency} caps how many run at once.
+     * Both modes reject work with a TaskRejectedException once saturated.
+     * <p>
+     * Active threads and queue depth of thread pools are published as {@code executor.*}
+     * by Spring Boot; the virtual mode publishes the same gauges itself. Rejections are
+     * counted in both modes.
+     */
     @Bean(name = "teletronicsPool")
-    public ThreadPoolTaskExecutor taskExecutor() {
+    public AsyncTaskExecutor taskExecutor(@Value("${storage.executor.maxConcurrency}") int maxConcurrency,
+                                          MeterRegistry meterRegistry) {
+        var rejected = Counter.builder("executor.rejected")
+                .baseUnit(BaseUnits.TASKS)
+                .description("Tasks rejected because the executor was saturated")
+                .tag("name", "teletronicsPool")
+                .register(meterRegistry);
+
+        if (VIRTUAL_MODE.equals(executorMode)) {
+            var executor = new BoundedVirtualThreadExecutor("upload-", maxConcurrency, rejected::increment);
+            Gauge.builder("executor.active", executor, BoundedVirtualThreadExecutor::activeCount)
+                    .baseUnit(BaseUnits.THREADS)
+                    .tag("name", "teletronicsPool")
+                    .register(meterRegistry);
+            // tasks over the limit are rejected, nothing ever waits
+            Gauge.builder("executor.queued", () -> 0)
+                    .baseUnit(BaseUnits.TASKS)
+                    .tag("name", "teletronicsPool")
+                    .register(meterRegistry);
+            return executor;
+        }
+
         var executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(5);
         executor.setMaxPoolSize(10);
         executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("upload-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("Task " + task + " rejected from " + pool);
+        });
         executor.initialize();
         return executor;
     }
-}
 
+    /**
+     * Uploads of the files of a batch. A fixed number of workers in both modes:
+     * the limit is how many objects a batch writes to storage at once.
+     */
+    @Bean(name = "batchUploadPool")
+    public AsyncTaskExecutor batchUploadPool(@Value("${storage.batch.concurrency}") int concurrency) {
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setThreadNamePrefix("batch-upload-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Continuations of non-blocking uploads, such as saving the uploaded file to Mongo,
+     * so blocking work never runs on the threads of the async S3 client. Every queued
+     * task holds one of the in-flight upload permits, so the queue never overflows.
+     */
+    @Bean(name = "storageCallbackPool")
+    public AsyncTaskExecutor storageCallbackPool(@Value("${minio.async.callbackThreads}") int threads,
+                                                 @Value("${minio.async.maxInFlightUploads}") int maxInFlightUploads) {
+        if (VIRTUAL_MODE.equals(executorMode)) {
+            return new VirtualThreadTaskExecutor("storage-callback-");
+        }
+
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(maxInFlightUploads);
+        executor.setThreadNamePrefix("storage-callback-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "partUploadPool")
+    public AsyncTaskExecutor partUploadPool(@Value("${minio.maxInFlightParts}") int maxInFlightParts) {
+        if (VIRTUAL_MODE.equals(executorMode)) {
+            // in-flight parts are already bounded by MultipartUploader
+            return new VirtualThreadTaskExecutor("part-upload-");
+        }
+
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxInFlightParts);
+        executor.setMaxPoolSize(maxInFlightParts);
+        executor.setQueueCapacity(maxInFlightParts);
+        executor.setThreadNamePrefix("part-upload-");
+        executor.initialize();
+        return executor;
+    }
+}
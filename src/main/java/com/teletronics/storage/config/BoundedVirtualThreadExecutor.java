@@ -0,0 +1,62 @@
+package com.teletronics.storage.config;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs every task on its own virtual thread. Concurrency is capped by a semaphore
+ * instead of a thread count; a task submitted while all permits are taken is
+ * rejected right away rather than queued.
+ */
+public class BoundedVirtualThreadExecutor implements AsyncTaskExecutor {
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+    private final Runnable onRejected;
+
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrency) {
+        this(threadNamePrefix, maxConcurrency, () -> {
+        });
+    }
+
+    /**
+     * @param onRejected called for every task rejected at the concurrency limit
+     */
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrency, Runnable onRejected) {
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.threadFactory = Thread.ofVirtual().name(threadNamePrefix, 0).factory();
+        this.onRejected = onRejected;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            onRejected.run();
+            throw new TaskRejectedException("Executor is at its concurrency limit of " + maxConcurrency);
+        }
+        try {
+            threadFactory.newThread(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            }).start();
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw new TaskRejectedException("Failed to start virtual thread", ex);
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int activeCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+}
@@ -0,0 +1,26 @@
+package com.teletronics.storage.config;
+
+import com.teletronics.storage.service.UploadStatusStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meters of components that do not register their own. Repository calls, Mongo
+ * commands, HTTP requests and thread pools are instrumented by Spring Boot.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Size of the status store, read on every scrape. The Mongo store answers it
+     * from collection metadata, so it stays cheap.
+     */
+    @Bean
+    public MeterBinder uploadStatusMetrics(UploadStatusStore uploadStatusStore) {
+        return registry -> Gauge.builder("storage.upload.status.entries", uploadStatusStore, UploadStatusStore::size)
+                .description("Upload statuses held by the status store")
+                .register(registry);
+    }
+}
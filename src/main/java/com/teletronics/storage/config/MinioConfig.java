@@ -1,15 +1,21 @@
 package com.teletronics.storage.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
+import java.time.Duration;
 
 @Configuration
 public class MinioConfig {
@@ -17,19 +23,80 @@ public class MinioConfig {
     @Value("${minio.endpoint}")
     private String endpoint;
 
+    @Value("${minio.publicEndpoint}")
+    private String publicEndpoint;
+
     @Value("${minio.accessKey}")
     private String accessKey;
 
     @Value("${minio.secretKey}")
     private String secretKey;
 
+    @Value("${minio.async.maxConcurrency}")
+    private int asyncMaxConcurrency;
+
+    @Value("${minio.async.maxPendingConnectionAcquires}")
+    private int asyncMaxPendingConnectionAcquires;
+
+    @Value("${minio.async.connectionAcquisitionTimeout}")
+    private Duration asyncConnectionAcquisitionTimeout;
+
+    @Value("${minio.async.readTimeout}")
+    private Duration asyncReadTimeout;
+
+    @Value("${minio.async.writeTimeout}")
+    private Duration asyncWriteTimeout;
+
     @Bean
-    public S3Client s3Client() {
+    public S3MetricsInterceptor s3MetricsInterceptor(MeterRegistry meterRegistry) {
+        return new S3MetricsInterceptor(meterRegistry);
+    }
+
+    @Bean
+    public S3Client s3Client(S3MetricsInterceptor s3MetricsInterceptor) {
         return S3Client.builder()
                 .endpointOverride(URI.create(endpoint))
                 .region(Region.US_EAST_1)
                 .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
                 .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .overrideConfiguration(config -> config.addExecutionInterceptor(s3MetricsInterceptor))
+                .build();
+    }
+
+    /**
+     * Netty based client of the non-blocking storage path. With HTTP/1.1 every
+     * concurrent request needs its own connection, so max concurrency is also
+     * the connection pool size. Created on first use only.
+     */
+    @Bean
+    @Lazy
+    public S3AsyncClient s3AsyncClient(S3MetricsInterceptor s3MetricsInterceptor) {
+        return S3AsyncClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .overrideConfiguration(config -> config.addExecutionInterceptor(s3MetricsInterceptor))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(asyncMaxConcurrency)
+                        .maxPendingConnectionAcquires(asyncMaxPendingConnectionAcquires)
+                        .connectionAcquisitionTimeout(asyncConnectionAcquisitionTimeout)
+                        .readTimeout(asyncReadTimeout)
+                        .writeTimeout(asyncWriteTimeout))
+                .build();
+    }
+
+    /**
+     * Signs URLs clients use to reach the bucket directly, so it points at the
+     * endpoint visible to clients rather than the one inside the network.
+     */
+    @Bean
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .endpointOverride(URI.create(publicEndpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
                 .build();
     }
 }
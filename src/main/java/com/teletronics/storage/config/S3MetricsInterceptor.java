@@ -0,0 +1,55 @@
+package com.teletronics.storage.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every request of the storage clients, by operation (PutObject, UploadPart,
+ * CopyObject, DeleteObject, ...) and outcome. Retries are included. For downloads
+ * the time ends when the response starts, reading the body is not part of it.
+ */
+public class S3MetricsInterceptor implements ExecutionInterceptor {
+    private static final ExecutionAttribute<Long> STARTED = new ExecutionAttribute<>("MetricsStartedNanos");
+
+    private final MeterRegistry meterRegistry;
+
+    public S3MetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(STARTED, System.nanoTime());
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        record(executionAttributes, "success");
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        record(executionAttributes, "failure");
+    }
+
+    private void record(ExecutionAttributes executionAttributes, String outcome) {
+        var started = executionAttributes.getAttribute(STARTED);
+        if (started == null) {
+            return;
+        }
+        Timer.builder("storage.s3.requests")
+                .description("Latency of storage requests")
+                .tag("operation", String.valueOf(executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME)))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+}
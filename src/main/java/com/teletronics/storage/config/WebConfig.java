@@ -0,0 +1,65 @@
+package com.teletronics.storage.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Runs streamed responses such as file downloads on a bounded pool of their own
+ * instead of the shared task executor. Async requests keep the container's timeout,
+ * only responses marked with {@link #NO_ASYNC_TIMEOUT} run without one, so that
+ * large downloads are not cut off.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Request attribute a handler sets on a streamed response that may run as long
+     * as the client keeps reading.
+     */
+    public static final String NO_ASYNC_TIMEOUT = WebConfig.class.getName() + ".noAsyncTimeout";
+
+    @Value("${storage.download.concurrency}")
+    private int downloadConcurrency;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(downloadPool());
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                // called before async processing starts, while its timeout can still be changed
+                if (request instanceof AsyncWebRequest asyncRequest
+                        && request.getAttribute(NO_ASYNC_TIMEOUT, RequestAttributes.SCOPE_REQUEST) != null) {
+                    asyncRequest.setTimeout(-1L);
+                }
+            }
+        });
+    }
+
+    /**
+     * Downloads over the limit are streamed by the request thread itself, so a burst
+     * is throttled by the servlet container's thread limit instead of piling up in a queue.
+     */
+    @Bean(name = "downloadPool")
+    public AsyncTaskExecutor downloadPool() {
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(downloadConcurrency);
+        executor.setMaxPoolSize(downloadConcurrency);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("download-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
@@ -1,35 +1,65 @@
 package com.teletronics.storage.constants;
 
+import java.util.Map;
 import java.util.Set;
 
 public class Constants {
     public static final int DEFAULT_PAGE = 0;
     public static final int DEFAULT_SIZE = 10;
+    public static final int MAX_SEARCH_SIZE = 100;
+    public static final int MAX_TAGS = 5;
 
-    public static final String URL_PREFIX = "http://localhost:9000";
+    public static final String CONTENT_URL_FORMAT = "/files/%s/content";
 
     public static final String FILE_UPLOAD_ERROR = "Error with uploading file to storage";
     public static final String FILE_EXISTS_ERROR = "File already exists";
     public static final String EMPTY_FILE_ERROR = "File can not be empty";
     public static final String FILE_EXISTS_CHECK_ERROR = "Error with checking file existing";
+    public static final String UPLOAD_CAPACITY_ERROR = "Too many uploads in progress, retry later";
+    public static final String TASK_CAPACITY_ERROR = "Too many background tasks in progress, retry later";
+    public static final String FILE_HASH_MISMATCH_ERROR = "Uploaded content does not match its hash";
+    public static final String EMPTY_BATCH_ERROR = "Batch must contain at least one file";
+    public static final String BATCH_SIZE_ERROR = "Too many files in one batch, the limit is ";
+    public static final String FILE_SELECTION_ERROR = "Specify exactly one of ids, tag or all";
+    public static final String RETAG_EMPTY_ERROR = "Specify tags to add or remove";
+    public static final String DELETE_JOB_NOT_FOUND_ERROR = "Delete job not found";
 
     public static final String TAG_EXISTS_ERROR = "Tag already exists";
     public static final String TAG_IS_EMPTY_ERROR = "Tag is empty";
     public static final String TAG_IS_NOT_ALLOWED_ERROR = "One or more tags do not exist in the system: ";
+    public static final String TAG_FACET_REBUILD_RUNNING_ERROR = "A tag facet rebuild is already running";
+    public static final String TOO_MANY_TAGS_ERROR = "A file can have at most 5 tags";
 
     public static final String USER_IS_NOT_FILE_OWNER_ERROR = "User is not owner of this file";
     public static final String EMPTY_FILE_NAME_ERROR = "Filename cannot be empty";
+    public static final String EMPTY_SEARCH_QUERY_ERROR = "Search query cannot be empty";
     public static final String FILE_NOT_FOUND_ERROR = "File not found";
     public static final String FILE_RENAME_ERROR = "File rename failed";
     public static final String FILE_DELETE_ERROR = "File deletion failed";
+    public static final String PRESIGNED_UPLOAD_NOT_FOUND_ERROR = "Presigned upload not found";
+    public static final String PRESIGNED_UPLOAD_EXPIRED_ERROR = "Presigned upload has expired";
+    public static final String PRESIGNED_UPLOAD_SIZE_ERROR = "Presigned uploads are limited to 5 GB, use a resumable upload session";
+    public static final String UPLOAD_SIZE_ERROR = "Uploads are limited to ";
+    public static final String UPLOADED_OBJECT_NOT_FOUND_ERROR = "Content has not been uploaded yet";
+    public static final String SESSION_NOT_FOUND_ERROR = "Upload session not found";
+    public static final String CHUNK_NUMBER_ERROR = "Chunk number must be between 1 and 10000";
+    public static final String CHUNK_LENGTH_REQUIRED_ERROR = "Chunk Content-Length is required";
+    public static final String MISSING_CHUNKS_ERROR = "Upload session is missing chunk: ";
+    public static final String CHUNK_TOO_SMALL_ERROR = "Every chunk but the last must be at least 5 MB, re-send chunk: ";
     public static final String INVALID_SORT_FIELD_ERROR = "Invalid sort field: ";
     public static final String INVALID_SORT_ORDER_ERROR = "Invalid sort order: ";
+    public static final String INVALID_CURSOR_ERROR = "Invalid or outdated cursor";
 
     public static final String STATUS_IN_PROGRESS = "in_progress";
     public static final String STATUS_COMPLETED = "completed";
     public static final String STATUS_FAILED = "failed";
     public static final String STATUS_NOT_FOUND = "not found";
+    public static final String STATUS_REJECTED = "rejected";
 
     public static final Set<String> ALLOWED_SORTFIELDS = Set.of("uploaddate", "filename", "filesize");
     public static final Set<String> ALLOWED_SORT_ORDERS = Set.of("asc", "desc");
+    public static final Map<String, String> SORT_FIELD_NAMES = Map.of(
+            "uploaddate", "uploadDate",
+            "filename", "filename",
+            "filesize", "fileSize");
 }
@@ -1,24 +1,55 @@
 package com.teletronics.storage.controller;
 
+import com.teletronics.storage.config.WebConfig;
 import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.model.DeleteJobEntity;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.FileSelection;
+import com.teletronics.storage.service.BatchUploadService;
+import com.teletronics.storage.service.BulkDeleteService;
 import com.teletronics.storage.service.FileService;
+import com.teletronics.storage.service.PresignedTransferService;
+import com.teletronics.storage.service.RetagService;
 import com.teletronics.storage.constants.Constants;
 import com.teletronics.storage.service.TagService;
+import com.teletronics.storage.service.UploadEventBroadcaster;
+import com.teletronics.storage.service.UploadSessionService;
+import com.teletronics.storage.util.DetachedMultipartFile;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -32,6 +63,15 @@ public class FileController {
 
     private final FileService fileService;
     private final TagService tagService;
+    private final UploadSessionService uploadSessionService;
+    private final UploadEventBroadcaster uploadEventBroadcaster;
+    private final PresignedTransferService presignedTransferService;
+    private final BatchUploadService batchUploadService;
+    private final BulkDeleteService bulkDeleteService;
+    private final RetagService retagService;
+
+    @Value("${storage.executor.retryAfterSeconds}")
+    private long retryAfterSeconds;
 
     @Operation(summary = "Start file upload")
     @PostMapping("/")
@@ -46,7 +86,8 @@ public class FileController {
                 return ResponseEntity.badRequest().body(Map.of("message", Constants.EMPTY_FILE_ERROR));
             }
 
-            if (fileService.fileExists(userId, file)) {
+            var fileHash = fileService.generateFileHash(file);
+            if (fileService.fileExists(userId, file.getOriginalFilename(), fileHash)) {
                 return ResponseEntity.status(409).body(Map.of("message", Constants.FILE_EXISTS_ERROR));
             }
 
@@ -57,7 +98,20 @@ public class FileController {
             }
 
             var fileId = UUID.randomUUID().toString();
-            fileService.uploadFileAsync(fileId, userId, file, isPublic, processedTags);
+            var detachedFile = DetachedMultipartFile.detach(file);
+            try {
+                if (fileService.canUploadNonBlocking(detachedFile.getSize())) {
+                    fileService.uploadFileNonBlocking(fileId, userId, detachedFile, fileHash, isPublic, processedTags);
+                } else {
+                    fileService.uploadFileAsync(fileId, userId, detachedFile, fileHash, isPublic, processedTags);
+                }
+            } catch (TaskRejectedException ex) {
+                detachedFile.delete();
+                logger.warn("Upload rejected for user: {}, executor is saturated", userId);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                        .body(Map.of("message", Constants.UPLOAD_CAPACITY_ERROR));
+            }
 
             return ResponseEntity.status(HttpStatus.ACCEPTED)
                     .body(Map.of(
@@ -71,6 +125,226 @@ public class FileController {
         }
     }
 
+    @Operation(summary = "Upload many files at once")
+    @PostMapping("/batch")
+    public ResponseEntity<?> uploadBatch(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "is_public", required = false, defaultValue = "true") boolean isPublic,
+            @RequestParam(value = "tags", required = false) @Size(max = 5) List<String> tags,
+            @RequestHeader("user_id") String userId) {
+
+        try {
+            var inputTags = Optional.ofNullable(tags).orElse(List.of());
+            var processedTags = tagService.processTags(inputTags);
+            if (!processedTags.isEmpty() && !tagService.allTagsExist(processedTags)) {
+                return ResponseEntity.badRequest().body(Map.of("message", Constants.TAG_IS_NOT_ALLOWED_ERROR + processedTags));
+            }
+
+            var batch = batchUploadService.prepare(userId, files);
+            List<BatchUploadService.BatchFile> accepted = new ArrayList<>();
+            try {
+                for (var file : batch) {
+                    if (file.accepted()) {
+                        accepted.add(file.withFile(DetachedMultipartFile.detach(file.file())));
+                    }
+                }
+                if (!accepted.isEmpty()) {
+                    batchUploadService.uploadAsync(userId, accepted, isPublic, processedTags);
+                }
+            } catch (TaskRejectedException ex) {
+                accepted.forEach(file -> ((DetachedMultipartFile) file.file()).delete());
+                logger.warn("Batch upload rejected for user: {}, executor is saturated", userId);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                        .body(Map.of("message", Constants.UPLOAD_CAPACITY_ERROR));
+            } catch (IOException ex) {
+                accepted.forEach(file -> ((DetachedMultipartFile) file.file()).delete());
+                throw ex;
+            }
+
+            var results = batch.stream()
+                    .map(file -> file.accepted()
+                            ? Map.of("filename", file.filename(), "file_id", file.fileId(), "status", Constants.STATUS_IN_PROGRESS)
+                            : Map.of("filename", Objects.toString(file.filename(), ""), "status", Constants.STATUS_REJECTED,
+                            "message", file.error()))
+                    .toList();
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(Map.of(
+                            "accepted", accepted.size(),
+                            "rejected", batch.size() - accepted.size(),
+                            "files", results));
+
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Batch upload failed for user: {}. Error: {}", userId, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Start resumable upload session")
+    @PostMapping("/sessions")
+    public ResponseEntity<?> createUploadSession(
+            @RequestParam("filename") String filename,
+            @RequestParam(value = "content_type", required = false) String contentType,
+            @RequestParam(value = "is_public", required = false, defaultValue = "true") boolean isPublic,
+            @RequestParam(value = "tags", required = false) @Size(max = 5) List<String> tags,
+            @RequestHeader("user_id") String userId) {
+
+        try {
+            if (filename == null || filename.trim().isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("message", Constants.EMPTY_FILE_NAME_ERROR));
+            }
+
+            if (fileService.fileNameTaken(userId, FileService.normalizeFileName(filename))) {
+                return ResponseEntity.status(409).body(Map.of("message", Constants.FILE_EXISTS_ERROR));
+            }
+
+            var inputTags = Optional.ofNullable(tags).orElse(List.of());
+            var processedTags = tagService.processTags(inputTags);
+            if (!processedTags.isEmpty() && !tagService.allTagsExist(processedTags)) {
+                return ResponseEntity.badRequest().body(Map.of("message", Constants.TAG_IS_NOT_ALLOWED_ERROR + processedTags));
+            }
+
+            var session = uploadSessionService.createSession(userId, filename, contentType, isPublic, processedTags);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(Map.of("session_id", session.getId(), "received_offset", 0, "next_chunk", 1));
+        } catch (Exception ex) {
+            logger.error("Upload session creation failed for user: {}. File: {}. Error: {}", userId, filename, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Upload a chunk of a resumable upload session")
+    @PutMapping("/sessions/{sessionId}/chunks/{chunkNumber}")
+    public ResponseEntity<?> uploadChunk(@PathVariable String sessionId,
+                                         @PathVariable int chunkNumber,
+                                         @RequestHeader("user_id") String userId,
+                                         HttpServletRequest request) {
+        try {
+            if (request.getContentLengthLong() <= 0) {
+                return ResponseEntity.badRequest().body(Map.of("message", Constants.CHUNK_LENGTH_REQUIRED_ERROR));
+            }
+
+            var session = uploadSessionService.uploadChunk(sessionId, userId, chunkNumber,
+                    request.getInputStream(), request.getContentLengthLong());
+            return ResponseEntity.ok(Map.of(
+                    "session_id", sessionId,
+                    "chunk", chunkNumber,
+                    "received_offset", uploadSessionService.receivedOffset(session),
+                    "next_chunk", uploadSessionService.nextChunk(session)));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(sessionErrorStatus(ex)).body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Chunk upload failed for session: {}. Chunk: {}. Error: {}", sessionId, chunkNumber, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Get resumable upload session state")
+    @GetMapping("/sessions/{sessionId}")
+    public ResponseEntity<?> getUploadSession(@PathVariable String sessionId,
+                                              @RequestHeader("user_id") String userId) {
+        try {
+            var session = uploadSessionService.getSession(sessionId, userId);
+            return ResponseEntity.ok(Map.of(
+                    "session_id", sessionId,
+                    "received_offset", uploadSessionService.receivedOffset(session),
+                    "next_chunk", uploadSessionService.nextChunk(session),
+                    "received_chunks", session.getChunks().keySet().stream().map(Integer::valueOf).sorted().toList()));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(sessionErrorStatus(ex)).body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Upload session lookup failed for session: {}. Error: {}", sessionId, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Finalize resumable upload session")
+    @PostMapping("/sessions/{sessionId}/complete")
+    public ResponseEntity<?> completeUploadSession(@PathVariable String sessionId,
+                                                   @RequestHeader("user_id") String userId) {
+        try {
+            var file = uploadSessionService.completeSession(sessionId, userId);
+            return ResponseEntity.ok(Map.of("file_id", file.getId(), "status", Constants.STATUS_COMPLETED));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(sessionErrorStatus(ex)).body(Map.of("message", ex.getMessage()));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(409).body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Upload session completion failed for session: {}. Error: {}", sessionId, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Abort resumable upload session")
+    @DeleteMapping("/sessions/{sessionId}")
+    public ResponseEntity<?> abortUploadSession(@PathVariable String sessionId,
+                                                @RequestHeader("user_id") String userId) {
+        try {
+            uploadSessionService.abortSession(sessionId, userId);
+            return ResponseEntity.ok(Map.of("session_id", sessionId, "message", "Upload session aborted"));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(sessionErrorStatus(ex)).body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Upload session abort failed for session: {}. Error: {}", sessionId, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Start an upload sent directly to storage through a presigned URL")
+    @PostMapping("/presigned")
+    public ResponseEntity<?> createPresignedUpload(
+            @RequestParam("filename") String filename,
+            @RequestParam("size") long size,
+            @RequestParam("sha256") String fileHash,
+            @RequestParam(value = "content_type", required = false) String contentType,
+            @RequestParam(value = "is_public", required = false, defaultValue = "true") boolean isPublic,
+            @RequestParam(value = "tags", required = false) @Size(max = 5) List<String> tags,
+            @RequestHeader("user_id") String userId) {
+
+        try {
+            if (fileService.fileExists(userId, FileService.normalizeFileName(filename), fileHash)) {
+                return ResponseEntity.status(409).body(Map.of("message", Constants.FILE_EXISTS_ERROR));
+            }
+
+            var inputTags = Optional.ofNullable(tags).orElse(List.of());
+            var processedTags = tagService.processTags(inputTags);
+            if (!processedTags.isEmpty() && !tagService.allTagsExist(processedTags)) {
+                return ResponseEntity.badRequest().body(Map.of("message", Constants.TAG_IS_NOT_ALLOWED_ERROR + processedTags));
+            }
+
+            var presigned = presignedTransferService.createUpload(userId, filename, contentType, size, fileHash, isPublic, processedTags);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(Map.of(
+                            "upload_id", presigned.upload().getId(),
+                            "method", "PUT",
+                            "url", presigned.url(),
+                            "headers", presigned.headers(),
+                            "expires_at", presigned.upload().getExpiresAt()));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Presigned upload creation failed for user: {}. File: {}. Error: {}", userId, filename, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Verify and register a file uploaded through a presigned URL")
+    @PostMapping("/presigned/{uploadId}/complete")
+    public ResponseEntity<?> completePresignedUpload(@PathVariable String uploadId,
+                                                     @RequestHeader("user_id") String userId) {
+        try {
+            var file = presignedTransferService.completeUpload(uploadId, userId);
+            return ResponseEntity.ok(Map.of("file_id", file.getId(), "status", Constants.STATUS_COMPLETED));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(409).body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Presigned upload completion failed for upload: {}. Error: {}", uploadId, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
     @Operation(summary = "Check file upload status")
     @GetMapping("/status/{fileId}")
     public ResponseEntity<?> getFileUploadStatus(@PathVariable String fileId) {
@@ -78,6 +352,18 @@ public class FileController {
         return ResponseEntity.ok(Map.of("file_id", fileId, "status", status));
     }
 
+    @Operation(summary = "Stream status transitions of one upload as Server-Sent Events")
+    @GetMapping(value = "/status/{fileId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFileUploadStatus(@PathVariable String fileId) {
+        return uploadEventBroadcaster.subscribeToFile(fileId, () -> fileService.getUploadStatus(fileId));
+    }
+
+    @Operation(summary = "Stream status transitions of all uploads of a user as Server-Sent Events")
+    @GetMapping(value = "/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUserUploadStatus(@RequestHeader("user_id") String userId) {
+        return uploadEventBroadcaster.subscribeToOwner(userId);
+    }
+
     @Operation(summary = "Get files list")
     @GetMapping("/list")
     public ResponseEntity<?> getFiles(
@@ -86,6 +372,8 @@ public class FileController {
             @RequestParam(required = false) Integer size,
             @RequestParam(defaultValue = "uploadDate") String sortField,
             @RequestParam(defaultValue = "desc") String sortOrder,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(value = "with_count", defaultValue = "false") boolean withCount,
             @RequestHeader(value = "user_id") String userId) {
 
         try {
@@ -97,17 +385,155 @@ public class FileController {
                 return ResponseEntity.badRequest().body(Map.of("error", Constants.INVALID_SORT_ORDER_ERROR + sortOrder));
             }
 
-            var finalPage = (page == null || page < 0) ? Constants.DEFAULT_PAGE : page;
             var finalSize = (size == null || size <= 0) ? Constants.DEFAULT_SIZE : size;
 
+            // cursor paging is opt-in, an empty cursor asks for the first page
+            if (cursor != null) {
+                var files = fileService.getFilesAfter(userId, tag, cursor, finalSize, sortField, sortOrder, withCount);
+                return ResponseEntity.ok(Map.of("files", files));
+            }
+
+            var finalPage = (page == null || page < 0) ? Constants.DEFAULT_PAGE : page;
             Page<FileEntityDTO> files = fileService.getFiles(userId, tag, finalPage, finalSize, sortField, sortOrder);
             return ResponseEntity.ok(Map.of("files", files));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
         } catch (Exception ex) {
             logger.error("File upload failed for user: {}. Error: {}", userId, ex.getMessage(), ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
         }
     }
 
+    @Operation(summary = "Search readable files by part of the name")
+    @GetMapping("/search")
+    public ResponseEntity<?> searchFiles(@RequestParam("q") String query,
+                                         @RequestParam(required = false) Integer size,
+                                         @RequestHeader(value = "user_id") String userId) {
+        try {
+            var finalSize = (size == null || size <= 0) ? Constants.DEFAULT_SIZE : size;
+            return ResponseEntity.ok(Map.of("files", fileService.searchFiles(userId, query, finalSize)));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("File search failed for user: {}. Error: {}", userId, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Download file content, supports Range and If-Range; HEAD is answered from metadata")
+    @GetMapping("/{fileId}/content")
+    public ResponseEntity<StreamingResponseBody> downloadFile(
+            HttpMethod method,
+            HttpServletRequest request,
+            @PathVariable String fileId,
+            @RequestHeader(value = "user_id", required = false) String userId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        FileEntity file;
+        try {
+            file = fileService.getReadableFile(fileId, userId);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.notFound().build();
+        }
+
+        var eTag = "\"" + file.getFileHash() + "\"";
+        var fileSize = file.getFileSize();
+        if (eTag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        var headers = new HttpHeaders();
+        headers.setETag(eTag);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (file.getUploadDate() != null) {
+            headers.setLastModified(file.getUploadDate());
+        }
+        headers.setContentType(Optional.ofNullable(file.getContentType())
+                .map(MediaType::parseMediaType)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM));
+        headers.setContentDisposition(ContentDisposition.inline()
+                .filename(file.getFilename(), StandardCharsets.UTF_8)
+                .build());
+
+        Long start = null;
+        Long end = null;
+        if (range != null && rangeApplies(ifRange, eTag, file.getUploadDate())) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException ex) {
+                // a malformed Range header is ignored
+                ranges = List.of();
+            }
+
+            // multiple ranges may be answered with the full content
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(fileSize);
+                    end = Math.min(ranges.get(0).getRangeEnd(fileSize), fileSize - 1);
+                } catch (IllegalArgumentException ex) {
+                    start = fileSize;
+                }
+                if (start >= fileSize || start > end) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
+                            .build();
+                }
+            }
+        }
+
+        var status = HttpStatus.OK;
+        if (start == null) {
+            headers.setContentLength(fileSize);
+        } else {
+            status = HttpStatus.PARTIAL_CONTENT;
+            headers.setContentLength(end - start + 1);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+        }
+        if (HttpMethod.HEAD.equals(method)) {
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+
+        try {
+            var content = fileService.openContent(file, start, end);
+            StreamingResponseBody body = outputStream -> {
+                try {
+                    content.transferTo(outputStream);
+                } catch (IOException ex) {
+                    // the client went away, drop the connection instead of draining the object
+                    content.abort();
+                    throw ex;
+                } finally {
+                    content.close();
+                }
+            };
+
+            // large downloads run as long as the client keeps reading
+            request.setAttribute(WebConfig.NO_ASYNC_TIMEOUT, true);
+            return ResponseEntity.status(status).headers(headers).body(body);
+        } catch (Exception ex) {
+            logger.error("File download failed for file: {}. Error: {}", fileId, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @Operation(summary = "Get a time-limited URL to download a file straight from storage")
+    @GetMapping("/{fileId}/download-url")
+    public ResponseEntity<?> getDownloadUrl(@PathVariable String fileId,
+                                            @RequestHeader(value = "user_id", required = false) String userId) {
+        try {
+            var presigned = presignedTransferService.presignDownload(fileId, userId);
+            return ResponseEntity.ok(Map.of("file_id", fileId, "url", presigned.url(), "expires_at", presigned.expiresAt()));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Download URL creation failed for file: {}. Error: {}", fileId, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
     @Operation(summary = "Rename a file")
     @PutMapping("/{fileId}")
     public ResponseEntity<?> renameFile(@PathVariable String fileId,
@@ -135,4 +561,109 @@ public class FileController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
         }
     }
+
+    @Operation(summary = "Start deleting files by ids, by tag or all files of the user in the background")
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<?> startBulkDelete(@RequestParam(value = "ids", required = false) List<String> ids,
+                                             @RequestParam(value = "tag", required = false) String tag,
+                                             @RequestParam(value = "all", required = false, defaultValue = "false") boolean all,
+                                             @RequestHeader(value = "user_id") String userId) {
+        try {
+            var job = bulkDeleteService.createJob(userId, ids, tag, all);
+            try {
+                bulkDeleteService.runAsync(job);
+            } catch (TaskRejectedException ex) {
+                bulkDeleteService.discard(job);
+                logger.warn("Bulk delete rejected for user: {}, executor is saturated", userId);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                        .body(Map.of("message", Constants.UPLOAD_CAPACITY_ERROR));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(deleteJobBody(job));
+
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Bulk delete failed for user: {}. Error: {}", userId, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Get progress of a bulk delete")
+    @GetMapping("/bulk-delete/{jobId}")
+    public ResponseEntity<?> getBulkDelete(@PathVariable String jobId,
+                                           @RequestHeader(value = "user_id") String userId) {
+        try {
+            return ResponseEntity.ok(deleteJobBody(bulkDeleteService.getJob(jobId, userId)));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error(ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Add or remove tags on files selected by ids, by tag or all files of the user")
+    @PostMapping("/retag")
+    public ResponseEntity<?> retagFiles(@RequestParam(value = "ids", required = false) List<String> ids,
+                                        @RequestParam(value = "tag", required = false) String tag,
+                                        @RequestParam(value = "all", required = false, defaultValue = "false") boolean all,
+                                        @RequestParam(value = "add", required = false, defaultValue = "") List<String> add,
+                                        @RequestParam(value = "remove", required = false, defaultValue = "") List<String> remove,
+                                        @RequestHeader(value = "user_id") String userId) {
+        try {
+            var selection = FileSelection.of(userId, ids, tag, all);
+            var tagsToAdd = tagService.processTags(add);
+            if (!tagsToAdd.isEmpty() && !tagService.allTagsExist(tagsToAdd)) {
+                return ResponseEntity.badRequest().body(Map.of("message", Constants.TAG_IS_NOT_ALLOWED_ERROR + tagsToAdd));
+            }
+            var updated = retagService.retag(selection, tagsToAdd, tagService.processTags(remove));
+            return ResponseEntity.ok(Map.of("updated", updated));
+
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+        } catch (Exception ex) {
+            logger.error("Retag failed for user: {}. Error: {}", userId, ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    private static Map<String, Object> deleteJobBody(DeleteJobEntity job) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("job_id", job.getId());
+        body.put("status", job.getStatus());
+        body.put("total_files", job.getTotalFiles());
+        body.put("deleted_files", job.getDeletedFiles());
+        body.put("failed_objects", job.getFailedObjects());
+        if (job.getError() != null) {
+            body.put("error", job.getError());
+        }
+        return body;
+    }
+
+    /**
+     * Unknown sessions are not found, anything else wrong with the request is the client's.
+     */
+    private static HttpStatus sessionErrorStatus(IllegalArgumentException ex) {
+        return Constants.SESSION_NOT_FOUND_ERROR.equals(ex.getMessage()) ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+    }
+
+    /**
+     * If-Range holds either an entity tag or a date; the range is only served
+     * when it still refers to the current content.
+     */
+    private static boolean rangeApplies(String ifRange, String eTag, Instant lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+        try {
+            var since = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return lastModified != null && since.equals(lastModified.truncatedTo(ChronoUnit.SECONDS));
+        } catch (DateTimeParseException ex) {
+            return false;
+        }
+    }
 }
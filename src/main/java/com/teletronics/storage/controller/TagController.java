@@ -1,10 +1,14 @@
 package com.teletronics.storage.controller;
 
 import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.service.TagFacetService;
 import com.teletronics.storage.service.TagService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +21,10 @@ import java.util.Map;
 public class TagController {
     private static final Logger logger = LoggerFactory.getLogger(TagController.class);
     private final TagService tagService;
+    private final TagFacetService tagFacetService;
+
+    @Value("${storage.executor.retryAfterSeconds}")
+    private long retryAfterSeconds;
 
     @GetMapping("/list")
     public ResponseEntity<?> getTags() {
@@ -28,6 +36,41 @@ public class TagController {
         }
     }
 
+    @GetMapping("/facets")
+    public ResponseEntity<?> getTagFacets(@RequestHeader(value = "user_id", required = false) String userId) {
+        try {
+            return ResponseEntity.ok(Map.of("facets", tagFacetService.getCounts(userId)));
+        } catch (Exception ex) {
+            logger.error(ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
+    @PostMapping("/facets/rebuild")
+    public ResponseEntity<?> rebuildTagFacets() {
+        try {
+            var token = tagFacetService.lockRebuild();
+            if (token == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                        .body(Map.of("message", Constants.TAG_FACET_REBUILD_RUNNING_ERROR));
+            }
+            try {
+                tagFacetService.rebuildAsync(token);
+            } catch (TaskRejectedException ex) {
+                tagFacetService.unlockRebuild(token);
+                logger.warn("Tag facet rebuild rejected, executor is saturated");
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                        .body(Map.of("message", Constants.TASK_CAPACITY_ERROR));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("message", "Tag facet rebuild started"));
+        } catch (Exception ex) {
+            logger.error(ex.getMessage(), ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
+        }
+    }
+
     @PostMapping("/")
     public ResponseEntity<?> createTag(@RequestParam String tagName) {
         try {
@@ -53,6 +96,11 @@ public class TagController {
         try {
             tagService.deleteTag(tagName);
             return ResponseEntity.ok(Map.of("Tag deleted", tagName));
+        } catch (TaskRejectedException ex) {
+            logger.warn("Tag deletion rejected, executor is saturated");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(Map.of("message", Constants.TASK_CAPACITY_ERROR));
         } catch (Exception ex) {
             logger.error(ex.getMessage(), ex);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage()));
@@ -0,0 +1,21 @@
+package com.teletronics.storage.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * A page of a cursor based listing. {@code nextCursor} is null on the last page,
+ * {@code totalElements} is only filled when a count was requested.
+ */
+@Getter
+@Setter
+@Builder
+public class FileCursorPageDTO {
+    private List<FileEntityDTO> content;
+    private int size;
+    private String nextCursor;
+    private Long totalElements;
+}
@@ -0,0 +1,7 @@
+package com.teletronics.storage.event;
+
+/**
+ * Published on every upload status transition.
+ */
+public record UploadStatusEvent(String fileId, String ownerId, String status) {
+}
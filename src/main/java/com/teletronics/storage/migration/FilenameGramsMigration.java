@@ -0,0 +1,74 @@
+package com.teletronics.storage.migration;
+
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.FilenameGrams;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Adds the search tokens to files saved before filenames were searchable.
+ * Enabled with storage.migrateFilenameGrams=true and safe to run repeatedly:
+ * a file renamed while it is migrated keeps the tokens of its new name.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.migrateFilenameGrams", havingValue = "true")
+@RequiredArgsConstructor
+public class FilenameGramsMigration implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(FilenameGramsMigration.class);
+
+    static final int BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        var migrated = migrate();
+        logger.info("Filename grams migration finished, migrated files: {}", migrated);
+    }
+
+    public int migrate() {
+        var query = Query.query(where("filenameGrams").exists(false));
+        query.fields().include("filename");
+
+        var migrated = 0;
+        List<FileEntity> batch = new ArrayList<>(BATCH_SIZE);
+        try (var files = mongoTemplate.stream(query, FileEntity.class)) {
+            var iterator = files.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == BATCH_SIZE) {
+                    migrated += migrate(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            migrated += migrate(batch);
+        }
+        return migrated;
+    }
+
+    private int migrate(List<FileEntity> files) {
+        var bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FileEntity.class);
+        for (var file : files) {
+            bulkOps.updateOne(
+                    Query.query(where("_id").is(file.getId()).and("filename").is(file.getFilename())),
+                    new Update().set("filenameGrams", FilenameGrams.of(file.getFilename())));
+        }
+        return bulkOps.execute().getModifiedCount();
+    }
+}
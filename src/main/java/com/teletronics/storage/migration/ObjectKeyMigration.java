@@ -0,0 +1,137 @@
+package com.teletronics.storage.migration;
+
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.service.FileService;
+import com.teletronics.storage.service.JobLockService;
+import com.teletronics.storage.service.MultipartUploader;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Moves objects stored under the legacy ownerId/filename key to the file id.
+ * Enabled with storage.migrateObjectKeys=true and safe to run repeatedly:
+ * a file renamed or deleted while its object is copied keeps its old key.
+ * Runs in the background, files are served from their legacy key until moved,
+ * and on one replica at a time under a lease extended while it makes progress.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.migrateObjectKeys", havingValue = "true")
+@RequiredArgsConstructor
+public class ObjectKeyMigration implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ObjectKeyMigration.class);
+
+    static final String LOCK = "objectKeyMigration";
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    private final MongoTemplate mongoTemplate;
+    private final S3Client s3Client;
+    private final MultipartUploader multipartUploader;
+    private final FileService fileService;
+    private final JobLockService jobLockService;
+
+    @Value("${minio.bucket}")
+    private String s3Bucket;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // copying every legacy object can take hours, startup must not wait for it
+        Thread.ofPlatform().name("object-key-migration").daemon(true).start(() -> {
+            var token = jobLockService.acquire(LOCK, LEASE);
+            if (token == null) {
+                logger.info("Object key migration is running on another replica");
+                return;
+            }
+            try {
+                var migrated = migrate(token);
+                logger.info("Object key migration finished, migrated files: {}", migrated);
+            } catch (Exception ex) {
+                logger.error("Object key migration failed, error={}", ex.getMessage(), ex);
+            } finally {
+                jobLockService.release(LOCK, token);
+            }
+        });
+    }
+
+    /**
+     * Migrates files while the lease identified by the token is held, and stops
+     * once it was lost to another replica.
+     */
+    public int migrate(String token) {
+        var query = Query.query(new Criteria().andOperator(
+                where("contentAddressed").ne(true),
+                new Criteria().orOperator(where("objectKey").is(null), where("objectKey").regex("/"))));
+        query.fields().include("ownerId", "filename", "objectKey", "fileSize");
+
+        var migrated = 0;
+        var leaseExtendedAt = Instant.now();
+        try (var files = mongoTemplate.stream(query, FileEntity.class)) {
+            var iterator = files.iterator();
+            while (iterator.hasNext()) {
+                if (leaseExtendedAt.isBefore(Instant.now().minus(LEASE.dividedBy(2)))) {
+                    if (!jobLockService.extend(LOCK, token, LEASE)) {
+                        logger.warn("Object key migration lost its lease, stopping after {} files", migrated);
+                        break;
+                    }
+                    leaseExtendedAt = Instant.now();
+                }
+                if (migrate(iterator.next())) {
+                    migrated++;
+                }
+            }
+        }
+        return migrated;
+    }
+
+    private boolean migrate(FileEntity file) {
+        var legacyKey = FileService.objectKey(file);
+        var newKey = file.getId();
+
+        try {
+            multipartUploader.copy(legacyKey, newKey, file.getFileSize());
+
+            var result = mongoTemplate.updateFirst(
+                    Query.query(where("_id").is(file.getId()).and("objectKey").is(file.getObjectKey())),
+                    new Update().set("objectKey", newKey).set("downloadUrl", fileService.downloadUrl(newKey)),
+                    FileEntity.class);
+
+            if (result.getModifiedCount() == 0) {
+                // the copy is only ours to drop if nobody committed the same key meanwhile
+                var current = mongoTemplate.findById(file.getId(), FileEntity.class);
+                if (current == null || !newKey.equals(current.getObjectKey())) {
+                    deleteObject(newKey);
+                }
+                return false;
+            }
+
+            deleteObject(legacyKey);
+            return true;
+        } catch (Exception ex) {
+            logger.error("Failed to migrate object key of file: {}, error={}", file.getId(), ex.getMessage(), ex);
+            return false;
+        }
+    }
+
+    private void deleteObject(String objectKey) {
+        s3Client.deleteObject(DeleteObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(objectKey)
+                .build());
+    }
+}
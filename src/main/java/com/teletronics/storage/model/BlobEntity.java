@@ -0,0 +1,24 @@
+package com.teletronics.storage.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Stored content shared by every {@link FileEntity} with the same hash
+ * when the content-addressable storage mode is enabled.
+ */
+@Document(collection = "blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BlobEntity {
+    @Id
+    private String id;
+
+    private String objectKey;
+    private long size;
+    private long refCount;
+}
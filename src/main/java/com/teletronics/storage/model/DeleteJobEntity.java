@@ -0,0 +1,34 @@
+package com.teletronics.storage.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A bulk delete running in the background. Counters are advanced after
+ * every batch, so the job can be polled for progress.
+ */
+@Document(collection = "delete_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeleteJobEntity {
+    @Id
+    private String id;
+
+    private String ownerId;
+    private List<String> fileIds;
+    private String tag;
+    private String status;
+    private long totalFiles;
+    private long deletedFiles;
+    private long failedObjects;
+    private String error;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -27,7 +27,6 @@ public class FileEntity {
     @Indexed
     private String fileHash;
 
-    @Indexed
     private boolean isPublic;
 
     @Indexed
@@ -38,4 +37,20 @@ public class FileEntity {
     private Instant uploadDate;
 
     private String downloadUrl;
+
+    /**
+     * Storage key of the content. Null for files stored before keys were recorded,
+     * whose key is derived from owner and filename.
+     */
+    private String objectKey;
+
+    /**
+     * Whether the content is a shared, reference-counted blob.
+     */
+    private boolean contentAddressed;
+
+    /**
+     * Search tokens of the filename, derived on every save.
+     */
+    private Set<String> filenameGrams;
 }
@@ -0,0 +1,37 @@
+package com.teletronics.storage.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * An upload the client sends straight to the bucket through a presigned URL.
+ * Holds the declared size and hash the stored object is verified against.
+ */
+@Document(collection = "presigned_uploads")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PresignedUploadEntity {
+    @Id
+    private String id;
+
+    @Indexed
+    private String ownerId;
+
+    private String filename;
+    private String objectKey;
+    private String contentType;
+    private long fileSize;
+    private String fileHash;
+    private boolean isPublic;
+    private Set<String> tags;
+    private Instant createdAt;
+    private Instant expiresAt;
+}
@@ -0,0 +1,40 @@
+package com.teletronics.storage.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Number of files carrying a tag within one scope: all public files, or the
+ * private files of one owner.
+ */
+@Document(collection = "tag_facets")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TagFacetEntity {
+    /**
+     * Scope and tag joined by NUL characters, so the facets of a scope are one
+     * range of the primary key.
+     */
+    @Id
+    private String id;
+
+    private String tag;
+
+    /**
+     * Null for the public scope.
+     */
+    private String ownerId;
+
+    private long files;
+
+    /**
+     * When the count was last recomputed from the files.
+     */
+    private Instant rebuiltAt;
+}
@@ -0,0 +1,25 @@
+package com.teletronics.storage.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A deleted tag still to be pulled from files. Kept until a pull that started
+ * after the tag was deleted went through, and retried until then.
+ */
+@Document(collection = "tag_removals")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TagRemovalEntity {
+    @Id
+    private String tag;
+
+    private Instant createdAt;
+    private Instant tagDeletedAt;
+}
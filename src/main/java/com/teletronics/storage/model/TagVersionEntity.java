@@ -0,0 +1,21 @@
+package com.teletronics.storage.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Version stamp of the tag vocabulary, bumped on every tag change so that
+ * replicas can tell whether their cached tags are still current.
+ */
+@Document(collection = "tag_versions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagVersionEntity {
+    @Id
+    private String id;
+
+    private long version;
+}
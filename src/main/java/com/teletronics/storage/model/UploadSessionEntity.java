@@ -0,0 +1,61 @@
+package com.teletronics.storage.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+@Document(collection = "upload_sessions")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSessionEntity {
+    @Id
+    private String id;
+
+    @Indexed
+    private String ownerId;
+
+    private String filename;
+    private String fileKey;
+    private String uploadId;
+    private String contentType;
+    private boolean isPublic;
+    private Set<String> tags;
+    private Instant createdAt;
+
+    /**
+     * Pushed forward by every received chunk; sessions past it are aborted by the sweep.
+     */
+    @Indexed
+    private Instant expiresAt;
+
+    /**
+     * Received chunks keyed by chunk number, so a chunk can be recorded with a single atomic $set.
+     */
+    @Builder.Default
+    private Map<String, UploadedChunk> chunks = new HashMap<>();
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UploadedChunk {
+        private int number;
+        private String eTag;
+        private long size;
+
+        /**
+         * Id of the running digest the chunk was fed into on the replica that received
+         * it, or null when it was not digested.
+         */
+        private String digestId;
+    }
+}
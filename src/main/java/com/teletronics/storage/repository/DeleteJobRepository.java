@@ -0,0 +1,9 @@
+package com.teletronics.storage.repository;
+
+import com.teletronics.storage.model.DeleteJobEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeleteJobRepository extends MongoRepository<DeleteJobEntity, String> {
+}
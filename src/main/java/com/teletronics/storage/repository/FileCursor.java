@@ -0,0 +1,54 @@
+package com.teletronics.storage.repository;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.dto.FileEntityDTO;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position in a file listing: the sort value and id of the last returned file.
+ * Travels to clients as an opaque token bound to the sort it was created for.
+ */
+public record FileCursor(String sortField, Sort.Direction direction, Object value, String id) {
+
+    public static FileCursor after(FileEntityDTO file, String sortField, Sort.Direction direction) {
+        Object value = switch (sortField) {
+            // Mongo keeps dates with millisecond precision
+            case "uploadDate" -> file.getUploadDate() != null ? Date.from(file.getUploadDate()) : null;
+            case "filename" -> file.getFilename();
+            case "fileSize" -> file.getFileSize();
+            default -> throw new IllegalArgumentException(Constants.INVALID_SORT_FIELD_ERROR + sortField);
+        };
+        return new FileCursor(sortField, direction, value, file.getId());
+    }
+
+    public String encode() {
+        var json = new Document("f", sortField)
+                .append("d", direction.name())
+                .append("v", value)
+                .append("id", id)
+                .toJson();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Restores a cursor, rejecting tokens that are malformed or were issued for another sort.
+     */
+    public static FileCursor decode(String token, String sortField, Sort.Direction direction) {
+        try {
+            var document = Document.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+            var cursor = new FileCursor(document.getString("f"), Sort.Direction.valueOf(document.getString("d")),
+                    document.get("v"), document.getString("id"));
+            if (!sortField.equals(cursor.sortField()) || direction != cursor.direction() || cursor.id() == null) {
+                throw new IllegalArgumentException(Constants.INVALID_CURSOR_ERROR);
+            }
+            return cursor;
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException(Constants.INVALID_CURSOR_ERROR, ex);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.teletronics.storage.repository;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.FileEntity;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the compound indexes of the file listing on startup. The listing filters on
+ * {@code $or} of public files and the user's own files, optionally by tag, and sorts
+ * by one of the allowed fields and _id. Every {@code $or} branch gets an index per
+ * sort field that serves both its filter and the sort, so branches are merged in
+ * index order instead of being sorted in memory. The filename search gets an index
+ * per branch on the search tokens.
+ */
+@Component
+@RequiredArgsConstructor
+public class FileIndexInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(FileIndexInitializer.class);
+
+    /**
+     * Single field index on isPublic from the former {@code @Indexed} mapping,
+     * too unselective to be worth maintaining.
+     */
+    static final String LEGACY_PUBLIC_INDEX = "isPublic";
+
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    void createIndexes() {
+        var indexOps = mongoTemplate.indexOps(FileEntity.class);
+        for (var index : listingIndexes()) {
+            indexOps.ensureIndex(index);
+        }
+        for (var index : searchIndexes()) {
+            indexOps.ensureIndex(index);
+        }
+
+        if (indexOps.getIndexInfo().stream().anyMatch(index -> LEGACY_PUBLIC_INDEX.equals(index.getName()))) {
+            logger.info("Dropping index {} of files", LEGACY_PUBLIC_INDEX);
+            indexOps.dropIndex(LEGACY_PUBLIC_INDEX);
+        }
+    }
+
+    public static List<Index> listingIndexes() {
+        List<Index> indexes = new ArrayList<>();
+        for (var sortField : Constants.SORT_FIELD_NAMES.values()) {
+            indexes.add(listingIndex("public_" + sortField, "isPublic", null, sortField));
+            indexes.add(listingIndex("owner_" + sortField, "ownerId", null, sortField));
+            indexes.add(listingIndex("public_tags_" + sortField, "isPublic", "tags", sortField));
+            indexes.add(listingIndex("owner_tags_" + sortField, "ownerId", "tags", sortField));
+        }
+        return indexes;
+    }
+
+    /**
+     * Indexes of the filename search, one per access branch, on the search tokens.
+     */
+    public static List<Index> searchIndexes() {
+        return List.of(
+                new Index().on("isPublic", Sort.Direction.ASC).on("filenameGrams", Sort.Direction.ASC).named("public_grams"),
+                new Index().on("ownerId", Sort.Direction.ASC).on("filenameGrams", Sort.Direction.ASC).named("owner_grams"));
+    }
+
+    private static Index listingIndex(String name, String accessField, String tagField, String sortField) {
+        var index = new Index().on(accessField, Sort.Direction.ASC);
+        if (tagField != null) {
+            index.on(tagField, Sort.Direction.ASC);
+        }
+        // descending listings walk the same index backwards
+        return index.on(sortField, Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named(name);
+    }
+}
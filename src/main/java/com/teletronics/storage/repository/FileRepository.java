@@ -1,20 +1,15 @@
 package com.teletronics.storage.repository;
 
 import com.teletronics.storage.model.FileEntity;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface FileRepository extends MongoRepository<FileEntity, String> {
+public interface FileRepository extends MongoRepository<FileEntity, String>, FileRepositoryCustom {
 
-    @Query("{'$or': [{'isPublic': true}, {'ownerId': ?1}], 'tags': ?0}")
-    Page<FileEntity> findByTagAndAccess(String tag, String ownerId, Pageable pageable);
+    Boolean existsByOwnerIdAndFilenameOrFileHash(String ownerId, String filename, String fileHash);
 
-    @Query("{'$or': [{'isPublic': true}, {'ownerId': ?0}]}")
-    Page<FileEntity> findByPublicOrOwner(String ownerId, Pageable pageable);
+    Boolean existsByOwnerIdAndFilename(String ownerId, String filename);
 
-    Boolean existsByOwnerIdAndFilenameOrFileHash(String ownerId, String filename, String fileHash);
+    Boolean existsByOwnerIdAndFilenameOrOwnerIdAndFileHash(String ownerId, String filename, String hashOwnerId, String fileHash);
 }
\ No newline at end of file
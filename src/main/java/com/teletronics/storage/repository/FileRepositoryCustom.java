@@ -0,0 +1,68 @@
+package com.teletronics.storage.repository;
+
+import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.model.FileEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * File listings, and claims keeping concurrent deletes of a file apart. Listings
+ * read only the fields of {@link FileEntityDTO} and map them straight from the
+ * returned documents, without hydrating {@code FileEntity}. The download url is
+ * left to the caller.
+ */
+public interface FileRepositoryCustom {
+
+    /**
+     * Files readable by the owner, public ones or their own, ordered by
+     * (sortField, _id) and starting right after the cursor. Seeks through
+     * the index instead of skipping, so every page costs the same.
+     */
+    List<FileEntityDTO> findAccessibleAfter(String ownerId, String tag, String sortField, Sort.Direction direction,
+                                            FileCursor after, int limit);
+
+    Page<FileEntityDTO> findAccessible(String ownerId, String tag, Pageable pageable);
+
+    long countAccessible(String ownerId, String tag);
+
+    /**
+     * Files readable by the owner whose name contains the query, ignoring case; a
+     * query shorter than three characters matches the start of the name. Returns at
+     * most {@code limit} files in no particular order, so the scan stops early.
+     */
+    List<FileEntityDTO> searchAccessible(String ownerId, String query, int limit);
+
+    /**
+     * Files clashing with any of the given names of the owner or content hashes, of
+     * any owner or, with {@code hashesPerOwner}, of the owner only. Only ownerId,
+     * filename and fileHash are read.
+     */
+    List<FileEntity> findConflicting(String ownerId, Collection<String> filenames, Collection<String> fileHashes,
+                                     boolean hashesPerOwner);
+
+    /**
+     * Sets the file's name, its search tokens and its object key, leaving every other
+     * field to concurrent updates such as retags.
+     */
+    void rename(FileEntity file);
+
+    /**
+     * Marks the owner's files among the ids as being deleted under the claim, unless
+     * another delete claimed them less than {@link FileRepositoryImpl#DELETE_CLAIM_TIMEOUT}
+     * ago, so only one of several concurrent deletes of a file releases its content.
+     *
+     * @return the ids claimed
+     */
+    List<String> claimForDelete(Collection<String> ids, String ownerId, String claim);
+
+    /**
+     * Removes the files among the ids still held by the claim.
+     *
+     * @return the number of files removed
+     */
+    long removeClaimed(Collection<String> ids, String claim);
+}
@@ -0,0 +1,162 @@
+package com.teletronics.storage.repository;
+
+import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.model.FileEntity;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@RequiredArgsConstructor
+public class FileRepositoryImpl implements FileRepositoryCustom {
+
+    /**
+     * Fields read by listings, the stored counterparts of {@link FileEntityDTO}.
+     */
+    public static final String[] LISTING_FIELDS = {"filename", "tags", "contentType", "fileSize", "uploadDate"};
+
+    /**
+     * After this long a delete claim is taken to belong to a delete that died
+     * between claiming and removing, and can be claimed again.
+     */
+    public static final Duration DELETE_CLAIM_TIMEOUT = Duration.ofMinutes(10);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<FileEntityDTO> findAccessibleAfter(String ownerId, String tag, String sortField, Sort.Direction direction,
+                                                   FileCursor after, int limit) {
+        return findListing(accessibleAfterQuery(ownerId, tag, sortField, direction, after, limit));
+    }
+
+    @Override
+    public Page<FileEntityDTO> findAccessible(String ownerId, String tag, Pageable pageable) {
+        var content = findListing(Query.query(accessCriteria(ownerId, tag)).with(pageable));
+        return PageableExecutionUtils.getPage(content, pageable, () -> countAccessible(ownerId, tag));
+    }
+
+    @Override
+    public long countAccessible(String ownerId, String tag) {
+        return mongoTemplate.count(Query.query(accessCriteria(ownerId, tag)), FileEntity.class);
+    }
+
+    @Override
+    public List<FileEntityDTO> searchAccessible(String ownerId, String query, int limit) {
+        return findListing(searchQuery(ownerId, query, limit));
+    }
+
+    @Override
+    public List<FileEntity> findConflicting(String ownerId, Collection<String> filenames, Collection<String> fileHashes,
+                                            boolean hashesPerOwner) {
+        var sameContent = hashesPerOwner
+                ? where("ownerId").is(ownerId).and("fileHash").in(fileHashes)
+                : where("fileHash").in(fileHashes);
+        var query = Query.query(new Criteria().orOperator(
+                where("ownerId").is(ownerId).and("filename").in(filenames),
+                sameContent));
+        query.fields().include("ownerId", "filename", "fileHash");
+        return mongoTemplate.find(query, FileEntity.class);
+    }
+
+    @Override
+    public void rename(FileEntity file) {
+        mongoTemplate.updateFirst(Query.query(where("_id").is(file.getId())),
+                new Update().set("filename", file.getFilename())
+                        .set("filenameGrams", FilenameGrams.of(file.getFilename()))
+                        .set("objectKey", file.getObjectKey()),
+                FileEntity.class);
+    }
+
+    @Override
+    public List<String> claimForDelete(Collection<String> ids, String ownerId, String claim) {
+        var now = Instant.now();
+        mongoTemplate.updateMulti(
+                Query.query(where("_id").in(ids).and("ownerId").is(ownerId).orOperator(
+                        where("deleteClaimedAt").exists(false), where("deleteClaimedAt").lt(now.minus(DELETE_CLAIM_TIMEOUT)))),
+                new Update().set("deleteClaim", claim).set("deleteClaimedAt", now),
+                FileEntity.class);
+
+        var query = Query.query(where("_id").in(ids).and("deleteClaim").is(claim));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(FileEntity.class)).stream()
+                .map(document -> document.getString("_id"))
+                .toList();
+    }
+
+    @Override
+    public long removeClaimed(Collection<String> ids, String claim) {
+        return mongoTemplate.remove(Query.query(where("_id").in(ids).and("deleteClaim").is(claim)), FileEntity.class)
+                .getDeletedCount();
+    }
+
+    public static Query accessibleAfterQuery(String ownerId, String tag, String sortField, Sort.Direction direction,
+                                             FileCursor after, int limit) {
+        var criteria = accessCriteria(ownerId, tag);
+        if (after != null) {
+            // (sortField, _id) past the cursor, written as a range on the sort field plus a
+            // tie-breaker, so the range bounds the index scan of every access branch
+            var ascending = direction.isAscending();
+            var range = ascending ? where(sortField).gte(after.value()) : where(sortField).lte(after.value());
+            var tieBreaker = new Criteria().orOperator(
+                    ascending ? where(sortField).gt(after.value()) : where(sortField).lt(after.value()),
+                    ascending ? where("_id").gt(after.id()) : where("_id").lt(after.id()));
+            criteria = new Criteria().andOperator(criteria, range, tieBreaker);
+        }
+
+        return Query.query(criteria)
+                .with(Sort.by(direction, sortField).and(Sort.by(direction, "_id")))
+                .limit(limit);
+    }
+
+    public static Query searchQuery(String ownerId, String query, int limit) {
+        var criteria = new Criteria().andOperator(
+                accessCriteria(ownerId, null),
+                where("filenameGrams").all(FilenameGrams.ofQuery(query)));
+        if (!FilenameGrams.exact(query)) {
+            // carrying every trigram does not mean they are adjacent
+            criteria = new Criteria().andOperator(criteria, where("filename").regex(Pattern.quote(query), "i"));
+        }
+        return Query.query(criteria).limit(limit);
+    }
+
+    private List<FileEntityDTO> findListing(Query query) {
+        query.fields().include(LISTING_FIELDS);
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(FileEntity.class)).stream()
+                .map(FileRepositoryImpl::toListing)
+                .toList();
+    }
+
+    public static FileEntityDTO toListing(Document document) {
+        var tags = document.getList("tags", String.class);
+        var fileSize = document.get("fileSize", Number.class);
+        var uploadDate = document.getDate("uploadDate");
+        return FileEntityDTO.builder()
+                .id(document.getString("_id"))
+                .filename(document.getString("filename"))
+                .tags(tags != null ? new LinkedHashSet<>(tags) : null)
+                .contentType(document.getString("contentType"))
+                .fileSize(fileSize != null ? fileSize.longValue() : 0)
+                .uploadDate(uploadDate != null ? uploadDate.toInstant() : null)
+                .build();
+    }
+
+    private static Criteria accessCriteria(String ownerId, String tag) {
+        var criteria = new Criteria().orOperator(where("isPublic").is(true), where("ownerId").is(ownerId));
+        return tag != null ? new Criteria().andOperator(criteria, where("tags").is(tag)) : criteria;
+    }
+}
@@ -0,0 +1,45 @@
+package com.teletronics.storage.repository;
+
+import com.teletronics.storage.constants.Constants;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Files of one owner picked by bulk operations: by ids, by tag, or all of them
+ * when neither is set.
+ */
+public record FileSelection(String ownerId, List<String> fileIds, String tag) {
+
+    /**
+     * Validates that exactly one way of selecting files is used.
+     */
+    public static FileSelection of(String ownerId, List<String> fileIds, String tag, boolean all) {
+        var byIds = fileIds != null && !fileIds.isEmpty();
+        var byTag = tag != null && !tag.isBlank();
+        if ((byIds ? 1 : 0) + (byTag ? 1 : 0) + (all ? 1 : 0) != 1) {
+            throw new IllegalArgumentException(Constants.FILE_SELECTION_ERROR);
+        }
+        return new FileSelection(ownerId, byIds ? fileIds : null, byTag ? tag.trim().toLowerCase() : null);
+    }
+
+    public Criteria criteria() {
+        return criteria(fileIds);
+    }
+
+    /**
+     * Criteria restricted to the given ids of an id based selection.
+     */
+    public Criteria criteria(List<String> ids) {
+        var criteria = where("ownerId").is(ownerId);
+        if (ids != null) {
+            criteria.and("_id").in(ids);
+        }
+        if (tag != null) {
+            criteria.and("tags").is(tag);
+        }
+        return criteria;
+    }
+}
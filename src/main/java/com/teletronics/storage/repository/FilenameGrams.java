@@ -0,0 +1,58 @@
+package com.teletronics.storage.repository;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Search tokens of file names: every three character substring of the lower cased
+ * name, plus its first one and two characters marked with a leading NUL, which no
+ * name contains, so that queries too short for a trigram still match as a prefix.
+ * A name contains a query only if it carries all the query's tokens, which a
+ * multikey index finds without scanning names.
+ */
+public final class FilenameGrams {
+    static final int GRAM_LENGTH = 3;
+    private static final String PREFIX_MARK = "\0";
+
+    private FilenameGrams() {
+    }
+
+    public static Set<String> of(String filename) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (filename == null || filename.isEmpty()) {
+            return grams;
+        }
+        var name = filename.toLowerCase(Locale.ROOT);
+        for (var length = 1; length < GRAM_LENGTH && length <= name.length(); length++) {
+            grams.add(PREFIX_MARK + name.substring(0, length));
+        }
+        for (var i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+            grams.add(name.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * Tokens every name containing the query carries. Queries shorter than a
+     * trigram yield a prefix token, so they match the start of the name only.
+     */
+    public static Set<String> ofQuery(String query) {
+        var normalized = query.toLowerCase(Locale.ROOT);
+        if (normalized.length() < GRAM_LENGTH) {
+            return Set.of(PREFIX_MARK + normalized);
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (var i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * Whether the tokens of the query match exactly, without checking the name.
+     */
+    static boolean exact(String query) {
+        return query.length() <= GRAM_LENGTH;
+    }
+}
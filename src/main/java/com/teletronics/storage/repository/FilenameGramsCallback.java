@@ -0,0 +1,19 @@
+package com.teletronics.storage.repository;
+
+import com.teletronics.storage.model.FileEntity;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Derives the search tokens of a file from its name whenever the file is saved,
+ * so uploads, batch inserts and renames keep them in sync.
+ */
+@Component
+public class FilenameGramsCallback implements BeforeConvertCallback<FileEntity> {
+
+    @Override
+    public FileEntity onBeforeConvert(FileEntity file, String collection) {
+        file.setFilenameGrams(FilenameGrams.of(file.getFilename()));
+        return file;
+    }
+}
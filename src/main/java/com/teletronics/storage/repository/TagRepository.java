@@ -9,8 +9,6 @@ import java.util.Set;
 
 @Repository
 public interface TagRepository extends MongoRepository<TagEntity, String> {
-    long countByNameIgnoreCase(String name);
-    long countByNameInIgnoreCase(Set<String> names);
 
     void deleteByNameIgnoreCase(String name);
 
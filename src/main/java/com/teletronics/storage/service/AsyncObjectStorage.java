@@ -0,0 +1,92 @@
+package com.teletronics.storage.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Non-blocking object operations on the async S3 client. No thread is held while
+ * a transfer is in flight, so throughput is bounded by the client's connection
+ * pool rather than by executor threads.
+ * <p>
+ * Uploads in flight are capped, an upload over the cap is rejected with a
+ * TaskRejectedException. Upload futures complete on the storage callback pool
+ * rather than on SDK threads, so their dependents may block.
+ */
+@Component
+public class AsyncObjectStorage {
+
+    static final long MAX_SINGLE_PUT_SIZE = DataSize.ofGigabytes(5).toBytes();
+
+    private final S3AsyncClient s3AsyncClient;
+    private final Executor callbackPool;
+    private final Semaphore inFlightUploads;
+
+    @Value("${minio.bucket}")
+    private String s3Bucket;
+
+    public AsyncObjectStorage(@Lazy S3AsyncClient s3AsyncClient,
+                              @Qualifier("storageCallbackPool") Executor callbackPool,
+                              @Value("${minio.async.maxInFlightUploads}") int maxInFlightUploads) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.callbackPool = callbackPool;
+        this.inFlightUploads = new Semaphore(maxInFlightUploads);
+    }
+
+    /**
+     * Uploads a file in a single PUT. The SHA-256 checksum is verified by the
+     * storage, a mismatch fails the returned future.
+     *
+     * @throws TaskRejectedException when the maximum number of uploads is in flight
+     */
+    public CompletableFuture<Void> upload(String objectKey, Path file, String contentType, String sha256) {
+        if (!inFlightUploads.tryAcquire()) {
+            throw new TaskRejectedException("Too many non-blocking uploads in flight");
+        }
+
+        CompletableFuture<PutObjectResponse> response;
+        try {
+            response = s3AsyncClient.putObject(PutObjectRequest.builder()
+                            .bucket(s3Bucket)
+                            .key(objectKey)
+                            .contentType(contentType)
+                            .checksumSHA256(sha256)
+                            .build(),
+                    AsyncRequestBody.fromFile(file));
+        } catch (RuntimeException ex) {
+            inFlightUploads.release();
+            throw ex;
+        }
+
+        return response
+                .<Void>handleAsync((ignored, ex) -> {
+                    inFlightUploads.release();
+                    if (ex != null) {
+                        throw ex instanceof CompletionException completion ? completion : new CompletionException(ex);
+                    }
+                    return null;
+                }, callbackPool);
+    }
+
+    public CompletableFuture<Void> delete(String objectKey) {
+        return s3AsyncClient.deleteObject(DeleteObjectRequest.builder()
+                        .bucket(s3Bucket)
+                        .key(objectKey)
+                        .build())
+                .thenApply(response -> null);
+    }
+}
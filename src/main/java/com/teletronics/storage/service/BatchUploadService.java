@@ -0,0 +1,219 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.FileRepository;
+import com.teletronics.storage.util.DetachedMultipartFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Uploads many files in one request. Duplicates of the whole batch are found with
+ * a single query, objects are written concurrently and the metadata of all stored
+ * files is inserted at once. Every file keeps its own id and upload status.
+ */
+@Service
+public class BatchUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchUploadService.class);
+
+    private final FileService fileService;
+    private final FileRepository fileRepository;
+    private final FileExistenceFilter existenceFilter;
+    private final TagFacetService tagFacetService;
+    private final Executor batchUploadPool;
+
+    @Value("${storage.batch.maxFiles}")
+    private int maxFiles;
+
+    public BatchUploadService(FileService fileService,
+                              FileRepository fileRepository,
+                              FileExistenceFilter existenceFilter,
+                              TagFacetService tagFacetService,
+                              @Qualifier("batchUploadPool") Executor batchUploadPool) {
+        this.fileService = fileService;
+        this.fileRepository = fileRepository;
+        this.existenceFilter = existenceFilter;
+        this.tagFacetService = tagFacetService;
+        this.batchUploadPool = batchUploadPool;
+    }
+
+    /**
+     * Hashes the files of a batch and rejects empty ones and duplicates, i.e. files
+     * that already exist or repeat an earlier file of the batch.
+     */
+    public List<BatchFile> prepare(String ownerId, List<MultipartFile> files) throws IOException {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException(Constants.EMPTY_BATCH_ERROR);
+        }
+        if (files.size() > maxFiles) {
+            throw new IllegalArgumentException(Constants.BATCH_SIZE_ERROR + maxFiles);
+        }
+
+        List<BatchFile> batch = new ArrayList<>(files.size());
+        for (var file : files) {
+            if (file.isEmpty()) {
+                batch.add(new BatchFile(null, file, file.getOriginalFilename(), null, Constants.EMPTY_FILE_ERROR));
+            } else {
+                batch.add(new BatchFile(UUID.randomUUID().toString(), file,
+                        FileService.normalizeFileName(file.getOriginalFilename()), fileService.generateFileHash(file), null));
+            }
+        }
+
+        var existing = findExisting(ownerId, batch);
+        Set<String> seenNames = new HashSet<>();
+        Set<String> seenHashes = new HashSet<>();
+        return batch.stream()
+                .map(file -> {
+                    if (!file.accepted()) {
+                        return file;
+                    }
+                    var repeated = !seenNames.add(file.filename()) | !seenHashes.add(file.fileHash());
+                    if (repeated || existing.names().contains(file.filename()) || existing.hashes().contains(file.fileHash())) {
+                        return file.rejected(Constants.FILE_EXISTS_ERROR);
+                    }
+                    return file;
+                })
+                .toList();
+    }
+
+    @Async("teletronicsPool")
+    public void uploadAsync(String ownerId, List<BatchFile> batch, boolean isPublic, Set<String> tags) {
+        batch.forEach(file -> fileService.updateStatus(file.fileId(), ownerId, Constants.STATUS_IN_PROGRESS));
+
+        var uploads = batch.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> store(ownerId, file, isPublic, tags), batchUploadPool))
+                .toList();
+
+        List<FileEntity> stored = new ArrayList<>();
+        for (var i = 0; i < uploads.size(); i++) {
+            var fileId = batch.get(i).fileId();
+            try {
+                stored.add(uploads.get(i).join());
+            } catch (Exception ex) {
+                logger.error("Batch upload of file failed: {}, error={}", fileId, ex.getMessage(), ex);
+                fileService.updateStatus(fileId, ownerId, Constants.STATUS_FAILED);
+            }
+        }
+
+        if (!stored.isEmpty()) {
+            register(ownerId, stored);
+        }
+    }
+
+    private FileEntity store(String ownerId, BatchFile file, boolean isPublic, Set<String> tags) {
+        var newFile = FileEntity.builder()
+                .id(file.fileId())
+                .filename(file.filename())
+                .ownerId(ownerId)
+                .fileHash(file.fileHash())
+                .contentType(file.file().getContentType())
+                .fileSize(file.file().getSize())
+                .uploadDate(Instant.now())
+                .isPublic(isPublic)
+                .tags(tags)
+                .build();
+        try {
+            fileService.storeContent(newFile, file.file());
+            return newFile;
+        } catch (Exception ex) {
+            if (newFile.isContentAddressed()) {
+                fileService.releaseBlob(newFile.getFileHash());
+            }
+            throw new RuntimeException(Constants.FILE_UPLOAD_ERROR, ex);
+        } finally {
+            if (file.file() instanceof DetachedMultipartFile detached) {
+                detached.delete();
+            }
+        }
+    }
+
+    /**
+     * Inserts the metadata of all stored files in one round trip. If the bulk insert
+     * fails part way, files are saved one by one so each gets its own outcome.
+     */
+    private void register(String ownerId, List<FileEntity> stored) {
+        try {
+            fileRepository.insert(stored);
+            stored.forEach(existenceFilter::add);
+            tagFacetService.filesAdded(stored);
+            stored.forEach(file -> fileService.updateStatus(file.getId(), ownerId, Constants.STATUS_COMPLETED));
+            return;
+        } catch (RuntimeException ex) {
+            logger.warn("Bulk insert of {} files failed, registering them one by one, error={}", stored.size(), ex.getMessage());
+        }
+
+        for (var file : stored) {
+            try {
+                fileService.registerFile(file);
+                fileService.updateStatus(file.getId(), ownerId, Constants.STATUS_COMPLETED);
+            } catch (RuntimeException ex) {
+                logger.error("Failed to register file: {}, error={}", file.getId(), ex.getMessage(), ex);
+                if (file.isContentAddressed()) {
+                    fileService.releaseBlob(file.getFileHash());
+                } else {
+                    fileService.deleteObject(file.getObjectKey());
+                }
+                fileService.updateStatus(file.getId(), ownerId, Constants.STATUS_FAILED);
+            }
+        }
+    }
+
+    private Existing findExisting(String ownerId, List<BatchFile> batch) {
+        var contentPerOwner = fileService.isContentAddressable();
+        var candidates = batch.stream()
+                .filter(BatchFile::accepted)
+                .filter(file -> existenceFilter.mightExist(ownerId, file.filename(), file.fileHash(), contentPerOwner))
+                .toList();
+        if (candidates.isEmpty()) {
+            return new Existing(Set.of(), Set.of());
+        }
+
+        var conflicts = fileRepository.findConflicting(ownerId,
+                candidates.stream().map(BatchFile::filename).toList(),
+                candidates.stream().map(BatchFile::fileHash).toList(),
+                contentPerOwner);
+        Set<String> names = new HashSet<>();
+        Set<String> hashes = new HashSet<>();
+        for (var conflict : conflicts) {
+            if (ownerId.equals(conflict.getOwnerId())) {
+                names.add(conflict.getFilename());
+            }
+            if (!contentPerOwner || ownerId.equals(conflict.getOwnerId())) {
+                hashes.add(conflict.getFileHash());
+            }
+        }
+        return new Existing(names, hashes);
+    }
+
+    /**
+     * One file of a batch. Rejected files carry the reason instead of an id.
+     */
+    public record BatchFile(String fileId, MultipartFile file, String filename, String fileHash, String error) {
+
+        public boolean accepted() {
+            return error == null;
+        }
+
+        BatchFile rejected(String reason) {
+            return new BatchFile(null, file, filename, fileHash, reason);
+        }
+
+        public BatchFile withFile(MultipartFile content) {
+            return new BatchFile(fileId, content, filename, fileHash, error);
+        }
+    }
+
+    private record Existing(Set<String> names, Set<String> hashes) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.model.BlobEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Reference counts for content-addressed blobs, keyed by file hash.
+ * All changes are single atomic updates, so concurrent uploads and deletes
+ * of the same content never lose a reference. Every stored copy gets its own
+ * object key, so deleting the content of a released blob can never remove the
+ * object a concurrent upload of the same hash is registering.
+ */
+@Service
+@RequiredArgsConstructor
+public class BlobService {
+    public static final String BLOB_KEY_PREFIX = "blobs/";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Adds a reference to a live blob with the given hash.
+     *
+     * @return the blob, or null when the content is not stored yet
+     */
+    public BlobEntity acquire(String fileHash) {
+        return mongoTemplate.findAndModify(
+                Query.query(where("_id").is(fileHash).and("refCount").gt(0)),
+                new Update().inc("refCount", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                BlobEntity.class);
+    }
+
+    /**
+     * Records a reference to freshly stored content. When another upload registered
+     * the same hash first, the returned blob points at its object instead.
+     */
+    public BlobEntity register(String fileHash, String objectKey, long size) {
+        return mongoTemplate.findAndModify(
+                Query.query(where("_id").is(fileHash)),
+                new Update().inc("refCount", 1)
+                        .setOnInsert("objectKey", objectKey)
+                        .setOnInsert("size", size),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                BlobEntity.class);
+    }
+
+    /**
+     * Drops a reference.
+     *
+     * @return the object key to delete from storage when this was the last reference, otherwise null
+     */
+    public String release(String fileHash) {
+        var blob = mongoTemplate.findAndModify(
+                Query.query(where("_id").is(fileHash)),
+                new Update().inc("refCount", -1),
+                FindAndModifyOptions.options().returnNew(true),
+                BlobEntity.class);
+
+        if (blob == null || blob.getRefCount() > 0) {
+            return null;
+        }
+
+        // only the key recorded in the removed document is deleted, never one derived from the hash
+        var removed = mongoTemplate.findAndRemove(
+                Query.query(where("_id").is(fileHash).and("refCount").lte(0)),
+                BlobEntity.class);
+        return removed != null ? removed.getObjectKey() : null;
+    }
+
+    /**
+     * A fresh object key for a copy of the content with the given hash.
+     */
+    public static String blobKey(String fileHash) {
+        var urlSafeHash = fileHash.replace('+', '-').replace('/', '_').replace("=", "");
+        return BLOB_KEY_PREFIX + urlSafeHash + "/" + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,217 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.DeleteJobEntity;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.DeleteJobRepository;
+import com.teletronics.storage.repository.FileRepository;
+import com.teletronics.storage.repository.FileSelection;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Deletes many files of one owner, selected by ids, by tag or all of them, as a
+ * background job. Matching files are streamed from Mongo and handled in batches of
+ * 1000: one remove for their metadata and one DeleteObjects request for their objects,
+ * instead of three round trips per file. Files are claimed before they are removed,
+ * so a file reached by overlapping deletes has its content released only once.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkDeleteService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkDeleteService.class);
+
+    /**
+     * Largest number of keys a DeleteObjects request accepts.
+     */
+    static final int BATCH_SIZE = 1000;
+
+    /**
+     * How long finished jobs can still be polled.
+     */
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofDays(7);
+
+    private final MongoTemplate mongoTemplate;
+    private final FileRepository fileRepository;
+    private final S3Client s3Client;
+    private final BlobService blobService;
+    private final DeleteJobRepository deleteJobRepository;
+    private final FileExistenceFilter existenceFilter;
+    private final TagFacetService tagFacetService;
+
+    @Value("${minio.bucket}")
+    private String s3Bucket;
+
+    @PostConstruct
+    void createTtlIndex() {
+        mongoTemplate.indexOps(DeleteJobEntity.class)
+                .ensureIndex(new Index().on("updatedAt", Sort.Direction.ASC)
+                        .expire(FINISHED_JOB_RETENTION)
+                        .partial(PartialIndexFilter.of(where("status").in(Constants.STATUS_COMPLETED, Constants.STATUS_FAILED))));
+    }
+
+    public DeleteJobEntity createJob(String ownerId, List<String> fileIds, String tag, boolean all) {
+        var selection = FileSelection.of(ownerId, fileIds, tag, all);
+
+        var now = Instant.now();
+        var job = DeleteJobEntity.builder()
+                .id(UUID.randomUUID().toString())
+                .ownerId(ownerId)
+                .fileIds(selection.fileIds())
+                .tag(selection.tag())
+                .status(Constants.STATUS_IN_PROGRESS)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        job.setTotalFiles(mongoTemplate.count(matchQuery(job), FileEntity.class));
+        return deleteJobRepository.save(job);
+    }
+
+    public DeleteJobEntity getJob(String jobId, String ownerId) {
+        return deleteJobRepository.findById(jobId)
+                .filter(job -> job.getOwnerId().equals(ownerId))
+                .orElseThrow(() -> new IllegalArgumentException(Constants.DELETE_JOB_NOT_FOUND_ERROR));
+    }
+
+    /**
+     * Drops a job that could not be scheduled.
+     */
+    public void discard(DeleteJobEntity job) {
+        deleteJobRepository.deleteById(job.getId());
+    }
+
+    @Async("teletronicsPool")
+    public void runAsync(DeleteJobEntity job) {
+        run(job);
+    }
+
+    void run(DeleteJobEntity job) {
+        var query = matchQuery(job);
+        query.fields().include("ownerId", "filename", "fileHash", "objectKey", "contentAddressed", "isPublic", "tags");
+
+        List<FileEntity> batch = new ArrayList<>(BATCH_SIZE);
+        try (var files = mongoTemplate.stream(query, FileEntity.class)) {
+            var iterator = files.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == BATCH_SIZE) {
+                    deleteBatch(job, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                deleteBatch(job, batch);
+            }
+            finish(job, Constants.STATUS_COMPLETED, null);
+        } catch (Exception ex) {
+            logger.error("Delete job failed: {}, error={}", job.getId(), ex.getMessage(), ex);
+            finish(job, Constants.STATUS_FAILED, ex.getMessage());
+        }
+    }
+
+    private void deleteBatch(DeleteJobEntity job, List<FileEntity> batch) {
+        var claimed = new HashSet<>(fileRepository.claimForDelete(
+                batch.stream().map(FileEntity::getId).toList(), job.getOwnerId(), job.getId()));
+        var files = batch.stream().filter(file -> claimed.contains(file.getId())).toList();
+
+        // metadata goes first, a failed object delete only leaves an orphaned object behind
+        var removed = files.isEmpty() ? 0 : fileRepository.removeClaimed(claimed, job.getId());
+        if (removed != files.size()) {
+            // a claim outlived its timeout and was taken over, so which files this job removed
+            // is unknown; their content is left behind rather than released twice
+            logger.error("Delete job {}: removed {} of {} claimed files, keeping their content", job.getId(), removed, files.size());
+            files = List.of();
+        }
+        tagFacetService.filesRemoved(files);
+
+        List<String> objectKeys = new ArrayList<>(files.size());
+        for (var file : files) {
+            existenceFilter.remove(file);
+            if (file.isContentAddressed()) {
+                releaseBlob(file.getFileHash(), objectKeys);
+            } else {
+                objectKeys.add(FileService.objectKey(file));
+            }
+        }
+        var failedObjects = deleteObjects(objectKeys);
+
+        mongoTemplate.updateFirst(
+                Query.query(where("_id").is(job.getId())),
+                new Update().inc("deletedFiles", removed)
+                        .inc("failedObjects", failedObjects)
+                        .set("updatedAt", Instant.now()),
+                DeleteJobEntity.class);
+        logger.info("Delete job {}: removed {} files, {} objects failed", job.getId(), removed, failedObjects);
+    }
+
+    private void releaseBlob(String fileHash, List<String> objectKeys) {
+        try {
+            var orphanKey = blobService.release(fileHash);
+            if (orphanKey != null) {
+                objectKeys.add(orphanKey);
+            }
+        } catch (Exception ex) {
+            logger.error("Failed to release blob: {}, error={}", fileHash, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * @return the number of objects that could not be deleted
+     */
+    private long deleteObjects(List<String> objectKeys) {
+        if (objectKeys.isEmpty()) {
+            return 0;
+        }
+        try {
+            var response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(s3Bucket)
+                    .delete(Delete.builder()
+                            .objects(objectKeys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                            .quiet(true)
+                            .build())
+                    .build());
+            response.errors().forEach(error ->
+                    logger.error("Failed to delete object: {}, error={}", error.key(), error.message()));
+            return response.errors().size();
+        } catch (Exception ex) {
+            logger.error("Failed to delete {} objects, error={}", objectKeys.size(), ex.getMessage(), ex);
+            return objectKeys.size();
+        }
+    }
+
+    private void finish(DeleteJobEntity job, String status, String error) {
+        var update = new Update().set("status", status).set("updatedAt", Instant.now());
+        if (error != null) {
+            update.set("error", error);
+        }
+        mongoTemplate.updateFirst(Query.query(where("_id").is(job.getId())), update, DeleteJobEntity.class);
+    }
+
+    private static Query matchQuery(DeleteJobEntity job) {
+        return Query.query(new FileSelection(job.getOwnerId(), job.getFileIds(), job.getTag()).criteria());
+    }
+}
@@ -0,0 +1,199 @@
+package com.teletronics.storage.service;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.teletronics.storage.model.FileEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter over the owner/filename pairs and content hashes of all files, so
+ * duplicate checks for new content are answered without a query. A negative answer
+ * is definite, a positive one has to be confirmed against Mongo. Until the filter
+ * is built every check goes to Mongo.
+ * <p>
+ * Entries cannot be removed, deleted and renamed files stay in the filter as stale
+ * entries that only cost a confirming query. The filter is rebuilt once they, or the
+ * number of files, push its false positive rate well over the configured one.
+ * <p>
+ * The filter only sees files stored through this instance, so it is disabled by
+ * default and must stay disabled when several replicas share the database.
+ */
+@Component
+public class FileExistenceFilter {
+    private static final Logger logger = LoggerFactory.getLogger(FileExistenceFilter.class);
+
+    private static final char SEPARATOR = '\0';
+    private static final int KEYS_PER_FILE = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final long expectedFiles;
+    private final double falsePositiveRate;
+
+    private final Counter negativeChecks;
+    private final Counter positiveChecks;
+    private final Counter falsePositives;
+    private final AtomicLong staleEntries = new AtomicLong();
+
+    private volatile BloomFilter<CharSequence> filter;
+    private volatile BloomFilter<CharSequence> pendingFilter;
+    private volatile long capacity;
+
+    public FileExistenceFilter(MongoTemplate mongoTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${storage.dedup.filter.enabled}") boolean enabled,
+                               @Value("${storage.dedup.filter.expectedFiles}") long expectedFiles,
+                               @Value("${storage.dedup.filter.falsePositiveRate}") double falsePositiveRate) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.expectedFiles = expectedFiles;
+        this.falsePositiveRate = falsePositiveRate;
+
+        negativeChecks = Counter.builder("storage.dedup.filter.checks").tag("result", "negative").register(meterRegistry);
+        positiveChecks = Counter.builder("storage.dedup.filter.checks").tag("result", "positive").register(meterRegistry);
+        falsePositives = Counter.builder("storage.dedup.filter.false.positives")
+                .description("Positive checks that Mongo did not confirm")
+                .register(meterRegistry);
+        Gauge.builder("storage.dedup.filter.capacity", this, f -> f.capacity)
+                .description("Keys the filter is sized for, three per file")
+                .register(meterRegistry);
+        Gauge.builder("storage.dedup.filter.keys", this, f -> f.filter != null ? f.filter.approximateElementCount() : 0)
+                .register(meterRegistry);
+        Gauge.builder("storage.dedup.filter.stale.keys", staleEntries, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("storage.dedup.filter.expected.fpp", this, f -> f.filter != null ? f.filter.expectedFpp() : 1)
+                .description("Estimated false positive rate of the current filter")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void build() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${storage.dedup.filter.checkInterval}")
+    void rebuildIfDegraded() {
+        var current = filter;
+        if (current == null) {
+            return;
+        }
+        var staleShare = (double) staleEntries.get() / Math.max(current.approximateElementCount(), 1);
+        if (current.expectedFpp() > 2 * falsePositiveRate || staleShare > 0.1) {
+            logger.info("Rebuilding file existence filter, expected fpp={}, stale keys={}",
+                    current.expectedFpp(), staleEntries.get());
+            rebuild();
+        }
+    }
+
+    public boolean mightExist(String ownerId, String filename, String fileHash, boolean contentPerOwner) {
+        var current = filter;
+        if (current == null) {
+            return true;
+        }
+        var possible = current.mightContain(nameKey(ownerId, filename))
+                || fileHash != null && current.mightContain(contentPerOwner ? ownerContentKey(ownerId, fileHash) : contentKey(fileHash));
+        return count(possible);
+    }
+
+    public boolean mightExist(String ownerId, String filename) {
+        var current = filter;
+        if (current == null) {
+            return true;
+        }
+        return count(current.mightContain(nameKey(ownerId, filename)));
+    }
+
+    /**
+     * Records a positive answer that Mongo did not confirm.
+     */
+    public void falsePositive() {
+        falsePositives.increment();
+    }
+
+    public void add(FileEntity file) {
+        // pendingFilter is read first: a rebuild that swaps filters in between has
+        // published its filter by then, so the file lands in it either way
+        var pending = pendingFilter;
+        if (pending != null) {
+            put(pending, file);
+        }
+        var current = filter;
+        if (current != null && current != pending) {
+            put(current, file);
+        }
+    }
+
+    /**
+     * Marks the keys of a deleted or renamed file as stale.
+     */
+    public void remove(FileEntity file) {
+        if (filter != null) {
+            staleEntries.addAndGet(KEYS_PER_FILE);
+        }
+    }
+
+    synchronized void rebuild() {
+        var fileCount = mongoTemplate.estimatedCount(FileEntity.class);
+        var newCapacity = Math.max(expectedFiles, fileCount * 2) * KEYS_PER_FILE;
+        var newFilter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), newCapacity, falsePositiveRate);
+
+        // files stored while the collection is scanned are added through add()
+        pendingFilter = newFilter;
+        var query = new Query();
+        query.fields().include("ownerId", "filename", "fileHash");
+        try (var files = mongoTemplate.stream(query, FileEntity.class)) {
+            files.forEach(file -> put(newFilter, file));
+        } catch (RuntimeException ex) {
+            pendingFilter = null;
+            logger.error("Failed to build file existence filter, error={}", ex.getMessage(), ex);
+            return;
+        }
+
+        capacity = newCapacity;
+        staleEntries.set(0);
+        filter = newFilter;
+        pendingFilter = null;
+        logger.info("File existence filter built for {} files, capacity={} keys", fileCount, newCapacity);
+    }
+
+    private boolean count(boolean possible) {
+        (possible ? positiveChecks : negativeChecks).increment();
+        return possible;
+    }
+
+    private static void put(BloomFilter<CharSequence> filter, FileEntity file) {
+        filter.put(nameKey(file.getOwnerId(), file.getFilename()));
+        if (file.getFileHash() != null) {
+            filter.put(contentKey(file.getFileHash()));
+            filter.put(ownerContentKey(file.getOwnerId(), file.getFileHash()));
+        }
+    }
+
+    private static String nameKey(String ownerId, String filename) {
+        return "n" + SEPARATOR + ownerId + SEPARATOR + filename;
+    }
+
+    private static String contentKey(String fileHash) {
+        return "h" + SEPARATOR + fileHash;
+    }
+
+    private static String ownerContentKey(String ownerId, String fileHash) {
+        return "o" + SEPARATOR + ownerId + SEPARATOR + fileHash;
+    }
+}
@@ -1,13 +1,21 @@
 package com.teletronics.storage.service;
 
+import com.google.common.io.CountingInputStream;
+import com.teletronics.storage.dto.FileCursorPageDTO;
 import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.event.UploadStatusEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.teletronics.storage.constants.Constants;
 import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.FileCursor;
 import com.teletronics.storage.repository.FileRepository;
+import com.teletronics.storage.util.DetachedMultipartFile;
+import com.teletronics.storage.util.HashingInputStream;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -15,19 +23,17 @@ import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 @Service
@@ -35,76 +41,274 @@ import java.util.function.Function;
 public class FileService {
     private static final Logger logger = LoggerFactory.getLogger(FileService.class);
 
-    private final Map<String, String> uploadStatus = new ConcurrentHashMap<>();
-
     private final S3Client s3Client;
     private final FileRepository fileRepository;
+    private final MultipartUploader multipartUploader;
+    private final BlobService blobService;
+    private final UploadStatusStore uploadStatusStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AsyncObjectStorage asyncObjectStorage;
+    private final FileExistenceFilter existenceFilter;
+    private final TagFacetService tagFacetService;
+    private final UploadMetrics uploadMetrics;
 
     @Value("${minio.bucket}")
     private String s3Bucket;
 
+    @Value("${storage.contentAddressable}")
+    private boolean contentAddressable;
+
+    @Value("${minio.async.enabled}")
+    private boolean nonBlocking;
+
     @Async("teletronicsPool")
-    public void uploadFileAsync(String fileId, String userId, MultipartFile file, boolean isPublic, Set<String> tags) {
+    public void uploadFileAsync(String fileId, String userId, MultipartFile file, String fileHash, boolean isPublic, Set<String> tags) {
+        FileEntity newFile = null;
         try {
-            uploadStatus.put(fileId, Constants.STATUS_IN_PROGRESS);
-            var fileName = file.getOriginalFilename().replace(" ", "_");
-            var fileKey = userId + "/" + fileName;
-
-            s3Client.putObject(
-                    PutObjectRequest.builder()
-                            .bucket(s3Bucket)
-                            .key(fileKey)
-                            .build(),
-                    RequestBody.fromBytes(file.getBytes())
-            );
-
-            var downloadUrl = String.format("%s/%s/%s", Constants.URL_PREFIX, s3Bucket, fileKey);
-            var newFile = FileEntity.builder()
+            updateStatus(fileId, userId, Constants.STATUS_IN_PROGRESS);
+            var fileName = normalizeFileName(file.getOriginalFilename());
+
+            newFile = FileEntity.builder()
                     .id(fileId)
                     .filename(fileName)
                     .ownerId(userId)
-                    .fileHash(generateFileHash(file))
+                    .fileHash(fileHash)
                     .contentType(file.getContentType())
                     .fileSize(file.getSize())
                     .uploadDate(Instant.now())
                     .isPublic(isPublic)
                     .tags(tags)
-                    .downloadUrl(downloadUrl)
                     .build();
 
-            fileRepository.save(newFile);
-            uploadStatus.put(fileId, Constants.STATUS_COMPLETED);
+            storeContent(newFile, file);
+            registerFile(newFile);
+            updateStatus(fileId, userId, Constants.STATUS_COMPLETED);
         } catch (Exception ex) {
-            uploadStatus.put(fileId, Constants.STATUS_FAILED);
+            if (newFile != null && newFile.isContentAddressed()) {
+                releaseBlob(newFile.getFileHash());
+            }
+            updateStatus(fileId, userId, Constants.STATUS_FAILED);
             throw new RuntimeException(Constants.FILE_UPLOAD_ERROR, ex);
+        } finally {
+            if (file instanceof DetachedMultipartFile detached) {
+                detached.delete();
+            }
         }
     }
 
-    public boolean fileExists(String ownerId, MultipartFile file) {
+    /**
+     * Non-blocking variant of {@link #uploadFileAsync}. No thread is held while the
+     * content is transferred; the file is registered on the storage callback pool
+     * and the future completes once it is. Only applies to single PUT uploads,
+     * see {@link #canUploadNonBlocking}.
+     *
+     * @throws TaskRejectedException when too many non-blocking uploads are in flight
+     */
+    public CompletableFuture<FileEntityDTO> uploadFileNonBlocking(String fileId, String userId, DetachedMultipartFile file,
+                                                                  String fileHash, boolean isPublic, Set<String> tags) {
+        updateStatus(fileId, userId, Constants.STATUS_IN_PROGRESS);
+        FileEntity newFile = FileEntity.builder()
+                .id(fileId)
+                .filename(normalizeFileName(file.getOriginalFilename()))
+                .ownerId(userId)
+                .fileHash(fileHash)
+                .contentType(file.getContentType())
+                .fileSize(file.getSize())
+                .uploadDate(Instant.now())
+                .isPublic(isPublic)
+                .tags(tags)
+                .objectKey(fileId)
+                .downloadUrl(downloadUrl(fileId))
+                .build();
+
+        var put = uploadMetrics.start();
+        var started = System.nanoTime();
+        CompletableFuture<Void> transfer;
         try {
-            var fileHash = generateFileHash(file);
-            var filename = file.getOriginalFilename();
+            transfer = asyncObjectStorage.upload(fileId, file.getPath(), file.getContentType(), fileHash);
+        } catch (TaskRejectedException ex) {
+            updateStatus(fileId, userId, Constants.STATUS_FAILED);
+            throw ex;
+        } catch (RuntimeException ex) {
+            transfer = CompletableFuture.failedFuture(ex);
+        }
+
+        return transfer
+                .whenComplete((ignored, ex) -> {
+                    uploadMetrics.stop(put, UploadMetrics.PUT, ex == null);
+                    if (ex == null) {
+                        uploadMetrics.transferred(file.getSize(), System.nanoTime() - started);
+                    }
+                })
+                .thenApply(ignored -> {
+                    try {
+                        return registerFile(newFile);
+                    } catch (RuntimeException ex) {
+                        // the object is stored but no file points at it
+                        deleteUnregisteredObject(fileId);
+                        throw ex;
+                    }
+                })
+                .whenComplete((registered, ex) -> {
+                    file.delete();
+                    if (ex != null) {
+                        logger.error("Non-blocking upload failed: {}, error={}", fileId, ex.getMessage(), ex);
+                        updateStatus(fileId, userId, Constants.STATUS_FAILED);
+                    } else {
+                        updateStatus(fileId, userId, Constants.STATUS_COMPLETED);
+                    }
+                });
+    }
+
+    public boolean canUploadNonBlocking(long fileSize) {
+        return nonBlocking && !contentAddressable && fileSize <= AsyncObjectStorage.MAX_SINGLE_PUT_SIZE;
+    }
 
-            return Boolean.TRUE.equals(fileRepository.existsByOwnerIdAndFilenameOrFileHash(ownerId, filename, fileHash));
+    public boolean fileExists(String ownerId, String filename, String fileHash) {
+        if (!existenceFilter.mightExist(ownerId, filename, fileHash, contentAddressable)) {
+            return false;
+        }
+        try {
+            boolean exists;
+            if (contentAddressable) {
+                // identical content of other owners is shared instead of rejected
+                exists = Boolean.TRUE.equals(fileRepository.existsByOwnerIdAndFilenameOrOwnerIdAndFileHash(ownerId, filename, ownerId, fileHash));
+            } else {
+                exists = Boolean.TRUE.equals(fileRepository.existsByOwnerIdAndFilenameOrFileHash(ownerId, filename, fileHash));
+            }
+            if (!exists) {
+                existenceFilter.falsePositive();
+            }
+            return exists;
         } catch (Exception ex) {
             logger.error(Constants.FILE_EXISTS_CHECK_ERROR, ex.getMessage(), ex);
             throw new RuntimeException(Constants.FILE_EXISTS_CHECK_ERROR, ex);
         }
     }
 
+    public boolean fileNameTaken(String ownerId, String filename) {
+        if (!existenceFilter.mightExist(ownerId, filename)) {
+            return false;
+        }
+        var taken = Boolean.TRUE.equals(fileRepository.existsByOwnerIdAndFilename(ownerId, filename));
+        if (!taken) {
+            existenceFilter.falsePositive();
+        }
+        return taken;
+    }
+
+    /**
+     * Persists metadata for content that is already in storage.
+     */
+    public FileEntityDTO registerFile(FileEntity file) {
+        uploadMetrics.time(UploadMetrics.SAVE, () -> fileRepository.save(file));
+        existenceFilter.add(file);
+        tagFacetService.filesAdded(List.of(file));
+        return fileToDTOMapper.apply(file);
+    }
+
+    /**
+     * Registers a file whose content was already written to {@code uploadedKey}.
+     * In content-addressed mode the object becomes the blob of its hash, or is
+     * deleted when the same content is already stored.
+     */
+    public FileEntityDTO registerStoredObject(FileEntity newFile, String uploadedKey) {
+        var objectKey = uploadedKey;
+        if (contentAddressable) {
+            var blob = blobService.acquire(newFile.getFileHash());
+            if (blob == null) {
+                blob = blobService.register(newFile.getFileHash(), uploadedKey, newFile.getFileSize());
+            }
+            if (!blob.getObjectKey().equals(uploadedKey)) {
+                // the content is already stored, the uploaded copy is redundant
+                deleteObject(uploadedKey);
+                objectKey = blob.getObjectKey();
+            }
+        }
+
+        newFile.setObjectKey(objectKey);
+        newFile.setContentAddressed(contentAddressable);
+        newFile.setDownloadUrl(downloadUrl(newFile.getId()));
+        try {
+            return registerFile(newFile);
+        } catch (RuntimeException ex) {
+            if (newFile.isContentAddressed()) {
+                releaseBlob(newFile.getFileHash());
+            }
+            throw ex;
+        }
+    }
+
+    public boolean isContentAddressable() {
+        return contentAddressable;
+    }
+
+    /**
+     * Files are served by the content endpoint, which checks access, rather than
+     * straight from the bucket.
+     */
+    public String downloadUrl(String fileId) {
+        return String.format(Constants.CONTENT_URL_FORMAT, fileId);
+    }
+
+    public static String normalizeFileName(String filename) {
+        return filename.replace(" ", "_");
+    }
+
+    /**
+     * Legacy key of files stored before object keys were decoupled from filenames.
+     */
+    public static String fileKey(String ownerId, String filename) {
+        return ownerId + "/" + filename;
+    }
+
+    public static String objectKey(FileEntity file) {
+        return file.getObjectKey() != null ? file.getObjectKey() : fileKey(file.getOwnerId(), file.getFilename());
+    }
+
     public Page<FileEntityDTO> getFiles(String ownerId, String tag, int page, int size, String sortField, String sortOrder) {
         Sort.Direction direction = sortOrder.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortField));
 
-        Page<FileEntity> fileEntities;
+        var normalizedTag = tag != null && !tag.isEmpty() ? tag.toLowerCase() : null;
+        return fileRepository.findAccessible(ownerId, normalizedTag, pageable).map(FileService::withDownloadUrl);
+    }
 
-        if (tag != null && !tag.isEmpty()) {
-            fileEntities = fileRepository.findByTagAndAccess(tag.toLowerCase(), ownerId, pageable);
-        } else {
-            fileEntities = fileRepository.findByPublicOrOwner(ownerId, pageable);
-        }
+    /**
+     * Cursor based listing. Fetches one extra file to tell whether another page
+     * follows, so no count is needed unless the caller asks for it.
+     */
+    public FileCursorPageDTO getFilesAfter(String ownerId, String tag, String cursor, int size,
+                                           String sortField, String sortOrder, boolean withCount) {
+        var field = Constants.SORT_FIELD_NAMES.get(sortField.toLowerCase());
+        var direction = sortOrder.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        var after = cursor != null && !cursor.isEmpty() ? FileCursor.decode(cursor, field, direction) : null;
+        var normalizedTag = tag != null && !tag.isEmpty() ? tag.toLowerCase() : null;
+
+        var files = fileRepository.findAccessibleAfter(ownerId, normalizedTag, field, direction, after, size + 1);
+        var hasMore = files.size() > size;
+        var pageFiles = hasMore ? files.subList(0, size) : files;
+
+        return FileCursorPageDTO.builder()
+                .content(pageFiles.stream().map(FileService::withDownloadUrl).toList())
+                .size(pageFiles.size())
+                .nextCursor(hasMore ? FileCursor.after(pageFiles.get(size - 1), field, direction).encode() : null)
+                .totalElements(withCount ? fileRepository.countAccessible(ownerId, normalizedTag) : null)
+                .build();
+    }
 
-        return fileEntities.map(fileToDTOMapper);
+    /**
+     * Files readable by the user whose name contains the query, sorted by name.
+     */
+    public List<FileEntityDTO> searchFiles(String ownerId, String query, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException(Constants.EMPTY_SEARCH_QUERY_ERROR);
+        }
+        var limit = Math.min(size, Constants.MAX_SEARCH_SIZE);
+        return fileRepository.searchAccessible(ownerId, normalizeFileName(query.trim()), limit).stream()
+                .map(FileService::withDownloadUrl)
+                .sorted(Comparator.comparing(FileEntityDTO::getFilename, String.CASE_INSENSITIVE_ORDER))
+                .toList();
     }
 
     public FileEntityDTO updateFileName(String fileId, String newFilename, String userId) {
@@ -119,43 +323,66 @@ public class FileService {
             throw new IllegalArgumentException(Constants.EMPTY_FILE_NAME_ERROR);
         }
 
-        newFilename = newFilename.trim().replace(" ", "_");
+        newFilename = normalizeFileName(newFilename.trim());
         if (file.getFilename().equals(newFilename)) {
             return fileToDTOMapper.apply(file);
         }
 
-        var oldFileKey = file.getOwnerId() + "/" + file.getFilename();
-        var newFileKey = file.getOwnerId() + "/" + newFilename;
+        if (file.getObjectKey() == null) {
+            // files stored before keys were recorded keep their legacy key, it is never reused
+            file.setObjectKey(fileKey(file.getOwnerId(), file.getFilename()));
+        }
 
         try {
-            s3Client.copyObject(CopyObjectRequest.builder()
-                    .sourceBucket(s3Bucket)
-                    .sourceKey(oldFileKey)
-                    .destinationBucket(s3Bucket)
-                    .destinationKey(newFileKey)
-                    .build());
-
-            s3Client.deleteObject(DeleteObjectRequest.builder()
-                    .bucket(s3Bucket)
-                    .key(oldFileKey)
-                    .build());
-
-            var newDownloadUrl = String.format("%s/%s/%s", Constants.URL_PREFIX, s3Bucket, newFileKey);
+            var oldFilename = file.getFilename();
             file.setFilename(newFilename);
-            file.setDownloadUrl(newDownloadUrl);
-            fileRepository.save(file);
+            fileRepository.rename(file);
+            existenceFilter.remove(file);
+            existenceFilter.add(file);
 
-            logger.info("File renamed: {} -> {}", oldFileKey, newFileKey);
+            logger.info("File renamed: {} -> {}", oldFilename, newFilename);
             return fileToDTOMapper.apply(file);
-
         } catch (Exception ex) {
             logger.error("Failed to rename file: {}, error={}", fileId, ex.getMessage(), ex);
             throw new RuntimeException(Constants.FILE_RENAME_ERROR, ex);
         }
     }
 
+    /**
+     * Returns a file the user may read. Private files of other users are
+     * reported as missing, so their existence is not disclosed.
+     */
+    public FileEntity getReadableFile(String fileId, String userId) {
+        var file = fileRepository.findById(fileId)
+                .orElseThrow(() -> new IllegalArgumentException(Constants.FILE_NOT_FOUND_ERROR));
+
+        if (!file.isPublic() && !file.getOwnerId().equals(userId)) {
+            throw new IllegalArgumentException(Constants.FILE_NOT_FOUND_ERROR);
+        }
+        return file;
+    }
+
+    /**
+     * Opens the stored content, or the inclusive byte range {@code start..end} of it.
+     * The caller must close the stream, or abort it to skip draining the rest.
+     */
+    public ResponseInputStream<GetObjectResponse> openContent(FileEntity file, Long start, Long end) {
+        var request = GetObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(objectKey(file));
+        if (start != null) {
+            request.range("bytes=" + start + "-" + end);
+        }
+        return s3Client.getObject(request.build());
+    }
+
     public String getUploadStatus(String fileId) {
-        return uploadStatus.getOrDefault(fileId, Constants.STATUS_NOT_FOUND);
+        return Optional.ofNullable(uploadStatusStore.get(fileId)).orElse(Constants.STATUS_NOT_FOUND);
+    }
+
+    void updateStatus(String fileId, String ownerId, String status) {
+        uploadStatusStore.put(fileId, status);
+        eventPublisher.publishEvent(new UploadStatusEvent(fileId, ownerId, status));
     }
 
     public void deleteFile(String fileId, String userId) {
@@ -169,42 +396,145 @@ public class FileService {
             throw new IllegalArgumentException(Constants.USER_IS_NOT_FILE_OWNER_ERROR);
         }
 
-        var fileKey = file.getOwnerId() + "/" + file.getFilename();
         try {
-            s3Client.deleteObject(DeleteObjectRequest.builder()
-                    .bucket(s3Bucket)
-                    .key(fileKey)
-                    .build());
+            // a bulk delete reaching the same file releases its content instead
+            var claim = UUID.randomUUID().toString();
+            if (fileRepository.claimForDelete(List.of(fileId), userId, claim).isEmpty()
+                    || fileRepository.removeClaimed(List.of(fileId), claim) == 0) {
+                return;
+            }
+
+            existenceFilter.remove(file);
+            tagFacetService.filesRemoved(List.of(file));
+            if (file.isContentAddressed()) {
+                releaseBlob(file.getFileHash());
+                return;
+            }
 
-            fileRepository.deleteById(fileId);
+            deleteObject(objectKey(file));
         } catch (Exception ex) {
             logger.error("Failed to delete file: {}, error={}", fileId, ex.getMessage(), ex);
             throw new RuntimeException(Constants.FILE_DELETE_ERROR, ex);
         }
     }
 
-    private String generateFileHash(MultipartFile file) throws NoSuchAlgorithmException, IOException {
-        var digest = MessageDigest.getInstance("SHA-256");
+    public String generateFileHash(MultipartFile file) throws IOException {
+        return uploadMetrics.time(UploadMetrics.HASH, () -> {
+            try (var inputStream = new HashingInputStream(file.getInputStream())) {
+                inputStream.transferTo(OutputStream.nullOutputStream());
+                return inputStream.getHash();
+            }
+        });
+    }
 
-        try (InputStream inputStream = file.getInputStream()) {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                digest.update(buffer, 0, bytesRead);
+    /**
+     * Writes the content of a new file to storage and points the file at it.
+     * In content-addressed mode the file also takes a reference on its blob,
+     * which the caller must release if the file is not registered.
+     */
+    void storeContent(FileEntity newFile, MultipartFile file) throws IOException {
+        if (contentAddressable) {
+            storeBlob(newFile, file);
+            return;
+        }
+        streamToStorage(newFile.getId(), file, newFile.getFileHash());
+        newFile.setObjectKey(newFile.getId());
+        newFile.setDownloadUrl(downloadUrl(newFile.getId()));
+    }
+
+    /**
+     * Adds a reference to an already stored blob, so known content costs no I/O,
+     * or streams the content to a fresh blob key and registers it.
+     */
+    private void storeBlob(FileEntity newFile, MultipartFile file) throws IOException {
+        var fileHash = newFile.getFileHash();
+        var blob = blobService.acquire(fileHash);
+        if (blob == null) {
+            var blobKey = BlobService.blobKey(fileHash);
+            streamToStorage(blobKey, file, fileHash);
+            blob = blobService.register(fileHash, blobKey, file.getSize());
+            if (!blob.getObjectKey().equals(blobKey)) {
+                // another upload registered the same content first
+                deleteObject(blobKey);
+            }
+        }
+
+        newFile.setObjectKey(blob.getObjectKey());
+        newFile.setContentAddressed(true);
+        newFile.setDownloadUrl(downloadUrl(newFile.getId()));
+    }
+
+    /**
+     * Streams content hashed by {@link #generateFileHash} to storage and has the
+     * uploader verify it against that hash: the storage checks single PUT uploads,
+     * multipart uploads are hashed part by part while they are read.
+     */
+    private void streamToStorage(String objectKey, MultipartFile file, String fileHash) throws IOException {
+        uploadMetrics.transfer(file.getSize(), () -> {
+            try (var inputStream = new CountingInputStream(file.getInputStream())) {
+                multipartUploader.upload(objectKey, inputStream, file.getSize(), file.getContentType(), fileHash);
+
+                if (inputStream.getCount() != file.getSize()) {
+                    throw new IllegalStateException(Constants.FILE_HASH_MISMATCH_ERROR);
+                }
+                return null;
             }
+        });
+    }
+
+    /**
+     * Drops a blob reference and deletes the content once nothing points at it.
+     */
+    public void releaseBlob(String fileHash) {
+        try {
+            var orphanKey = blobService.release(fileHash);
+            if (orphanKey != null) {
+                deleteObject(orphanKey);
+            }
+        } catch (Exception ex) {
+            logger.error("Failed to release blob: {}, error={}", fileHash, ex.getMessage(), ex);
         }
+    }
+
+    /**
+     * Deletes the object of a file that could not be registered. A failure is only
+     * logged, so it does not hide why the file was not registered.
+     */
+    private void deleteUnregisteredObject(String objectKey) {
+        try {
+            deleteObject(objectKey);
+        } catch (Exception ex) {
+            logger.error("Failed to delete object of unregistered file: {}, error={}", objectKey, ex.getMessage(), ex);
+        }
+    }
+
+    void deleteObject(String objectKey) {
+        if (nonBlocking) {
+            // metadata is already gone, a failed delete only leaves an orphaned object behind
+            asyncObjectStorage.delete(objectKey).exceptionally(ex -> {
+                logger.error("Failed to delete object: {}, error={}", objectKey, ex.getMessage(), ex);
+                return null;
+            });
+            return;
+        }
+        s3Client.deleteObject(DeleteObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(objectKey)
+                .build());
+    }
 
-        byte[] hashBytes = digest.digest();
-        return Base64.getEncoder().encodeToString(hashBytes);
+    private static FileEntityDTO withDownloadUrl(FileEntityDTO file) {
+        file.setDownloadUrl(String.format(Constants.CONTENT_URL_FORMAT, file.getId()));
+        return file;
     }
 
-    private static final Function<FileEntity, FileEntityDTO> fileToDTOMapper = file -> FileEntityDTO.builder()
+    static final Function<FileEntity, FileEntityDTO> fileToDTOMapper = file -> FileEntityDTO.builder()
             .id(file.getId())
             .filename(file.getFilename())
             .tags(file.getTags())
             .contentType(file.getContentType())
             .fileSize(file.getFileSize())
             .uploadDate(file.getUploadDate())
-            .downloadUrl(file.getDownloadUrl())
+            .downloadUrl(String.format(Constants.CONTENT_URL_FORMAT, file.getId()))
             .build();
 }
@@ -0,0 +1,77 @@
+package com.teletronics.storage.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+
+/**
+ * Node-local status store. Entries are kept in write order, so both expired
+ * entries and the overflow beyond the size limit are evicted from the head in O(1).
+ */
+@Component
+@ConditionalOnProperty(name = "storage.status.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryUploadStatusStore implements UploadStatusStore {
+    private final LinkedHashMap<String, StatusEntry> statuses = new LinkedHashMap<>();
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Clock clock;
+
+    @Autowired
+    public InMemoryUploadStatusStore(@Value("${storage.status.maxEntries}") int maxEntries,
+                                     @Value("${storage.status.ttl}") Duration ttl) {
+        this(maxEntries, ttl, Clock.systemUTC());
+    }
+
+    InMemoryUploadStatusStore(int maxEntries, Duration ttl, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void put(String fileId, String status) {
+        var now = clock.instant();
+        // re-inserting moves the entry to the tail, keeping the map in write order
+        statuses.remove(fileId);
+        statuses.put(fileId, new StatusEntry(status, now.plus(ttl)));
+        evict(now);
+    }
+
+    @Override
+    public synchronized String get(String fileId) {
+        var entry = statuses.get(fileId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt().isBefore(clock.instant())) {
+            statuses.remove(fileId);
+            return null;
+        }
+        return entry.status();
+    }
+
+    @Override
+    public synchronized long size() {
+        return statuses.size();
+    }
+
+    private void evict(Instant now) {
+        var iterator = statuses.values().iterator();
+        while (iterator.hasNext()) {
+            var eldest = iterator.next();
+            if (statuses.size() <= maxEntries && !eldest.expiresAt().isBefore(now)) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private record StatusEntry(String status, Instant expiresAt) {
+    }
+}
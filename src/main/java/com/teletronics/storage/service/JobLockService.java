@@ -0,0 +1,64 @@
+package com.teletronics.storage.service;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Leases on named jobs shared by all replicas, one document per job in
+ * {@value #COLLECTION}. A lease is taken when the job has none or its lease
+ * expired; a held lease makes the upsert insert a second document with the same
+ * id, which fails. A replica that stops without releasing its lease blocks the
+ * job until the lease expires, so long jobs take a short lease and extend it.
+ */
+@Service
+@RequiredArgsConstructor
+public class JobLockService {
+    static final String COLLECTION = "job_locks";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * @return the token identifying this lease, or null when another one is held
+     */
+    public String acquire(String job, Duration lease) {
+        var now = Instant.now();
+        var token = UUID.randomUUID().toString();
+        try {
+            mongoTemplate.findAndModify(
+                    Query.query(where("_id").is(job).and("lockedUntil").lt(now)),
+                    new Update().set("lockedUntil", now.plus(lease)).set("token", token),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    Document.class, COLLECTION);
+            return token;
+        } catch (DuplicateKeyException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the lease for another {@code lease} from now.
+     *
+     * @return false when the lease expired and was taken by someone else
+     */
+    public boolean extend(String job, String token, Duration lease) {
+        return mongoTemplate.updateFirst(Query.query(where("_id").is(job).and("token").is(token)),
+                new Update().set("lockedUntil", Instant.now().plus(lease)), COLLECTION).getMatchedCount() > 0;
+    }
+
+    public void release(String job, String token) {
+        mongoTemplate.updateFirst(Query.query(where("_id").is(job).and("token").is(token)),
+                new Update().set("lockedUntil", Instant.now()), COLLECTION);
+    }
+}
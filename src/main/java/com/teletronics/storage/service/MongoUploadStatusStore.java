@@ -0,0 +1,57 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.model.UploadStatusEntity;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Status store shared by all replicas. Lookups go by _id and a TTL index
+ * on updatedAt lets Mongo expire old entries.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.status.store", havingValue = "mongo")
+@RequiredArgsConstructor
+public class MongoUploadStatusStore implements UploadStatusStore {
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${storage.status.ttl}")
+    private Duration ttl;
+
+    @PostConstruct
+    void createTtlIndex() {
+        mongoTemplate.indexOps(UploadStatusEntity.class)
+                .ensureIndex(new Index().on("updatedAt", Sort.Direction.ASC).expire(ttl));
+    }
+
+    @Override
+    public void put(String fileId, String status) {
+        mongoTemplate.upsert(
+                Query.query(where("_id").is(fileId)),
+                new Update().set("status", status).set("updatedAt", Instant.now()),
+                UploadStatusEntity.class);
+    }
+
+    @Override
+    public String get(String fileId) {
+        var entry = mongoTemplate.findById(fileId, UploadStatusEntity.class);
+        return entry != null ? entry.getStatus() : null;
+    }
+
+    @Override
+    public long size() {
+        return mongoTemplate.estimatedCount(UploadStatusEntity.class);
+    }
+}
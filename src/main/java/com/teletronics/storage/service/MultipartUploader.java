@@ -0,0 +1,299 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.util.HashingInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams content to S3 without materializing it on the heap.
+ * Small objects go through a single PUT, larger ones through a multipart upload
+ * whose parts are uploaded concurrently. Every in-flight part holds one buffer,
+ * so memory is bounded by part size times the global in-flight part limit.
+ */
+@Component
+public class MultipartUploader {
+    private static final Logger logger = LoggerFactory.getLogger(MultipartUploader.class);
+
+    static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+    static final int MAX_PARTS = 10_000;
+    static final long MAX_SINGLE_COPY_SIZE = DataSize.ofGigabytes(5).toBytes();
+    private static final long COPY_PART_SIZE = DataSize.ofMegabytes(512).toBytes();
+    private static final long RETRY_BACKOFF_MILLIS = 200;
+
+    private final S3Client s3Client;
+    private final Executor partUploadPool;
+    private final Semaphore inFlightParts;
+
+    @Value("${minio.bucket}")
+    private String s3Bucket;
+
+    @Value("${minio.partSize}")
+    private DataSize partSize;
+
+    @Value("${minio.partConcurrency}")
+    private int partConcurrency;
+
+    @Value("${minio.partRetries}")
+    private int partRetries;
+
+    public MultipartUploader(S3Client s3Client,
+                             @Qualifier("partUploadPool") Executor partUploadPool,
+                             @Value("${minio.maxInFlightParts}") int maxInFlightParts) {
+        this.s3Client = s3Client;
+        this.partUploadPool = partUploadPool;
+        this.inFlightParts = new Semaphore(maxInFlightParts, true);
+    }
+
+    public void upload(String fileKey, InputStream inputStream, long size, String contentType) {
+        upload(fileKey, inputStream, size, contentType, null);
+    }
+
+    /**
+     * @param sha256 Base64 SHA-256 of the content, when known. Single PUT uploads
+     *               send it along and the storage rejects content that does not match;
+     *               multipart uploads hash the parts as they are read and are aborted
+     *               instead of completed when the content does not match.
+     */
+    public void upload(String fileKey, InputStream inputStream, long size, String contentType, String sha256) {
+        var effectivePartSize = partSizeFor(size);
+        if (size >= 0 && size <= effectivePartSize) {
+            s3Client.putObject(
+                    PutObjectRequest.builder()
+                            .bucket(s3Bucket)
+                            .key(fileKey)
+                            .contentType(contentType)
+                            .checksumSHA256(sha256)
+                            .build(),
+                    RequestBody.fromInputStream(inputStream, size)
+            );
+            return;
+        }
+
+        var uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(s3Bucket)
+                .key(fileKey)
+                .contentType(contentType)
+                .build()).uploadId();
+
+        var hashing = sha256 != null ? new HashingInputStream(inputStream) : null;
+        var content = hashing != null ? hashing : inputStream;
+        List<CompletableFuture<CompletedPart>> pendingParts = new ArrayList<>();
+        try {
+            var uploadPermits = new Semaphore(Math.max(partConcurrency, 1));
+            var failed = new AtomicBoolean();
+            var partNumber = 1;
+
+            while (!failed.get()) {
+                uploadPermits.acquire();
+                inFlightParts.acquire();
+
+                var buffer = new byte[effectivePartSize];
+                CompletableFuture<CompletedPart> part;
+                try {
+                    var bytesRead = readPart(content, buffer);
+                    if (bytesRead == 0) {
+                        releasePermits(uploadPermits);
+                        break;
+                    }
+                    var currentPart = partNumber++;
+                    part = CompletableFuture.supplyAsync(
+                            () -> uploadPart(fileKey, uploadId, currentPart, buffer, bytesRead), partUploadPool);
+                } catch (Exception ex) {
+                    releasePermits(uploadPermits);
+                    throw ex;
+                }
+
+                pendingParts.add(part.whenComplete((completedPart, ex) -> {
+                    if (ex != null) {
+                        failed.set(true);
+                    }
+                    releasePermits(uploadPermits);
+                }));
+            }
+
+            CompletableFuture.allOf(pendingParts.toArray(CompletableFuture[]::new)).join();
+            var completedParts = pendingParts.stream()
+                    .map(CompletableFuture::join)
+                    .sorted(Comparator.comparing(CompletedPart::partNumber))
+                    .toList();
+            if (hashing != null && !hashing.getHash().equals(sha256)) {
+                throw new IllegalStateException(Constants.FILE_HASH_MISMATCH_ERROR);
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(s3Bucket)
+                    .key(fileKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+        } catch (Exception ex) {
+            awaitQuietly(pendingParts);
+            abort(fileKey, uploadId);
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RuntimeException(Constants.FILE_UPLOAD_ERROR, ex);
+        }
+    }
+
+    /**
+     * Server-side copy. Objects over the 5 GB single copy limit are copied part by part
+     * into an upload created with the content type of the source.
+     */
+    public void copy(String sourceKey, String destinationKey, long size) {
+        if (size <= MAX_SINGLE_COPY_SIZE) {
+            s3Client.copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(s3Bucket)
+                    .sourceKey(sourceKey)
+                    .destinationBucket(s3Bucket)
+                    .destinationKey(destinationKey)
+                    .build());
+            return;
+        }
+
+        var source = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(sourceKey)
+                .build());
+        var uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(s3Bucket)
+                .key(destinationKey)
+                .contentType(source.contentType())
+                .build()).uploadId();
+
+        try {
+            var copyPartSize = Math.max(COPY_PART_SIZE, (size + MAX_PARTS - 1) / MAX_PARTS);
+            List<CompletedPart> completedParts = new ArrayList<>();
+            var partNumber = 1;
+            for (long offset = 0; offset < size; offset += copyPartSize, partNumber++) {
+                var lastByte = Math.min(offset + copyPartSize, size) - 1;
+                var response = s3Client.uploadPartCopy(UploadPartCopyRequest.builder()
+                        .sourceBucket(s3Bucket)
+                        .sourceKey(sourceKey)
+                        .destinationBucket(s3Bucket)
+                        .destinationKey(destinationKey)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .copySourceRange("bytes=" + offset + "-" + lastByte)
+                        .build());
+
+                completedParts.add(CompletedPart.builder()
+                        .partNumber(partNumber)
+                        .eTag(response.copyPartResult().eTag())
+                        .build());
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(s3Bucket)
+                    .key(destinationKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+        } catch (Exception ex) {
+            abort(destinationKey, uploadId);
+            throw ex;
+        }
+    }
+
+    /**
+     * S3 caps a multipart upload at 10 000 parts, so very large files need parts
+     * bigger than the configured size to fit.
+     */
+    int partSizeFor(long size) {
+        var configured = Math.max(partSize.toBytes(), MIN_PART_SIZE);
+        var required = size > 0 ? (size + MAX_PARTS - 1) / MAX_PARTS : 0;
+        return (int) Math.min(Math.max(configured, required), Integer.MAX_VALUE - 8);
+    }
+
+    private CompletedPart uploadPart(String fileKey, String uploadId, int partNumber, byte[] buffer, int length) {
+        var attempt = 0;
+        while (true) {
+            try {
+                var response = s3Client.uploadPart(UploadPartRequest.builder()
+                                .bucket(s3Bucket)
+                                .key(fileKey)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) length)
+                                .build(),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length));
+
+                return CompletedPart.builder()
+                        .partNumber(partNumber)
+                        .eTag(response.eTag())
+                        .build();
+            } catch (RuntimeException ex) {
+                if (++attempt > partRetries) {
+                    throw ex;
+                }
+                logger.warn("Retrying part {} of {} (attempt {}), error={}", partNumber, fileKey, attempt, ex.getMessage());
+                sleepBeforeRetry(attempt);
+            }
+        }
+    }
+
+    private void releasePermits(Semaphore uploadPermits) {
+        inFlightParts.release();
+        uploadPermits.release();
+    }
+
+    private static void sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void awaitQuietly(List<CompletableFuture<CompletedPart>> pendingParts) {
+        try {
+            CompletableFuture.allOf(pendingParts.toArray(CompletableFuture[]::new)).join();
+        } catch (Exception ignored) {
+            // failures are reported by the caller, this only waits for parts still in flight
+        }
+    }
+
+    private void abort(String fileKey, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(s3Bucket)
+                    .key(fileKey)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (Exception ex) {
+            logger.error("Failed to abort multipart upload: {}, uploadId={}, error={}", fileKey, uploadId, ex.getMessage(), ex);
+        }
+    }
+
+    private static int readPart(InputStream inputStream, byte[] buffer) throws IOException {
+        var total = 0;
+        while (total < buffer.length) {
+            var bytesRead = inputStream.read(buffer, total, buffer.length - total);
+            if (bytesRead == -1) {
+                break;
+            }
+            total += bytesRead;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,292 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.PresignedUploadEntity;
+import com.teletronics.storage.repository.PresignedUploadRepository;
+import com.teletronics.storage.util.HashingInputStream;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.ContentDisposition;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Uploads and downloads that go straight between the client and the bucket
+ * through presigned URLs, keeping the application off the data path.
+ * The stored object is verified against the declared size and SHA-256 before
+ * the file is registered. Uploads not completed within the grace period after
+ * their URL expired are swept together with whatever the client stored.
+ * <p>
+ * A completion claims its upload record by removing it before the file is
+ * registered, so concurrent completions of one upload register it only once.
+ */
+@Service
+@RequiredArgsConstructor
+public class PresignedTransferService {
+    private static final Logger logger = LoggerFactory.getLogger(PresignedTransferService.class);
+
+    /**
+     * How long records outlive the sweep cutoff before Mongo drops them,
+     * a backstop for records the sweep never got to.
+     */
+    private static final Duration RECORD_RETENTION = Duration.ofDays(1);
+
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final PresignedUploadRepository presignedUploadRepository;
+    private final FileService fileService;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${minio.bucket}")
+    private String s3Bucket;
+
+    @Value("${storage.presign.uploadTtl}")
+    private Duration uploadTtl;
+
+    @Value("${storage.presign.downloadTtl}")
+    private Duration downloadTtl;
+
+    @Value("${storage.presign.completionGrace}")
+    private Duration completionGrace;
+
+    @Value("${storage.presign.rehashWithoutChecksum}")
+    private boolean rehashWithoutChecksum;
+
+    @PostConstruct
+    void createTtlIndex() {
+        mongoTemplate.indexOps(PresignedUploadEntity.class)
+                .ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC)
+                        .expire(sweepDelay().plus(RECORD_RETENTION)));
+    }
+
+    public PresignedUpload createUpload(String ownerId, String filename, String contentType, long fileSize,
+                                        String fileHash, boolean isPublic, Set<String> tags) {
+        if (fileSize <= 0) {
+            throw new IllegalArgumentException(Constants.EMPTY_FILE_ERROR);
+        }
+        if (fileSize > AsyncObjectStorage.MAX_SINGLE_PUT_SIZE) {
+            throw new IllegalArgumentException(Constants.PRESIGNED_UPLOAD_SIZE_ERROR);
+        }
+
+        // the upload id becomes the file id and the object key
+        var uploadId = UUID.randomUUID().toString();
+        var now = Instant.now();
+
+        // the checksum is a signed header, so the storage rejects content that does not match it
+        var presigned = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(uploadTtl)
+                .putObjectRequest(PutObjectRequest.builder()
+                        .bucket(s3Bucket)
+                        .key(uploadId)
+                        .contentType(contentType)
+                        .contentLength(fileSize)
+                        .checksumSHA256(fileHash)
+                        .build())
+                .build());
+
+        var upload = presignedUploadRepository.save(PresignedUploadEntity.builder()
+                .id(uploadId)
+                .ownerId(ownerId)
+                .filename(FileService.normalizeFileName(filename))
+                .objectKey(uploadId)
+                .contentType(contentType)
+                .fileSize(fileSize)
+                .fileHash(fileHash)
+                .isPublic(isPublic)
+                .tags(tags)
+                .createdAt(now)
+                .expiresAt(presigned.expiration())
+                .build());
+
+        // headers the client has to send with the PUT, host is set by any HTTP client
+        var headers = presigned.signedHeaders().entrySet().stream()
+                .filter(header -> !header.getKey().equalsIgnoreCase("host"))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return new PresignedUpload(upload, presigned.url().toString(), headers);
+    }
+
+    public FileEntityDTO completeUpload(String uploadId, String ownerId) throws IOException {
+        var upload = presignedUploadRepository.findById(uploadId)
+                .orElseThrow(() -> new IllegalArgumentException(Constants.PRESIGNED_UPLOAD_NOT_FOUND_ERROR));
+        if (!upload.getOwnerId().equals(ownerId)) {
+            throw new IllegalArgumentException(Constants.USER_IS_NOT_FILE_OWNER_ERROR);
+        }
+
+        if (upload.getExpiresAt().plus(completionGrace).isBefore(Instant.now())) {
+            discard(upload);
+            throw new IllegalStateException(Constants.PRESIGNED_UPLOAD_EXPIRED_ERROR);
+        }
+
+        HeadObjectResponse head;
+        try {
+            head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(s3Bucket)
+                    .key(upload.getObjectKey())
+                    .checksumMode(ChecksumMode.ENABLED)
+                    .build());
+        } catch (NoSuchKeyException ex) {
+            if (upload.getExpiresAt().isBefore(Instant.now())) {
+                presignedUploadRepository.deleteById(uploadId);
+                throw new IllegalStateException(Constants.PRESIGNED_UPLOAD_EXPIRED_ERROR);
+            }
+            throw new IllegalStateException(Constants.UPLOADED_OBJECT_NOT_FOUND_ERROR);
+        }
+
+        if (head.contentLength() != upload.getFileSize() || !upload.getFileHash().equals(storedHash(upload, head))) {
+            discard(upload);
+            throw new IllegalStateException(Constants.FILE_HASH_MISMATCH_ERROR);
+        }
+
+        if (fileService.fileExists(ownerId, upload.getFilename(), upload.getFileHash())) {
+            discard(upload);
+            throw new IllegalStateException(Constants.FILE_EXISTS_ERROR);
+        }
+
+        // only one of concurrent completions gets the record, the others report it gone
+        if (mongoTemplate.findAndRemove(Query.query(where("_id").is(uploadId)), PresignedUploadEntity.class) == null) {
+            throw new IllegalArgumentException(Constants.PRESIGNED_UPLOAD_NOT_FOUND_ERROR);
+        }
+
+        var newFile = FileEntity.builder()
+                .id(upload.getId())
+                .filename(upload.getFilename())
+                .ownerId(ownerId)
+                .fileHash(upload.getFileHash())
+                .contentType(upload.getContentType())
+                .fileSize(upload.getFileSize())
+                .uploadDate(Instant.now())
+                .isPublic(upload.isPublic())
+                .tags(upload.getTags())
+                .build();
+
+        try {
+            return fileService.registerStoredObject(newFile, upload.getObjectKey());
+        } catch (RuntimeException ex) {
+            // back to pending, so the client can retry and the sweep still owns the object
+            presignedUploadRepository.save(upload);
+            throw ex;
+        }
+    }
+
+    /**
+     * Time-limited URL to read a file straight from the bucket, only issued to users who may read it.
+     */
+    public PresignedDownload presignDownload(String fileId, String userId) {
+        var file = fileService.getReadableFile(fileId, userId);
+
+        var presigned = s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(downloadTtl)
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(s3Bucket)
+                        .key(FileService.objectKey(file))
+                        .responseContentType(file.getContentType())
+                        .responseContentDisposition(ContentDisposition.inline()
+                                .filename(file.getFilename(), StandardCharsets.UTF_8)
+                                .build()
+                                .toString())
+                        .build())
+                .build());
+
+        return new PresignedDownload(presigned.url().toString(), presigned.expiration());
+    }
+
+    /**
+     * Deletes uploads nobody completed and the objects their clients stored. Only uploads
+     * past twice the grace period are swept, so a completion that started just before its
+     * deadline is never left with a deleted object. Each record is claimed with findAndRemove,
+     * so replicas sweeping at once never delete the same object twice.
+     */
+    @Scheduled(fixedDelayString = "${storage.presign.sweepInterval}")
+    void sweepExpiredUploads() {
+        var expired = Query.query(where("expiresAt").lt(Instant.now().minus(sweepDelay())));
+
+        var swept = 0;
+        try {
+            PresignedUploadEntity upload;
+            while ((upload = mongoTemplate.findAndRemove(expired, PresignedUploadEntity.class)) != null) {
+                // a record left behind by a completed upload, its object belongs to the file now
+                if (!mongoTemplate.exists(Query.query(where("_id").is(upload.getId())), FileEntity.class)) {
+                    deleteObject(upload.getObjectKey());
+                }
+                swept++;
+            }
+        } catch (Exception ex) {
+            logger.error("Failed to sweep expired presigned uploads, error={}", ex.getMessage(), ex);
+        }
+
+        if (swept > 0) {
+            logger.info("Swept {} expired presigned uploads", swept);
+        }
+    }
+
+    private Duration sweepDelay() {
+        return completionGrace.multipliedBy(2);
+    }
+
+    /**
+     * The checksum the storage verified on upload. Only when it does not keep one
+     * and {@code storage.presign.rehashWithoutChecksum} is set, the stored content
+     * is read back and hashed; otherwise such an upload cannot be verified.
+     */
+    private String storedHash(PresignedUploadEntity upload, HeadObjectResponse head) throws IOException {
+        if (head.checksumSHA256() != null) {
+            return head.checksumSHA256();
+        }
+        if (!rehashWithoutChecksum) {
+            logger.warn("Storage keeps no checksum of presigned upload: {}, it is discarded", upload.getId());
+            return null;
+        }
+        try (var inputStream = new HashingInputStream(s3Client.getObject(GetObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(upload.getObjectKey())
+                .build()))) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+            return inputStream.getHash();
+        }
+    }
+
+    private void discard(PresignedUploadEntity upload) {
+        deleteObject(upload.getObjectKey());
+        presignedUploadRepository.deleteById(upload.getId());
+    }
+
+    private void deleteObject(String objectKey) {
+        s3Client.deleteObject(DeleteObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(objectKey)
+                .build());
+    }
+
+    public record PresignedUpload(PresignedUploadEntity upload, String url, Map<String, List<String>> headers) {
+    }
+
+    public record PresignedDownload(String url, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.TagRemovalEntity;
+import com.teletronics.storage.repository.FileSelection;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Adds and removes tags on many files at once. Every selection becomes a single
+ * bulkWrite of multi updates, so the work stays on the server instead of loading
+ * and saving files one by one. Files that would end up with more than
+ * {@link Constants#MAX_TAGS} tags are left unchanged.
+ * <p>
+ * Tag facet changes are counted before the bulkWrite, not atomically with it, so
+ * concurrent retags or uploads touching the same files can leave facet counts off
+ * until the next facet rebuild.
+ */
+@Service
+@RequiredArgsConstructor
+public class RetagService {
+    private static final Logger logger = LoggerFactory.getLogger(RetagService.class);
+
+    /**
+     * Number of ids matched by one update of an id based selection.
+     */
+    static final int BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final TagFacetService tagFacetService;
+
+    @Value("${storage.tags.removalRetryInterval}")
+    private Duration removalRetryInterval;
+
+    /**
+     * @return the number of files whose tags changed
+     */
+    public long retag(FileSelection selection, Set<String> add, Set<String> remove) {
+        if (add.isEmpty() && remove.isEmpty()) {
+            throw new IllegalArgumentException(Constants.RETAG_EMPTY_ERROR);
+        }
+        // a tag both added and removed ends up removed
+        var added = add.stream().filter(tag -> !remove.contains(tag)).toList();
+        if (added.size() > Constants.MAX_TAGS) {
+            throw new IllegalArgumentException(Constants.TOO_MANY_TAGS_ERROR);
+        }
+
+        var facetDeltas = facetDeltas(selection, added, remove);
+        List<Criteria> batches = new ArrayList<>();
+        var ids = selection.fileIds();
+        if (ids == null) {
+            batches.add(selection.criteria());
+        } else {
+            for (var from = 0; from < ids.size(); from += BATCH_SIZE) {
+                batches.add(selection.criteria(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()))));
+            }
+        }
+        var modified = bulkRetag(batches, added, remove);
+        tagFacetService.increment(facetDeltas);
+        return modified;
+    }
+
+    /**
+     * Records that a tag is about to be deleted, before its removal from files is
+     * submitted, so a removal that fails or is lost with the replica is retried.
+     */
+    public void recordTagRemoval(String tag) {
+        mongoTemplate.save(TagRemovalEntity.builder().tag(tag).createdAt(Instant.now()).build());
+    }
+
+    /**
+     * Drops the record of a removal that was not submitted, or of a tag created again.
+     */
+    public void discardTagRemoval(String tag) {
+        mongoTemplate.remove(Query.query(where("_id").is(tag)), TagRemovalEntity.class);
+    }
+
+    public void tagDeleted(String tag) {
+        mongoTemplate.updateFirst(Query.query(where("_id").is(tag)), Update.update("tagDeletedAt", Instant.now()),
+                TagRemovalEntity.class);
+    }
+
+    @Async("teletronicsPool")
+    public void removeTagFromAllFilesAsync(String tag) {
+        try {
+            removeTagFromAllFiles(tag);
+        } catch (Exception ex) {
+            logger.error("Failed to remove tag from files: {}, error={}", tag, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Retries removals that failed, were lost with their replica, or ran before the
+     * tag was deleted and may have missed files tagged in between.
+     */
+    @Scheduled(fixedDelayString = "${storage.tags.removalRetryInterval}")
+    void retryTagRemovals() {
+        try {
+            var due = Query.query(where("createdAt").lt(Instant.now().minus(removalRetryInterval)));
+            for (var removal : mongoTemplate.find(due, TagRemovalEntity.class)) {
+                removeTagFromAllFiles(removal.getTag());
+            }
+        } catch (Exception ex) {
+            logger.error("Failed to retry tag removals, error={}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Pulls a deleted tag from the files of all users so none keep a dangling tag.
+     * The removal is done once a pull that started after the tag was deleted went
+     * through; pulling again is harmless.
+     */
+    void removeTagFromAllFiles(String tag) {
+        var startedAt = Instant.now();
+        var modified = bulkRetag(List.of(where("tags").is(tag)), Set.of(), Set.of(tag));
+        tagFacetService.removeTag(tag);
+        mongoTemplate.remove(Query.query(where("_id").is(tag).and("tagDeletedAt").lt(startedAt)), TagRemovalEntity.class);
+        logger.info("Removed tag {} from {} files", tag, modified);
+    }
+
+    /**
+     * Tag count changes of a retag, counted before it runs: a file within the tag limit
+     * gains an added tag unless it already carries it, and loses a removed tag only if it carries it.
+     */
+    private Map<TagFacetService.Facet, Long> facetDeltas(FileSelection selection, List<String> added, Set<String> remove) {
+        Map<TagFacetService.Facet, Long> deltas = new HashMap<>();
+        for (var isPublic : List.of(true, false)) {
+            var scope = new Criteria().andOperator(selection.criteria(), where("isPublic").is(isPublic));
+            var fitting = new Criteria().andOperator(scope, fitsTagLimit(added, remove));
+            var selected = added.isEmpty() ? 0 : count(fitting);
+            for (var tag : added) {
+                deltas.put(TagFacetService.Facet.of(tag, selection.ownerId(), isPublic), selected - count(fitting, tag));
+            }
+            for (var tag : remove) {
+                deltas.put(TagFacetService.Facet.of(tag, selection.ownerId(), isPublic), -count(scope, tag));
+            }
+        }
+        return deltas;
+    }
+
+    private long count(Criteria scope) {
+        return mongoTemplate.count(Query.query(scope), FileEntity.class);
+    }
+
+    private long count(Criteria scope, String tag) {
+        return count(new Criteria().andOperator(scope, where("tags").is(tag)));
+    }
+
+    /**
+     * Pulls first, so tags removed by the same retag make room for the added ones.
+     */
+    private long bulkRetag(List<Criteria> batches, Collection<String> add, Set<String> remove) {
+        var bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, FileEntity.class);
+        for (var criteria : batches) {
+            // $addToSet and $pull on the same field conflict within one update
+            if (!remove.isEmpty()) {
+                bulkOps.updateMulti(Query.query(criteria), new Update().pullAll("tags", remove.toArray()));
+            }
+            if (!add.isEmpty()) {
+                bulkOps.updateMulti(Query.query(new Criteria().andOperator(criteria, fitsTagLimit(add, Set.of()))),
+                        new Update().addToSet("tags").each(add.toArray()));
+            }
+        }
+        return bulkOps.execute().getModifiedCount();
+    }
+
+    /**
+     * Matches files that carry at most {@link Constants#MAX_TAGS} tags once the
+     * removed tags are pulled and the added ones added.
+     */
+    private static Criteria fitsTagLimit(Collection<String> add, Set<String> remove) {
+        Object tags = new Document("$ifNull", List.of("$tags", List.of()));
+        if (!remove.isEmpty()) {
+            tags = new Document("$setDifference", List.of(tags, new Document("$literal", List.copyOf(remove))));
+        }
+        var resulting = new Document("$setUnion", List.of(tags, new Document("$literal", List.copyOf(add))));
+        return where("$expr").is(new Document("$lte", List.of(new Document("$size", resulting), Constants.MAX_TAGS)));
+    }
+}
@@ -0,0 +1,246 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.TagFacetEntity;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Per tag file counts, kept up to date with {@code $inc} as files are added,
+ * deleted and retagged, so the counts shown next to the tags are read in time
+ * proportional to the number of tags. A file counts towards the public scope
+ * when it is public and towards its owner's scope otherwise; the files a user
+ * can see are the sum of both. Increments that fail or race with a rebuild
+ * leave the counts off until the next rebuild.
+ */
+@Service
+@RequiredArgsConstructor
+public class TagFacetService {
+    private static final Logger logger = LoggerFactory.getLogger(TagFacetService.class);
+
+    private static final String PUBLIC_PREFIX = "p\0";
+    private static final String OWNER_PREFIX = "o\0";
+
+    /**
+     * Held while a rebuild runs on any replica.
+     */
+    static final String REBUILD_LOCK = "tagFacetRebuild";
+
+    /**
+     * Held for one interval by the replica whose scheduled rebuild ran, so the
+     * schedule firing on every replica recounts once.
+     */
+    static final String SCHEDULED_REBUILD_LOCK = "tagFacetScheduledRebuild";
+
+    private final MongoTemplate mongoTemplate;
+    private final TagRegistry tagRegistry;
+    private final JobLockService jobLockService;
+
+    @Value("${storage.tags.facets.rebuildInterval}")
+    private Duration rebuildInterval;
+
+    /**
+     * @return the number of files the user can see per known tag, in the order of
+     * the tag list; public files only when no user is given
+     */
+    public Map<String, Long> getCounts(String ownerId) {
+        var criteria = scopeRange(PUBLIC_PREFIX);
+        if (ownerId != null) {
+            criteria = new Criteria().orOperator(criteria, scopeRange(OWNER_PREFIX + ownerId + "\0"));
+        }
+
+        Map<String, Long> facets = new HashMap<>();
+        for (var facet : mongoTemplate.find(Query.query(criteria), TagFacetEntity.class)) {
+            facets.merge(facet.getTag(), facet.getFiles(), Long::sum);
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (var tag : tagRegistry.getTags()) {
+            counts.put(tag, Math.max(facets.getOrDefault(tag, 0L), 0L));
+        }
+        return counts;
+    }
+
+    public void filesAdded(Collection<FileEntity> files) {
+        increment(deltas(files, 1));
+    }
+
+    public void filesRemoved(Collection<FileEntity> files) {
+        increment(deltas(files, -1));
+    }
+
+    public void increment(Map<Facet, Long> deltas) {
+        var changed = deltas.entrySet().stream().filter(delta -> delta.getValue() != 0).toList();
+        if (changed.isEmpty()) {
+            return;
+        }
+        try {
+            var bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TagFacetEntity.class);
+            for (var delta : changed) {
+                bulkOps.upsert(Query.query(where("_id").is(delta.getKey().id())), delta.getKey().upsert()
+                        .inc("files", delta.getValue()));
+            }
+            bulkOps.execute();
+        } catch (Exception ex) {
+            logger.error("Failed to update {} tag facets, error={}", changed.size(), ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Drops the counts of a deleted tag.
+     */
+    public void removeTag(String tag) {
+        mongoTemplate.remove(Query.query(where("tag").is(tag)), TagFacetEntity.class);
+    }
+
+    /**
+     * Takes the rebuild lock for an on demand rebuild, to be handed to
+     * {@link #rebuildAsync(String)}.
+     *
+     * @return the lock token, or null while a rebuild runs on any replica
+     */
+    public String lockRebuild() {
+        return jobLockService.acquire(REBUILD_LOCK, rebuildInterval);
+    }
+
+    /**
+     * Releases a lock whose rebuild could not be submitted.
+     */
+    public void unlockRebuild(String token) {
+        jobLockService.release(REBUILD_LOCK, token);
+    }
+
+    @Async("teletronicsPool")
+    public void rebuildAsync(String token) {
+        try {
+            rebuild();
+        } catch (Exception ex) {
+            logger.error("Failed to rebuild tag facets, error={}", ex.getMessage(), ex);
+        } finally {
+            unlockRebuild(token);
+        }
+    }
+
+    @Scheduled(cron = "${storage.tags.facets.rebuildCron}")
+    void scheduledRebuild() {
+        try {
+            if (jobLockService.acquire(SCHEDULED_REBUILD_LOCK, rebuildInterval) == null) {
+                logger.info("Skipped scheduled tag facet rebuild, it ran on another replica");
+                return;
+            }
+            var token = lockRebuild();
+            if (token == null) {
+                logger.info("Skipped scheduled tag facet rebuild, another rebuild is running");
+                return;
+            }
+            try {
+                rebuild();
+            } finally {
+                unlockRebuild(token);
+            }
+        } catch (Exception ex) {
+            logger.error("Failed to rebuild tag facets, error={}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Recounts all facets from the files collection. Facets are overwritten in place
+     * rather than dropped first, so reads never see empty counts; facets that were
+     * not recounted belong to tags no file carries any more and are removed.
+     * Callers hold {@link #REBUILD_LOCK}.
+     */
+    synchronized void rebuild() {
+        var startedAt = Instant.now();
+        var aggregation = Aggregation.newAggregation(
+                        Aggregation.unwind("tags"),
+                        Aggregation.group("tags", "isPublic", "ownerId").count().as("files"))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        Map<Facet, Long> counts = new HashMap<>();
+        try (var groups = mongoTemplate.aggregateStream(aggregation, FileEntity.class, Document.class)) {
+            groups.forEach(group -> {
+                var key = group.get("_id", Document.class);
+                var facet = Facet.of(key.getString("tags"), key.getString("ownerId"), Boolean.TRUE.equals(key.getBoolean("isPublic")));
+                counts.merge(facet, ((Number) group.get("files")).longValue(), Long::sum);
+            });
+        }
+
+        if (!counts.isEmpty()) {
+            var bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TagFacetEntity.class);
+            counts.forEach((facet, files) -> bulkOps.upsert(Query.query(where("_id").is(facet.id())),
+                    facet.upsert().set("files", files).set("rebuiltAt", startedAt)));
+            bulkOps.execute();
+        }
+        var stale = mongoTemplate.remove(
+                Query.query(new Criteria().orOperator(where("rebuiltAt").lt(startedAt), where("rebuiltAt").exists(false))),
+                TagFacetEntity.class).getDeletedCount();
+        logger.info("Rebuilt {} tag facets, removed {} stale ones", counts.size(), stale);
+    }
+
+    private static Map<Facet, Long> deltas(Collection<FileEntity> files, long delta) {
+        Map<Facet, Long> deltas = new HashMap<>();
+        for (var file : files) {
+            if (file.getTags() == null) {
+                continue;
+            }
+            for (var tag : file.getTags()) {
+                deltas.merge(Facet.of(tag, file.getOwnerId(), file.isPublic()), delta, Long::sum);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * All ids starting with the prefix, which ends with the separator.
+     */
+    private static Criteria scopeRange(String prefix) {
+        return where("_id").gte(prefix).lt(prefix.substring(0, prefix.length() - 1) + "\1");
+    }
+
+    /**
+     * Tag count of one scope; the owner is null for the public scope.
+     */
+    public record Facet(String tag, String ownerId) {
+
+        /**
+         * The facet a file with the given tag counts towards.
+         */
+        public static Facet of(String tag, String ownerId, boolean isPublic) {
+            return new Facet(tag, isPublic ? null : ownerId);
+        }
+
+        public String id() {
+            return ownerId == null ? PUBLIC_PREFIX + tag : OWNER_PREFIX + ownerId + "\0" + tag;
+        }
+
+        public Update upsert() {
+            var update = new Update().setOnInsert("tag", tag);
+            if (ownerId != null) {
+                update.setOnInsert("ownerId", ownerId);
+            }
+            return update;
+        }
+    }
+}
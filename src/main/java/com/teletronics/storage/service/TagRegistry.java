@@ -0,0 +1,104 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.model.TagEntity;
+import com.teletronics.storage.model.TagVersionEntity;
+import com.teletronics.storage.repository.TagRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * In-process copy of the tag vocabulary. Every tag change bumps a version stamp
+ * in Mongo and each replica polls the stamp, reloading the tags only when it moved.
+ * Lookups that miss the cache re-check the stamp first, so a tag created on another
+ * replica is never rejected, while known tags are answered without a round trip.
+ */
+@Component
+@RequiredArgsConstructor
+public class TagRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(TagRegistry.class);
+
+    public static final String VERSION_ID = "tags";
+
+    private final TagRepository tagRepository;
+    private final MongoTemplate mongoTemplate;
+
+    private volatile Snapshot snapshot = new Snapshot(-1, List.of(), Set.of());
+
+    @PostConstruct
+    void load() {
+        refresh();
+    }
+
+    public List<String> getTags() {
+        return snapshot.tags();
+    }
+
+    public boolean contains(String tag) {
+        return containsAll(Set.of(tag));
+    }
+
+    public boolean containsAll(Set<String> tags) {
+        if (matches(snapshot, tags)) {
+            return true;
+        }
+        return matches(refresh(), tags);
+    }
+
+    /**
+     * Publishes a tag change to every replica and reloads the local copy.
+     */
+    public void tagsChanged() {
+        mongoTemplate.upsert(
+                Query.query(where("_id").is(VERSION_ID)),
+                new Update().inc("version", 1),
+                TagVersionEntity.class);
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${storage.tags.refreshInterval}")
+    void poll() {
+        try {
+            refresh();
+        } catch (Exception ex) {
+            logger.warn("Failed to refresh tags, keeping version {}, error={}", snapshot.version(), ex.getMessage());
+        }
+    }
+
+    synchronized Snapshot refresh() {
+        var stamp = mongoTemplate.findById(VERSION_ID, TagVersionEntity.class);
+        var version = stamp != null ? stamp.getVersion() : 0;
+        if (version == snapshot.version()) {
+            return snapshot;
+        }
+
+        // read the stamp before the tags, so a change in between triggers another reload
+        var tags = tagRepository.findAll().stream()
+                .map(TagEntity::getName)
+                .toList();
+        snapshot = new Snapshot(version, tags, tags.stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toUnmodifiableSet()));
+        logger.info("Loaded {} tags, version {}", tags.size(), version);
+        return snapshot;
+    }
+
+    private static boolean matches(Snapshot snapshot, Set<String> tags) {
+        return tags.stream().allMatch(tag -> snapshot.names().contains(tag.toLowerCase()));
+    }
+
+    record Snapshot(long version, List<String> tags, Set<String> names) {
+    }
+}
@@ -5,6 +5,7 @@ import com.teletronics.storage.repository.TagRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -16,30 +17,48 @@ import java.util.stream.Collectors;
 public class TagService {
     private static final Logger logger = LoggerFactory.getLogger(TagService.class);
     private final TagRepository tagRepository;
+    private final TagRegistry tagRegistry;
+    private final RetagService retagService;
 
     public List<String> getTags() {
-        return tagRepository.findAll().stream()
-                .map(TagEntity::getName)
-                .collect(Collectors.toList());
+        return tagRegistry.getTags();
     }
 
+    /**
+     * Deletes the tag once its removal from files was accepted by the executor, so a
+     * rejected deletion leaves both the tag and the files unchanged.
+     *
+     * @throws org.springframework.core.task.TaskRejectedException when the executor is saturated
+     */
     public void deleteTag(String tagName) {
         var normalizedTag = tagName.trim().toLowerCase();
+        retagService.recordTagRemoval(normalizedTag);
+        try {
+            retagService.removeTagFromAllFilesAsync(normalizedTag);
+        } catch (TaskRejectedException ex) {
+            retagService.discardTagRemoval(normalizedTag);
+            throw ex;
+        }
         tagRepository.deleteByNameIgnoreCase(normalizedTag);
+        tagRegistry.tagsChanged();
+        retagService.tagDeleted(normalizedTag);
     }
 
     public String createTag(String tagName) {
+        // files still carrying the tag from before it was deleted keep it
+        retagService.discardTagRemoval(tagName);
         var newTag = new TagEntity(tagName);
         tagRepository.save(newTag);
+        tagRegistry.tagsChanged();
         return tagName;
     }
 
     public boolean allTagsExist(Set<String> tags) {
-        return tagRepository.countByNameInIgnoreCase(tags) == tags.size();
+        return tagRegistry.containsAll(tags);
     }
 
     public boolean tagExists(String tag) {
-        return tagRepository.countByNameIgnoreCase(tag) > 0;
+        return tagRegistry.contains(tag);
     }
 
     public Set<String> processTags(List<String> tags) {
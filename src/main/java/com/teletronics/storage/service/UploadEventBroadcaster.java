@@ -0,0 +1,143 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.event.UploadStatusEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Pushes upload status transitions to Server-Sent Events subscribers,
+ * either of a single upload or of all uploads of one owner. Transitions are
+ * published on the replica running the upload; streams of single uploads also
+ * re-read the status store periodically, so with a shared store they follow
+ * uploads running on other replicas. Owner streams only see uploads of their replica.
+ */
+@Component
+public class UploadEventBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(UploadEventBroadcaster.class);
+
+    static final String STATUS_EVENT = "upload-status";
+
+    private final Map<String, Set<SseEmitter>> fileSubscribers = new ConcurrentHashMap<>();
+    private final Map<String, Set<SseEmitter>> ownerSubscribers = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<String>> statusLookups = new ConcurrentHashMap<>();
+    private final Map<String, String> sentStatuses = new ConcurrentHashMap<>();
+
+    @Value("${storage.events.timeout}")
+    private Duration timeout;
+
+    /**
+     * Subscribes to one upload. The current status is sent right away and the
+     * stream is closed once the upload reaches a final state. The status is read
+     * only after the emitter is registered, so a transition in between is sent
+     * rather than lost.
+     */
+    public SseEmitter subscribeToFile(String fileId, Supplier<String> statusLookup) {
+        var emitter = register(fileSubscribers, fileId);
+        statusLookups.put(fileId, statusLookup);
+        var currentStatus = statusLookup.get();
+        sentStatuses.put(fileId, currentStatus);
+        send(fileSubscribers, fileId, emitter, new UploadStatusEvent(fileId, null, currentStatus));
+        if (isFinal(currentStatus)) {
+            unregister(fileSubscribers, fileId, emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    public SseEmitter subscribeToOwner(String ownerId) {
+        return register(ownerSubscribers, ownerId);
+    }
+
+    @EventListener
+    public void onStatusChange(UploadStatusEvent event) {
+        sentStatuses.put(event.fileId(), event.status());
+        var fileEmitters = fileSubscribers.get(event.fileId());
+        if (fileEmitters != null) {
+            for (var emitter : fileEmitters) {
+                if (send(fileSubscribers, event.fileId(), emitter, event) && isFinal(event.status())) {
+                    unregister(fileSubscribers, event.fileId(), emitter);
+                    emitter.complete();
+                }
+            }
+        }
+
+        var ownerEmitters = event.ownerId() != null ? ownerSubscribers.get(event.ownerId()) : null;
+        if (ownerEmitters != null) {
+            for (var emitter : ownerEmitters) {
+                send(ownerSubscribers, event.ownerId(), emitter, event);
+            }
+        }
+    }
+
+    /**
+     * Sends statuses that changed in the store without a transition published here,
+     * i.e. of uploads running on other replicas.
+     */
+    @Scheduled(fixedDelayString = "${storage.events.pollInterval}")
+    void pollStatuses() {
+        statusLookups.keySet().removeIf(fileId -> !fileSubscribers.containsKey(fileId));
+        sentStatuses.keySet().removeIf(fileId -> !fileSubscribers.containsKey(fileId));
+        statusLookups.forEach((fileId, statusLookup) -> {
+            try {
+                var status = statusLookup.get();
+                if (!status.equals(sentStatuses.get(fileId))) {
+                    onStatusChange(new UploadStatusEvent(fileId, null, status));
+                }
+            } catch (Exception ex) {
+                logger.warn("Failed to poll upload status: {}, error={}", fileId, ex.getMessage());
+            }
+        });
+    }
+
+    int subscriberCount() {
+        return fileSubscribers.values().stream().mapToInt(Set::size).sum()
+                + ownerSubscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private SseEmitter register(Map<String, Set<SseEmitter>> subscribers, String key) {
+        var emitter = new SseEmitter(timeout.toMillis());
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(emitter);
+
+        emitter.onCompletion(() -> unregister(subscribers, key, emitter));
+        emitter.onTimeout(() -> unregister(subscribers, key, emitter));
+        emitter.onError(ex -> unregister(subscribers, key, emitter));
+        return emitter;
+    }
+
+    private void unregister(Map<String, Set<SseEmitter>> subscribers, String key, SseEmitter emitter) {
+        subscribers.computeIfPresent(key, (k, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private boolean send(Map<String, Set<SseEmitter>> subscribers, String key, SseEmitter emitter, UploadStatusEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(STATUS_EVENT)
+                    .data(Map.of("file_id", event.fileId(), "status", event.status())));
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            logger.debug("Dropping upload status subscriber: {}, error={}", key, ex.getMessage());
+            unregister(subscribers, key, emitter);
+            return false;
+        }
+    }
+
+    private static boolean isFinal(String status) {
+        return Constants.STATUS_COMPLETED.equals(status) || Constants.STATUS_FAILED.equals(status);
+    }
+}
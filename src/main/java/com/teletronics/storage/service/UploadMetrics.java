@@ -0,0 +1,83 @@
+package com.teletronics.storage.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency of the upload stages and the rate content is written to storage at.
+ * Meters are tagged by stage and outcome only, never by file or user, so their
+ * number stays fixed however many uploads run.
+ */
+@Component
+public class UploadMetrics {
+    public static final String HASH = "hash";
+    public static final String PUT = "put";
+    public static final String SAVE = "save";
+
+    private final MeterRegistry meterRegistry;
+    private final Counter bytes;
+    private final DistributionSummary throughput;
+
+    public UploadMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        bytes = Counter.builder("storage.upload.bytes")
+                .baseUnit(BaseUnits.BYTES)
+                .description("Bytes written to storage by uploads, its rate is the upload throughput")
+                .register(meterRegistry);
+        throughput = DistributionSummary.builder("storage.upload.throughput")
+                .baseUnit("bytes.per.second")
+                .description("Transfer rate of single uploads to storage")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public <T, E extends Exception> T time(String stage, TimedStage<T, E> work) throws E {
+        var sample = start();
+        var success = false;
+        try {
+            var result = work.run();
+            success = true;
+            return result;
+        } finally {
+            stop(sample, stage, success);
+        }
+    }
+
+    /**
+     * Times a write of {@code size} bytes to storage as the put stage and records
+     * its transfer rate when it succeeds.
+     */
+    public <T, E extends Exception> T transfer(long size, TimedStage<T, E> work) throws E {
+        var started = System.nanoTime();
+        var result = time(PUT, work);
+        transferred(size, System.nanoTime() - started);
+        return result;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stop(Timer.Sample sample, String stage, boolean success) {
+        sample.stop(Timer.builder("storage.upload.stage")
+                .description("Latency of a stage of an upload")
+                .tag("stage", stage)
+                .tag("outcome", success ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    public void transferred(long size, long elapsedNanos) {
+        bytes.increment(size);
+        throughput.record(size * 1e9 / Math.max(elapsedNanos, 1));
+    }
+
+    @FunctionalInterface
+    public interface TimedStage<T, E extends Exception> {
+        T run() throws E;
+    }
+}
@@ -0,0 +1,345 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.UploadSessionEntity;
+import com.teletronics.storage.repository.UploadSessionRepository;
+import com.teletronics.storage.util.HashingInputStream;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable uploads. Each session maps onto an S3 multipart upload and every
+ * received chunk is recorded in Mongo, so a client can resume after a dropped
+ * connection or an application restart without re-sending received chunks.
+ * Sessions idle for longer than the session TTL are aborted by a periodic sweep.
+ */
+@Service
+@RequiredArgsConstructor
+public class UploadSessionService {
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
+
+    private static final int MAX_CHUNKS = 10_000;
+
+    /**
+     * Smallest part S3 accepts for any but the last part of a multipart upload.
+     */
+    static final long MIN_CHUNK_SIZE = 5L * 1024 * 1024;
+
+    /**
+     * Running digests of sessions whose chunks arrived in order at this replica. Every
+     * chunk records the digest it was fed into, and a digest is only used when it was
+     * fed every chunk of the session; otherwise, as after a restart, out-of-order chunks
+     * or chunks re-sent through another replica, the hash is computed from the stored object.
+     */
+    private final Map<String, PartialDigest> digests = new ConcurrentHashMap<>();
+
+    private final S3Client s3Client;
+    private final MongoTemplate mongoTemplate;
+    private final UploadSessionRepository sessionRepository;
+    private final FileService fileService;
+
+    @Value("${minio.bucket}")
+    private String s3Bucket;
+
+    @Value("${storage.sessions.ttl}")
+    private Duration sessionTtl;
+
+    @PostConstruct
+    void createIndexes() {
+        var indexOps = mongoTemplate.indexOps(UploadSessionEntity.class);
+        indexOps.ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC));
+        indexOps.ensureIndex(new Index().on("ownerId", Sort.Direction.ASC));
+    }
+
+    public UploadSessionEntity createSession(String ownerId, String filename, String contentType, boolean isPublic, Set<String> tags) {
+        // the session id becomes the file id and the object key, so the key never depends on the filename
+        var sessionId = UUID.randomUUID().toString();
+        var fileName = FileService.normalizeFileName(filename);
+
+        var uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(s3Bucket)
+                .key(sessionId)
+                .contentType(contentType)
+                .build()).uploadId();
+
+        var session = UploadSessionEntity.builder()
+                .id(sessionId)
+                .ownerId(ownerId)
+                .filename(fileName)
+                .fileKey(sessionId)
+                .uploadId(uploadId)
+                .contentType(contentType)
+                .isPublic(isPublic)
+                .tags(tags)
+                .createdAt(Instant.now())
+                .expiresAt(Instant.now().plus(sessionTtl))
+                .build();
+
+        return sessionRepository.save(session);
+    }
+
+    public UploadSessionEntity getSession(String sessionId, String ownerId) {
+        var session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new IllegalArgumentException(Constants.SESSION_NOT_FOUND_ERROR));
+
+        if (!session.getOwnerId().equals(ownerId)) {
+            throw new IllegalArgumentException(Constants.USER_IS_NOT_FILE_OWNER_ERROR);
+        }
+        return session;
+    }
+
+    public UploadSessionEntity uploadChunk(String sessionId, String ownerId, int chunkNumber, InputStream inputStream, long length) {
+        if (chunkNumber < 1 || chunkNumber > MAX_CHUNKS) {
+            throw new IllegalArgumentException(Constants.CHUNK_NUMBER_ERROR);
+        }
+        if (length <= 0) {
+            throw new IllegalArgumentException(Constants.CHUNK_LENGTH_REQUIRED_ERROR);
+        }
+
+        var session = getSession(sessionId, ownerId);
+        var partial = continueDigest(session, chunkNumber);
+        var chunkStream = partial != null ? new DigestInputStream(inputStream, partial.digest()) : inputStream;
+
+        var response = s3Client.uploadPart(UploadPartRequest.builder()
+                        .bucket(s3Bucket)
+                        .key(session.getFileKey())
+                        .uploadId(session.getUploadId())
+                        .partNumber(chunkNumber)
+                        .contentLength(length)
+                        .build(),
+                RequestBody.fromInputStream(chunkStream, length));
+
+        var chunk = new UploadSessionEntity.UploadedChunk(chunkNumber, response.eTag(), length,
+                partial != null ? partial.id() : null);
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(sessionId)),
+                Update.update("chunks." + chunkNumber, chunk).set("expiresAt", Instant.now().plus(sessionTtl)),
+                UploadSessionEntity.class);
+
+        if (partial != null) {
+            digests.put(sessionId, new PartialDigest(partial.id(), partial.digest(), chunkNumber + 1, Instant.now()));
+        }
+
+        session.getChunks().put(String.valueOf(chunkNumber), chunk);
+        return session;
+    }
+
+    public FileEntityDTO completeSession(String sessionId, String ownerId) throws IOException {
+        var session = getSession(sessionId, ownerId);
+        var chunks = orderedChunks(session);
+        for (var chunk : chunks.subList(0, chunks.size() - 1)) {
+            if (chunk.getSize() < MIN_CHUNK_SIZE) {
+                throw new IllegalStateException(Constants.CHUNK_TOO_SMALL_ERROR + chunk.getNumber());
+            }
+        }
+
+        if (fileService.fileNameTaken(ownerId, session.getFilename())) {
+            abortSession(sessionId, ownerId);
+            throw new IllegalStateException(Constants.FILE_EXISTS_ERROR);
+        }
+
+        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(s3Bucket)
+                .key(session.getFileKey())
+                .uploadId(session.getUploadId())
+                .multipartUpload(CompletedMultipartUpload.builder()
+                        .parts(chunks.stream()
+                                .map(chunk -> CompletedPart.builder()
+                                        .partNumber(chunk.getNumber())
+                                        .eTag(chunk.getETag())
+                                        .build())
+                                .toList())
+                        .build())
+                .build());
+
+        var fileSize = chunks.stream().mapToLong(UploadSessionEntity.UploadedChunk::getSize).sum();
+        var fileHash = finishDigest(session, chunks);
+
+        if (fileService.fileExists(ownerId, session.getFilename(), fileHash)) {
+            deleteObject(session.getFileKey());
+            sessionRepository.deleteById(sessionId);
+            throw new IllegalStateException(Constants.FILE_EXISTS_ERROR);
+        }
+
+        var newFile = FileEntity.builder()
+                .id(session.getId())
+                .filename(session.getFilename())
+                .ownerId(ownerId)
+                .fileHash(fileHash)
+                .contentType(session.getContentType())
+                .fileSize(fileSize)
+                .uploadDate(Instant.now())
+                .isPublic(session.isPublic())
+                .tags(session.getTags())
+                .build();
+
+        var registered = fileService.registerStoredObject(newFile, session.getFileKey());
+        sessionRepository.deleteById(sessionId);
+        return registered;
+    }
+
+    public void abortSession(String sessionId, String ownerId) {
+        var session = getSession(sessionId, ownerId);
+        abortMultipartUpload(session);
+        digests.remove(sessionId);
+        sessionRepository.deleteById(sessionId);
+    }
+
+    /**
+     * Aborts sessions past their expiry and drops running digests nobody fed within
+     * the TTL. Each session document is claimed with findAndRemove, so when several
+     * replicas sweep at once every multipart upload is aborted exactly once.
+     */
+    @Scheduled(fixedDelayString = "${storage.sessions.sweepInterval}")
+    void sweepExpiredSessions() {
+        var now = Instant.now();
+        var expired = Query.query(new Criteria().orOperator(
+                Criteria.where("expiresAt").lt(now),
+                // sessions created before expiresAt was recorded
+                Criteria.where("expiresAt").exists(false).and("createdAt").lt(now.minus(sessionTtl))));
+
+        var swept = 0;
+        try {
+            UploadSessionEntity session;
+            while ((session = mongoTemplate.findAndRemove(expired, UploadSessionEntity.class)) != null) {
+                abortMultipartUpload(session);
+                digests.remove(session.getId());
+                swept++;
+            }
+        } catch (Exception ex) {
+            logger.error("Failed to sweep expired upload sessions, error={}", ex.getMessage(), ex);
+        }
+        digests.values().removeIf(partial -> partial.updatedAt().isBefore(now.minus(sessionTtl)));
+
+        if (swept > 0) {
+            logger.info("Aborted {} expired upload sessions", swept);
+        }
+    }
+
+    /**
+     * Bytes received in the contiguous run of chunks starting at chunk 1,
+     * i.e. the offset a client should resume from.
+     */
+    public long receivedOffset(UploadSessionEntity session) {
+        long offset = 0;
+        for (var number = 1; session.getChunks().containsKey(String.valueOf(number)); number++) {
+            offset += session.getChunks().get(String.valueOf(number)).getSize();
+        }
+        return offset;
+    }
+
+    public int nextChunk(UploadSessionEntity session) {
+        var number = 1;
+        while (session.getChunks().containsKey(String.valueOf(number))) {
+            number++;
+        }
+        return number;
+    }
+
+    private List<UploadSessionEntity.UploadedChunk> orderedChunks(UploadSessionEntity session) {
+        var chunks = session.getChunks().values().stream()
+                .sorted(Comparator.comparingInt(UploadSessionEntity.UploadedChunk::getNumber))
+                .toList();
+
+        for (var i = 0; i < chunks.size(); i++) {
+            if (chunks.get(i).getNumber() != i + 1) {
+                throw new IllegalStateException(Constants.MISSING_CHUNKS_ERROR + (i + 1));
+            }
+        }
+        if (chunks.isEmpty()) {
+            throw new IllegalStateException(Constants.MISSING_CHUNKS_ERROR + 1);
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns a digest to feed with the given chunk, or null when the chunk does not
+     * extend the running digest. Works on a copy so a failed chunk leaves it intact.
+     */
+    private PartialDigest continueDigest(UploadSessionEntity session, int chunkNumber) {
+        var partial = digests.get(session.getId());
+        try {
+            if (partial == null) {
+                return chunkNumber == 1 && session.getChunks().isEmpty()
+                        ? new PartialDigest(UUID.randomUUID().toString(), MessageDigest.getInstance("SHA-256"), 1, Instant.now())
+                        : null;
+            }
+            if (partial.nextChunk() == chunkNumber) {
+                return new PartialDigest(partial.id(), (MessageDigest) partial.digest().clone(), chunkNumber, Instant.now());
+            }
+        } catch (NoSuchAlgorithmException | CloneNotSupportedException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        if (chunkNumber < partial.nextChunk()) {
+            // a re-sent chunk may differ from the one already digested
+            digests.remove(session.getId());
+        }
+        return null;
+    }
+
+    private String finishDigest(UploadSessionEntity session, List<UploadSessionEntity.UploadedChunk> chunks) throws IOException {
+        var partial = digests.remove(session.getId());
+        if (partial != null && partial.nextChunk() == chunks.size() + 1
+                && chunks.stream().allMatch(chunk -> partial.id().equals(chunk.getDigestId()))) {
+            return Base64.getEncoder().encodeToString(partial.digest().digest());
+        }
+
+        try (var inputStream = new HashingInputStream(s3Client.getObject(GetObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(session.getFileKey())
+                .build()))) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+            return inputStream.getHash();
+        }
+    }
+
+    private void abortMultipartUpload(UploadSessionEntity session) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(s3Bucket)
+                    .key(session.getFileKey())
+                    .uploadId(session.getUploadId())
+                    .build());
+        } catch (Exception ex) {
+            logger.error("Failed to abort upload session: {}, error={}", session.getId(), ex.getMessage(), ex);
+        }
+    }
+
+    private void deleteObject(String fileKey) {
+        s3Client.deleteObject(DeleteObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(fileKey)
+                .build());
+    }
+
+    private record PartialDigest(String id, MessageDigest digest, int nextChunk, Instant updatedAt) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.teletronics.storage.service;
+
+/**
+ * Upload status by file id. Implementations must evict entries on their own,
+ * so the store stays bounded under sustained upload load.
+ */
+public interface UploadStatusStore {
+
+    void put(String fileId, String status);
+
+    /**
+     * @return the status, or null when unknown or already evicted
+     */
+    String get(String fileId);
+
+    long size();
+}
@@ -0,0 +1,101 @@
+package com.teletronics.storage.util;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A multipart file moved out of the request into a temporary file of its own.
+ * The servlet container deletes request parts once the response is committed,
+ * so content handed over to an async task has to be detached first.
+ * The task owns the temporary file and removes it with {@link #delete()}.
+ */
+public class DetachedMultipartFile implements MultipartFile {
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final long size;
+    private final Path path;
+
+    private DetachedMultipartFile(MultipartFile file, Path path) {
+        this.name = file.getName();
+        this.originalFilename = file.getOriginalFilename();
+        this.contentType = file.getContentType();
+        this.size = file.getSize();
+        this.path = path;
+    }
+
+    public static DetachedMultipartFile detach(MultipartFile file) throws IOException {
+        var path = Files.createTempFile("upload-", ".part");
+        try {
+            // usually a rename of the part already spooled to disk
+            file.transferTo(path);
+            return new DetachedMultipartFile(file, path);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(path);
+            throw ex;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        transferTo(dest.toPath());
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        Files.copy(path, dest, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // temporary directory is cleaned up by the OS eventually
+        }
+    }
+}
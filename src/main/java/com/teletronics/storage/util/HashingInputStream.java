@@ -0,0 +1,90 @@
+package com.teletronics.storage.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Computes the SHA-256 digest and byte count of everything read through it,
+ * so content can be hashed while it is streamed somewhere else.
+ */
+public class HashingInputStream extends FilterInputStream {
+    private final MessageDigest digest;
+    private long byteCount;
+    private String hash;
+
+    public HashingInputStream(InputStream in) {
+        super(in);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        var b = super.read();
+        if (b != -1) {
+            digest.update((byte) b);
+            byteCount++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        var bytesRead = super.read(b, off, len);
+        if (bytesRead > 0) {
+            digest.update(b, off, bytesRead);
+            byteCount += bytesRead;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        var buffer = new byte[8192];
+        long skipped = 0;
+        while (skipped < n) {
+            var bytesRead = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (bytesRead == -1) {
+                break;
+            }
+            skipped += bytesRead;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Base64 encoded SHA-256 of the bytes read so far. Finalizes the digest,
+     * so it should only be called once the stream is consumed.
+     */
+    public String getHash() {
+        if (hash == null) {
+            hash = Base64.getEncoder().encodeToString(digest.digest());
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,22 @@
+package com.teletronics.storage.reactive;
+
+import com.teletronics.storage.config.MinioConfig;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Reactive variant of the storage service: WebFlux on Netty, the reactive Mongo
+ * driver and the async S3 client, so no thread is held per request. Built with
+ * {@code ./gradlew reactiveBootJar}; it shares the model and the database with
+ * the servlet build and only scans its own package.
+ */
+@SpringBootApplication
+@EntityScan("com.teletronics.storage.model")
+@Import(MinioConfig.class)
+public class ReactiveStorageApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveStorageApplication.class, args);
+    }
+}
@@ -0,0 +1,175 @@
+package com.teletronics.storage.reactive.controller;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.reactive.service.ReactiveFileService;
+import com.teletronics.storage.reactive.service.ReactiveTagService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Non-blocking counterpart of the servlet file endpoints. Uploads take the raw file
+ * as the request body, so it is streamed to storage as it arrives instead of being
+ * parsed from a multipart form into memory or a temp file first.
+ */
+@RestController
+@RequestMapping("/files")
+@RequiredArgsConstructor
+public class ReactiveFileController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveFileController.class);
+
+    private final ReactiveFileService fileService;
+    private final ReactiveTagService tagService;
+
+    @Value("${storage.reactive.maxUploadSize}")
+    private DataSize maxUploadSize;
+
+    @PostMapping("/upload")
+    public Mono<ResponseEntity<?>> uploadFile(
+            @RequestParam("filename") String filename,
+            @RequestParam(value = "is_public", required = false, defaultValue = "true") boolean isPublic,
+            @RequestParam(value = "tags", required = false) List<String> tags,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+            @RequestHeader("user_id") String userId,
+            @RequestBody Flux<DataBuffer> content) {
+
+        // a declared size is checked up front, chunked bodies while they are streamed
+        if (contentLength != null && contentLength > maxUploadSize.toBytes()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("message", Constants.UPLOAD_SIZE_ERROR + maxUploadSize.toMegabytes() + " MB")));
+        }
+
+        if (filename.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("message", Constants.EMPTY_FILE_NAME_ERROR)));
+        }
+        var processedTags = tagService.processTags(Optional.ofNullable(tags).orElse(List.of()));
+        if (processedTags.size() > 5) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("message", Constants.TOO_MANY_TAGS_ERROR)));
+        }
+
+        return tagService.allTagsExist(processedTags)
+                .flatMap(allowed -> allowed
+                        ? fileService.upload(userId, filename, Optional.ofNullable(contentType).orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE),
+                                isPublic, processedTags, content)
+                        .<ResponseEntity<?>>map(file -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of("file", file)))
+                        : Mono.<ResponseEntity<?>>just(ResponseEntity.badRequest().body(Map.of("message", Constants.TAG_IS_NOT_ALLOWED_ERROR + processedTags))))
+                // a DataBufferLimitException is an IllegalStateException as well
+                .onErrorResume(DataBufferLimitException.class,
+                        ex -> Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("message", ex.getMessage()))))
+                .onErrorResume(IllegalStateException.class,
+                        ex -> Mono.just(ResponseEntity.status(409).body(Map.of("message", ex.getMessage()))))
+                .onErrorResume(IllegalArgumentException.class,
+                        ex -> Mono.just(ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()))))
+                .onErrorResume(ex -> {
+                    logger.error("File upload failed for user: {}. File: {}. Error: {}", userId, filename, ex.getMessage(), ex);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage())));
+                });
+    }
+
+    @GetMapping("/list")
+    public Mono<ResponseEntity<?>> getFiles(
+            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "uploadDate") String sortField,
+            @RequestParam(defaultValue = "desc") String sortOrder,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(value = "with_count", defaultValue = "false") boolean withCount,
+            @RequestHeader(value = "user_id") String userId) {
+
+        if (!Constants.ALLOWED_SORTFIELDS.contains(sortField.toLowerCase())) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", Constants.INVALID_SORT_FIELD_ERROR + sortField)));
+        }
+
+        if (!Constants.ALLOWED_SORT_ORDERS.contains(sortOrder.toLowerCase())) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", Constants.INVALID_SORT_ORDER_ERROR + sortOrder)));
+        }
+
+        var finalSize = (size == null || size <= 0) ? Constants.DEFAULT_SIZE : size;
+        return fileService.getFilesAfter(userId, tag, cursor, finalSize, sortField, sortOrder, withCount)
+                .<ResponseEntity<?>>map(files -> ResponseEntity.ok(Map.of("files", files)))
+                .onErrorResume(IllegalArgumentException.class,
+                        ex -> Mono.just(ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()))))
+                .onErrorResume(ex -> {
+                    logger.error("File listing failed for user: {}. Error: {}", userId, ex.getMessage(), ex);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage())));
+                });
+    }
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<?>> searchFiles(@RequestParam("q") String query,
+                                               @RequestParam(required = false) Integer size,
+                                               @RequestHeader(value = "user_id") String userId) {
+        var finalSize = (size == null || size <= 0) ? Constants.DEFAULT_SIZE : size;
+        return fileService.searchFiles(userId, query, finalSize)
+                .collectList()
+                .<ResponseEntity<?>>map(files -> ResponseEntity.ok(Map.of("files", files)))
+                .onErrorResume(IllegalArgumentException.class,
+                        ex -> Mono.just(ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()))))
+                .onErrorResume(ex -> {
+                    logger.error("File search failed for user: {}. Error: {}", userId, ex.getMessage(), ex);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage())));
+                });
+    }
+
+    /**
+     * Streams the whole object; Range requests are served by the servlet variant only.
+     */
+    @GetMapping("/{fileId}/content")
+    public Mono<ResponseEntity<Flux<ByteBuffer>>> downloadFile(
+            @PathVariable String fileId,
+            @RequestHeader(value = "user_id", required = false) String userId) {
+
+        return fileService.download(fileId, userId)
+                .map(download -> {
+                    var file = download.file();
+                    var headers = new HttpHeaders();
+                    headers.setETag("\"" + file.getFileHash() + "\"");
+                    headers.setContentLength(file.getFileSize());
+                    if (file.getUploadDate() != null) {
+                        headers.setLastModified(file.getUploadDate());
+                    }
+                    headers.setContentType(Optional.ofNullable(file.getContentType())
+                            .map(MediaType::parseMediaType)
+                            .orElse(MediaType.APPLICATION_OCTET_STREAM));
+                    headers.setContentDisposition(ContentDisposition.inline()
+                            .filename(file.getFilename(), StandardCharsets.UTF_8)
+                            .build());
+                    return ResponseEntity.ok().headers(headers).body(Flux.from(download.content()));
+                })
+                .onErrorResume(IllegalArgumentException.class, ex -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(ex -> {
+                    logger.error("File download failed for file: {}. Error: {}", fileId, ex.getMessage(), ex);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    @DeleteMapping("/{fileId}")
+    public Mono<ResponseEntity<?>> deleteFile(@PathVariable String fileId,
+                                              @RequestHeader(value = "user_id") String userId) {
+        return fileService.deleteFile(fileId, userId)
+                .then(Mono.<ResponseEntity<?>>fromSupplier(() -> ResponseEntity.ok(Map.of("file_id", fileId, "message", "File deleted"))))
+                .onErrorResume(ex -> {
+                    logger.error("File delete failed for user: {}. Error: {}", userId, ex.getMessage(), ex);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage())));
+                });
+    }
+}
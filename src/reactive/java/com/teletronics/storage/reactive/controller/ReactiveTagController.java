@@ -0,0 +1,55 @@
+package com.teletronics.storage.reactive.controller;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.reactive.service.ReactiveTagService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/tags")
+@RequiredArgsConstructor
+public class ReactiveTagController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveTagController.class);
+    private final ReactiveTagService tagService;
+
+    @GetMapping("/list")
+    public Mono<ResponseEntity<?>> getTags() {
+        return tagService.getTags()
+                .collectList()
+                .<ResponseEntity<?>>map(tags -> ResponseEntity.ok(Map.of("tags", tags)))
+                .onErrorResume(this::serverError);
+    }
+
+    @PostMapping("/")
+    public Mono<ResponseEntity<?>> createTag(@RequestParam String tagName) {
+        var normalizedTag = tagName.trim().toLowerCase();
+        if (normalizedTag.isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("message", Constants.TAG_IS_EMPTY_ERROR)));
+        }
+
+        return tagService.tagExists(normalizedTag)
+                .flatMap(exists -> exists
+                        ? Mono.<ResponseEntity<?>>just(ResponseEntity.status(409).body(Map.of("message", Constants.TAG_EXISTS_ERROR)))
+                        : tagService.createTag(normalizedTag).<ResponseEntity<?>>map(created -> ResponseEntity.ok(Map.of("Tag created", created))))
+                .onErrorResume(this::serverError);
+    }
+
+    @DeleteMapping("/delete")
+    public Mono<ResponseEntity<?>> deleteTag(@RequestParam String tagName) {
+        return tagService.deleteTag(tagName)
+                .then(Mono.<ResponseEntity<?>>fromSupplier(() -> ResponseEntity.ok(Map.of("Tag deleted", tagName))))
+                .onErrorResume(this::serverError);
+    }
+
+    private Mono<ResponseEntity<?>> serverError(Throwable ex) {
+        logger.error(ex.getMessage(), ex);
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("server error", ex.getMessage())));
+    }
+}
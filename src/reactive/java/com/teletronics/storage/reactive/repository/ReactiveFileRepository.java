@@ -0,0 +1,14 @@
+package com.teletronics.storage.reactive.repository;
+
+import com.teletronics.storage.model.FileEntity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveFileRepository extends ReactiveMongoRepository<FileEntity, String> {
+
+    Mono<Boolean> existsByOwnerIdAndFilenameOrFileHash(String ownerId, String filename, String fileHash);
+
+    Mono<Boolean> existsByOwnerIdAndFilename(String ownerId, String filename);
+}
@@ -0,0 +1,21 @@
+package com.teletronics.storage.reactive.repository;
+
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.FilenameGrams;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link com.teletronics.storage.repository.FilenameGramsCallback}.
+ */
+@Component
+public class ReactiveFilenameGramsCallback implements ReactiveBeforeConvertCallback<FileEntity> {
+
+    @Override
+    public Publisher<FileEntity> onBeforeConvert(FileEntity file, String collection) {
+        file.setFilenameGrams(FilenameGrams.of(file.getFilename()));
+        return Mono.just(file);
+    }
+}
@@ -0,0 +1,35 @@
+package com.teletronics.storage.reactive.repository;
+
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.FileIndexInitializer;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Ensures the listing and search indexes of {@link FileIndexInitializer} when
+ * only the reactive variant is deployed.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveIndexInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveIndexInitializer.class);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void createIndexes() {
+        var indexOps = mongoTemplate.indexOps(FileEntity.class);
+        Flux.fromIterable(FileIndexInitializer.listingIndexes())
+                .concatWith(Flux.fromIterable(FileIndexInitializer.searchIndexes()))
+                .concatMap(indexOps::ensureIndex)
+                .subscribe(
+                        name -> logger.debug("Ensured index {} of files", name),
+                        ex -> logger.error("Failed to create indexes of files, error={}", ex.getMessage(), ex));
+    }
+}
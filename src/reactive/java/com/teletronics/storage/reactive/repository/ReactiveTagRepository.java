@@ -0,0 +1,18 @@
+package com.teletronics.storage.reactive.repository;
+
+import com.teletronics.storage.model.TagEntity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactiveTagRepository extends ReactiveMongoRepository<TagEntity, String> {
+
+    Mono<Void> deleteByNameIgnoreCase(String name);
+
+    Mono<Boolean> existsByName(String name);
+
+    Mono<Long> countByNameIn(Collection<String> names);
+}
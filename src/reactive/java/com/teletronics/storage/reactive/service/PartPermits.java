@@ -0,0 +1,91 @@
+package com.teletronics.storage.reactive.service;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Permits for upload parts shared by all uploads, the non-blocking counterpart of
+ * the semaphore bounding parts in flight in the servlet build. Waiters get their
+ * permit in arrival order as permits are released, no thread waits for one.
+ * <p>
+ * Each upload counts the permits it holds, so the ones held by parts that were
+ * never sent can be given back at once when the upload fails or is cancelled.
+ */
+class PartPermits {
+    private final Semaphore permits;
+    private final Queue<Waiter> waiting = new ConcurrentLinkedQueue<>();
+
+    PartPermits(int permits) {
+        this.permits = new Semaphore(permits);
+    }
+
+    /**
+     * Completes once a permit was taken and counted in {@code held}. A waiter
+     * cancelled before that takes nothing.
+     */
+    Mono<Void> acquire(AtomicInteger held) {
+        return Mono.create(sink -> {
+            var waiter = new Waiter(sink, held);
+            sink.onCancel(() -> {
+                if (waiter.settle()) {
+                    waiting.remove(waiter);
+                }
+            });
+            waiting.add(waiter);
+            grant();
+        });
+    }
+
+    /**
+     * Gives back one of the permits counted in {@code held}, if any is left.
+     */
+    void release(AtomicInteger held) {
+        if (held.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+            permits.release();
+            grant();
+        }
+    }
+
+    void releaseAll(AtomicInteger held) {
+        var count = held.getAndSet(0);
+        if (count > 0) {
+            permits.release(count);
+            grant();
+        }
+    }
+
+    int available() {
+        return permits.availablePermits();
+    }
+
+    private void grant() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            var waiter = waiting.poll();
+            if (waiter != null && waiter.settle()) {
+                waiter.held.incrementAndGet();
+                waiter.sink.success();
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    private record Waiter(MonoSink<Void> sink, AtomicInteger held, AtomicBoolean settled) {
+        Waiter(MonoSink<Void> sink, AtomicInteger held) {
+            this(sink, held, new AtomicBoolean());
+        }
+
+        /**
+         * @return true for the first of granting and cancelling, which decides the waiter
+         */
+        boolean settle() {
+            return settled.compareAndSet(false, true);
+        }
+    }
+}
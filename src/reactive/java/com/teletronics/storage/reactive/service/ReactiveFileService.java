@@ -0,0 +1,215 @@
+package com.teletronics.storage.reactive.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.dto.FileCursorPageDTO;
+import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.model.BlobEntity;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.TagFacetEntity;
+import com.teletronics.storage.reactive.repository.ReactiveFileRepository;
+import com.teletronics.storage.repository.FileCursor;
+import com.teletronics.storage.repository.FileRepositoryImpl;
+import com.teletronics.storage.service.FileService;
+import com.teletronics.storage.service.TagFacetService;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.async.ResponsePublisher;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * File operations of the reactive variant. Follows {@link FileService} for access
+ * rules, duplicate checks and tag counts, but every step is a non-blocking call.
+ * Uploads are streamed to storage first and checked for duplicate content once
+ * their hash is known; content-addressed storage is not supported for uploads.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveFileService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveFileService.class);
+
+    private final ReactiveFileRepository fileRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ReactiveObjectStorage objectStorage;
+
+    public Mono<FileEntityDTO> upload(String ownerId, String filename, String contentType, boolean isPublic,
+                                      Set<String> tags, Flux<DataBuffer> content) {
+        var normalizedName = FileService.normalizeFileName(filename.trim());
+        var fileId = UUID.randomUUID().toString();
+        return fileRepository.existsByOwnerIdAndFilename(ownerId, normalizedName)
+                .flatMap(taken -> taken
+                        ? Mono.<ReactiveObjectStorage.StoredObject>error(new IllegalStateException(Constants.FILE_EXISTS_ERROR))
+                        : objectStorage.upload(fileId, contentType, content))
+                .flatMap(stored -> {
+                    if (stored.size() == 0) {
+                        return Mono.error(new IllegalArgumentException(Constants.EMPTY_FILE_ERROR));
+                    }
+                    var newFile = FileEntity.builder()
+                            .id(fileId)
+                            .filename(normalizedName)
+                            .ownerId(ownerId)
+                            .fileHash(stored.sha256())
+                            .contentType(contentType)
+                            .fileSize(stored.size())
+                            .uploadDate(Instant.now())
+                            .isPublic(isPublic)
+                            .tags(tags)
+                            .objectKey(fileId)
+                            .downloadUrl(String.format(Constants.CONTENT_URL_FORMAT, fileId))
+                            .build();
+                    return register(newFile);
+                });
+    }
+
+    public Mono<FileCursorPageDTO> getFilesAfter(String ownerId, String tag, String cursor, int size,
+                                                 String sortField, String sortOrder, boolean withCount) {
+        return Mono.defer(() -> {
+            var field = Constants.SORT_FIELD_NAMES.get(sortField.toLowerCase());
+            var direction = sortOrder.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+            var after = cursor != null && !cursor.isEmpty() ? FileCursor.decode(cursor, field, direction) : null;
+            var normalizedTag = tag != null && !tag.isEmpty() ? tag.toLowerCase() : null;
+
+            // without a cursor and a limit the listing query matches every accessible file
+            Mono<Optional<Long>> total = withCount
+                    ? mongoTemplate.count(FileRepositoryImpl.accessibleAfterQuery(ownerId, normalizedTag, field, direction, null, 0),
+                    FileEntity.class).map(Optional::of)
+                    : Mono.just(Optional.empty());
+            return findListing(FileRepositoryImpl.accessibleAfterQuery(ownerId, normalizedTag, field, direction, after, size + 1))
+                    .collectList()
+                    .zipWith(total)
+                    .map(result -> {
+                        var files = result.getT1();
+                        var hasMore = files.size() > size;
+                        var pageFiles = hasMore ? files.subList(0, size) : files;
+                        return FileCursorPageDTO.builder()
+                                .content(pageFiles)
+                                .size(pageFiles.size())
+                                .nextCursor(hasMore ? FileCursor.after(pageFiles.get(size - 1), field, direction).encode() : null)
+                                .totalElements(result.getT2().orElse(null))
+                                .build();
+                    });
+        });
+    }
+
+    public Flux<FileEntityDTO> searchFiles(String ownerId, String query, int size) {
+        if (query == null || query.isBlank()) {
+            return Flux.error(new IllegalArgumentException(Constants.EMPTY_SEARCH_QUERY_ERROR));
+        }
+        var limit = Math.min(size, Constants.MAX_SEARCH_SIZE);
+        return findListing(FileRepositoryImpl.searchQuery(ownerId, FileService.normalizeFileName(query.trim()), limit))
+                .sort(Comparator.comparing(FileEntityDTO::getFilename, String.CASE_INSENSITIVE_ORDER));
+    }
+
+    /**
+     * Returns a file the user may read together with its content. Private files of
+     * other users are reported as missing.
+     */
+    public Mono<Download> download(String fileId, String userId) {
+        return fileRepository.findById(fileId)
+                .filter(file -> file.isPublic() || file.getOwnerId().equals(userId))
+                .switchIfEmpty(Mono.error(new IllegalArgumentException(Constants.FILE_NOT_FOUND_ERROR)))
+                .flatMap(file -> objectStorage.download(FileService.objectKey(file))
+                        .map(content -> new Download(file, content)));
+    }
+
+    public Mono<Void> deleteFile(String fileId, String userId) {
+        return fileRepository.findById(fileId)
+                .flatMap(file -> {
+                    if (!file.getOwnerId().equals(userId)) {
+                        return Mono.error(new IllegalArgumentException(Constants.USER_IS_NOT_FILE_OWNER_ERROR));
+                    }
+                    // metadata goes first, a failed object delete only leaves an orphaned object behind
+                    return fileRepository.deleteById(fileId)
+                            .then(adjustFacets(file, -1))
+                            .then(file.isContentAddressed()
+                                    ? releaseBlob(file.getFileHash())
+                                    : objectStorage.delete(FileService.objectKey(file)));
+                });
+    }
+
+    private Mono<FileEntityDTO> register(FileEntity newFile) {
+        return fileRepository.existsByOwnerIdAndFilenameOrFileHash(newFile.getOwnerId(), newFile.getFilename(), newFile.getFileHash())
+                .flatMap(exists -> exists
+                        ? objectStorage.delete(newFile.getObjectKey())
+                        .then(Mono.<FileEntity>error(new IllegalStateException(Constants.FILE_EXISTS_ERROR)))
+                        : fileRepository.save(newFile))
+                .flatMap(saved -> adjustFacets(saved, 1).thenReturn(toDTO(saved)))
+                .onErrorResume(ex -> !(ex instanceof IllegalStateException),
+                        ex -> objectStorage.delete(newFile.getObjectKey()).onErrorResume(ignored -> Mono.empty())
+                                .then(Mono.error(ex)));
+    }
+
+    private Flux<FileEntityDTO> findListing(Query query) {
+        query.fields().include(FileRepositoryImpl.LISTING_FIELDS);
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(FileEntity.class))
+                .map(FileRepositoryImpl::toListing)
+                .map(file -> {
+                    file.setDownloadUrl(String.format(Constants.CONTENT_URL_FORMAT, file.getId()));
+                    return file;
+                });
+    }
+
+    /**
+     * Same counts as {@link TagFacetService}; a failed increment is left to its rebuild.
+     */
+    private Mono<Void> adjustFacets(FileEntity file, long delta) {
+        return Flux.fromIterable(file.getTags() != null ? file.getTags() : Set.<String>of())
+                .map(tag -> TagFacetService.Facet.of(tag, file.getOwnerId(), file.isPublic()))
+                .flatMap(facet -> mongoTemplate.upsert(Query.query(where("_id").is(facet.id())),
+                        facet.upsert().inc("files", delta), TagFacetEntity.class))
+                .then()
+                .onErrorResume(ex -> {
+                    logger.error("Failed to update tag facets of file: {}, error={}", file.getId(), ex.getMessage(), ex);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Drops a reference to a blob stored by the servlet variant in content-addressed
+     * mode and deletes its object with the last reference.
+     */
+    private Mono<Void> releaseBlob(String fileHash) {
+        return mongoTemplate.findAndModify(
+                        Query.query(where("_id").is(fileHash)),
+                        new Update().inc("refCount", -1),
+                        FindAndModifyOptions.options().returnNew(true),
+                        BlobEntity.class)
+                .filter(blob -> blob.getRefCount() <= 0)
+                .flatMap(blob -> mongoTemplate.remove(Query.query(where("_id").is(fileHash).and("refCount").lte(0)), BlobEntity.class)
+                        .filter(removed -> removed.getDeletedCount() > 0)
+                        .flatMap(removed -> objectStorage.delete(blob.getObjectKey())));
+    }
+
+    private static FileEntityDTO toDTO(FileEntity file) {
+        return FileEntityDTO.builder()
+                .id(file.getId())
+                .filename(file.getFilename())
+                .tags(file.getTags())
+                .contentType(file.getContentType())
+                .fileSize(file.getFileSize())
+                .uploadDate(file.getUploadDate())
+                .downloadUrl(file.getDownloadUrl())
+                .build();
+    }
+
+    public record Download(FileEntity file, ResponsePublisher<GetObjectResponse> content) {
+    }
+}
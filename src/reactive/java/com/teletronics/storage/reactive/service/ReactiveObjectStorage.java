@@ -0,0 +1,220 @@
+package com.teletronics.storage.reactive.service;
+
+import com.teletronics.storage.constants.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.ResponsePublisher;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Streams content between the web layer and storage without holding it in full.
+ * Uploads are cut into parts as bytes arrive and sent as a multipart upload, so
+ * the size need not be known up front. At most {@code minio.partConcurrency}
+ * parts of an upload are in flight and one more is being filled; until one of
+ * them completes no more bytes are requested from the client connection.
+ * <p>
+ * Every part, from its first byte until it was sent, also holds one of the
+ * {@code minio.maxInFlightParts} permits shared by all uploads, which bounds the
+ * memory of all uploads together. An upload waiting for a permit stops reading
+ * from its connection like one waiting for storage.
+ */
+@Component
+public class ReactiveObjectStorage {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveObjectStorage.class);
+
+    private final S3AsyncClient s3AsyncClient;
+    private final String s3Bucket;
+    private final int partSize;
+    private final int partConcurrency;
+    private final int partRetries;
+    private final DataSize maxUploadSize;
+    private final PartPermits partPermits;
+
+    public ReactiveObjectStorage(S3AsyncClient s3AsyncClient,
+                                 @Value("${minio.bucket}") String s3Bucket,
+                                 @Value("${minio.partSize}") DataSize partSize,
+                                 @Value("${minio.partConcurrency}") int partConcurrency,
+                                 @Value("${minio.partRetries}") int partRetries,
+                                 @Value("${minio.maxInFlightParts}") int maxInFlightParts,
+                                 @Value("${storage.reactive.maxUploadSize}") DataSize maxUploadSize) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.s3Bucket = s3Bucket;
+        this.partSize = (int) partSize.toBytes();
+        this.partConcurrency = partConcurrency;
+        this.partRetries = partRetries;
+        this.maxUploadSize = maxUploadSize;
+        this.partPermits = new PartPermits(maxInFlightParts);
+    }
+
+    /**
+     * Uploads the content under the key while computing its size and Base64
+     * SHA-256. Empty content stores nothing and yields a size of zero; content
+     * larger than {@code storage.reactive.maxUploadSize} fails with a
+     * {@link DataBufferLimitException} and is not stored.
+     */
+    public Mono<StoredObject> upload(String objectKey, String contentType, Flux<DataBuffer> content) {
+        return Mono.defer(() -> {
+            var digest = sha256();
+            var size = new long[1];
+            var partOpen = new boolean[1];
+            var heldPermits = new AtomicInteger();
+            var parts = content
+                    // one buffer at a time, so none is read while a part waits for its permit
+                    .concatMap(buffer -> {
+                        size[0] += buffer.readableByteCount();
+                        if (size[0] > maxUploadSize.toBytes()) {
+                            DataBufferUtils.release(buffer);
+                            return Mono.error(new DataBufferLimitException(Constants.UPLOAD_SIZE_ERROR + maxUploadSize.toMegabytes() + " MB"));
+                        }
+                        if (partOpen[0]) {
+                            return Mono.just(buffer);
+                        }
+                        partOpen[0] = true;
+                        return partPermits.acquire(heldPermits)
+                                .doOnCancel(() -> DataBufferUtils.release(buffer))
+                                .thenReturn(buffer);
+                    }, 0)
+                    .bufferUntil(partFilled(partSize))
+                    .doOnNext(chunks -> partOpen[0] = false)
+                    .map(chunks -> join(chunks, digest))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+
+            return Mono.fromFuture(() -> s3AsyncClient.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                            .bucket(s3Bucket)
+                            .key(objectKey)
+                            .contentType(contentType)
+                            .build()))
+                    .flatMap(created -> parts.index()
+                            .flatMapSequential(part -> uploadPart(objectKey, created.uploadId(),
+                                            part.getT1().intValue() + 1, part.getT2())
+                                            .doFinally(signal -> partPermits.release(heldPermits)),
+                                    partConcurrency, 1)
+                            .collectList()
+                            .flatMap(completed -> completed.isEmpty()
+                                    ? abort(objectKey, created.uploadId())
+                                    : complete(objectKey, created.uploadId(), completed))
+                            .onErrorResume(ex -> abort(objectKey, created.uploadId()).then(Mono.error(ex))))
+                    .then(Mono.fromSupplier(() ->
+                            new StoredObject(size[0], Base64.getEncoder().encodeToString(digest.digest()))))
+                    // permits of parts filled but never sent
+                    .doFinally(signal -> partPermits.releaseAll(heldPermits));
+        });
+    }
+
+    public Mono<ResponsePublisher<GetObjectResponse>> download(String objectKey) {
+        return Mono.fromFuture(() -> s3AsyncClient.getObject(GetObjectRequest.builder()
+                        .bucket(s3Bucket)
+                        .key(objectKey)
+                        .build(),
+                AsyncResponseTransformer.toPublisher()));
+    }
+
+    public Mono<Void> delete(String objectKey) {
+        return Mono.fromFuture(() -> s3AsyncClient.deleteObject(DeleteObjectRequest.builder()
+                        .bucket(s3Bucket)
+                        .key(objectKey)
+                        .build()))
+                .then();
+    }
+
+    private Mono<CompletedPart> uploadPart(String objectKey, String uploadId, int partNumber, ByteBuffer part) {
+        return Mono.fromFuture(() -> s3AsyncClient.uploadPart(UploadPartRequest.builder()
+                                .bucket(s3Bucket)
+                                .key(objectKey)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) part.remaining())
+                                .build(),
+                        // every attempt reads the part from its start
+                        AsyncRequestBody.fromByteBuffer(part.duplicate())))
+                .retry(partRetries)
+                .map(response -> CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+    }
+
+    private Mono<Void> complete(String objectKey, String uploadId, List<CompletedPart> parts) {
+        return Mono.fromFuture(() -> s3AsyncClient.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                        .bucket(s3Bucket)
+                        .key(objectKey)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                        .build()))
+                .then();
+    }
+
+    private Mono<Void> abort(String objectKey, String uploadId) {
+        return Mono.fromFuture(() -> s3AsyncClient.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(s3Bucket)
+                        .key(objectKey)
+                        .uploadId(uploadId)
+                        .build()))
+                .doOnError(ex -> logger.error("Failed to abort multipart upload: {}, error={}", objectKey, ex.getMessage()))
+                .onErrorResume(ex -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Closes a part once it holds at least {@code partSize} bytes. A new predicate
+     * is created per upload, it keeps the size of the part being filled.
+     */
+    static Predicate<DataBuffer> partFilled(int partSize) {
+        var filled = new long[1];
+        return buffer -> {
+            filled[0] += buffer.readableByteCount();
+            if (filled[0] < partSize) {
+                return false;
+            }
+            filled[0] = 0;
+            return true;
+        };
+    }
+
+    /**
+     * Copies the buffers of a part into one, the only copy the content is held in
+     * besides the buffers received from the connection, and adds it to the digest.
+     */
+    private static ByteBuffer join(List<DataBuffer> chunks, MessageDigest digest) {
+        try {
+            var part = ByteBuffer.allocate(chunks.stream().mapToInt(DataBuffer::readableByteCount).sum());
+            for (var chunk : chunks) {
+                try (var buffers = chunk.readableByteBuffers()) {
+                    buffers.forEachRemaining(part::put);
+                }
+            }
+            part.flip();
+            digest.update(part.duplicate());
+            return part;
+        } finally {
+            chunks.forEach(DataBufferUtils::release);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public record StoredObject(long size, String sha256) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.teletronics.storage.reactive.service;
+
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.TagEntity;
+import com.teletronics.storage.model.TagFacetEntity;
+import com.teletronics.storage.model.TagVersionEntity;
+import com.teletronics.storage.reactive.repository.ReactiveTagRepository;
+import com.teletronics.storage.service.TagRegistry;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Tag operations of the reactive variant. Tag changes bump the same version stamp
+ * as {@link TagRegistry}, so servlet replicas sharing the database pick them up.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveTagService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveTagService.class);
+
+    private final ReactiveTagRepository tagRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public Flux<String> getTags() {
+        return tagRepository.findAll().map(TagEntity::getName);
+    }
+
+    public Mono<Boolean> tagExists(String tag) {
+        return tagRepository.existsByName(tag);
+    }
+
+    public Mono<Boolean> allTagsExist(Set<String> tags) {
+        if (tags.isEmpty()) {
+            return Mono.just(true);
+        }
+        return tagRepository.countByNameIn(tags).map(count -> count == tags.size());
+    }
+
+    public Mono<String> createTag(String tagName) {
+        return tagRepository.save(new TagEntity(tagName))
+                .then(tagsChanged())
+                .thenReturn(tagName);
+    }
+
+    /**
+     * Deletes the tag and pulls it from all files in the background.
+     */
+    public Mono<Void> deleteTag(String tagName) {
+        var normalizedTag = tagName.trim().toLowerCase();
+        return tagRepository.deleteByNameIgnoreCase(normalizedTag)
+                .then(tagsChanged())
+                .doOnSuccess(ignored -> removeTagFromAllFiles(normalizedTag).subscribe(
+                        modified -> logger.info("Removed tag {} from {} files", normalizedTag, modified),
+                        ex -> logger.error("Failed to remove tag from files: {}, error={}", normalizedTag, ex.getMessage(), ex)));
+    }
+
+    public Set<String> processTags(List<String> tags) {
+        return tags.stream()
+                .map(tag -> tag.trim().toLowerCase())
+                .collect(Collectors.toSet());
+    }
+
+    private Mono<Long> removeTagFromAllFiles(String tag) {
+        return mongoTemplate.updateMulti(Query.query(where("tags").is(tag)), new Update().pull("tags", tag), FileEntity.class)
+                .flatMap(result -> mongoTemplate.remove(Query.query(where("tag").is(tag)), TagFacetEntity.class)
+                        .thenReturn(result.getModifiedCount()));
+    }
+
+    private Mono<Void> tagsChanged() {
+        return mongoTemplate.upsert(
+                        Query.query(where("_id").is(TagRegistry.VERSION_ID)),
+                        new Update().inc("version", 1),
+                        TagVersionEntity.class)
+                .then();
+    }
+}
@@ -0,0 +1,115 @@
+package com.teletronics.storage.reactive.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.TagFacetEntity;
+import com.teletronics.storage.reactive.repository.ReactiveFileRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveFileServiceTest {
+
+    @Mock
+    private ReactiveFileRepository fileRepository;
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private ReactiveObjectStorage objectStorage;
+
+    @InjectMocks
+    private ReactiveFileService fileService;
+
+    private final String userId = "user123";
+
+    @Test
+    void shouldRegisterStreamedFile() {
+        when(fileRepository.existsByOwnerIdAndFilename(userId, "test.txt")).thenReturn(Mono.just(false));
+        when(objectStorage.upload(anyString(), eq("text/plain"), any()))
+                .thenReturn(Mono.just(new ReactiveObjectStorage.StoredObject(12, "hash123")));
+        when(fileRepository.existsByOwnerIdAndFilenameOrFileHash(userId, "test.txt", "hash123")).thenReturn(Mono.just(false));
+        when(fileRepository.save(any(FileEntity.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(TagFacetEntity.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(fileService.upload(userId, " test.txt ", "text/plain", true, Set.of("java"), Flux.<DataBuffer>empty()))
+                .assertNext(file -> {
+                    assertThat(file.getFilename()).isEqualTo("test.txt");
+                    assertThat(file.getFileSize()).isEqualTo(12);
+                    assertThat(file.getDownloadUrl()).isEqualTo(String.format(Constants.CONTENT_URL_FORMAT, file.getId()));
+                })
+                .verifyComplete();
+
+        var fileCaptor = ArgumentCaptor.forClass(FileEntity.class);
+        verify(fileRepository).save(fileCaptor.capture());
+        assertThat(fileCaptor.getValue().getObjectKey()).isEqualTo(fileCaptor.getValue().getId());
+        verify(mongoTemplate, times(1)).upsert(any(Query.class), any(Update.class), eq(TagFacetEntity.class));
+    }
+
+    @Test
+    void shouldDeleteObjectWhenContentTurnsOutDuplicate() {
+        when(fileRepository.existsByOwnerIdAndFilename(userId, "test.txt")).thenReturn(Mono.just(false));
+        when(objectStorage.upload(anyString(), anyString(), any()))
+                .thenReturn(Mono.just(new ReactiveObjectStorage.StoredObject(12, "hash123")));
+        when(fileRepository.existsByOwnerIdAndFilenameOrFileHash(userId, "test.txt", "hash123")).thenReturn(Mono.just(true));
+        when(objectStorage.delete(anyString())).thenReturn(Mono.empty());
+
+        StepVerifier.create(fileService.upload(userId, "test.txt", "text/plain", true, Set.of(), Flux.<DataBuffer>empty()))
+                .verifyErrorMatches(ex -> ex instanceof IllegalStateException
+                        && Constants.FILE_EXISTS_ERROR.equals(ex.getMessage()));
+
+        verify(objectStorage, times(1)).delete(anyString());
+        verify(fileRepository, never()).save(any(FileEntity.class));
+    }
+
+    @Test
+    void shouldNotStreamWhenNameIsTaken() {
+        when(fileRepository.existsByOwnerIdAndFilename(userId, "test.txt")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(fileService.upload(userId, "test.txt", "text/plain", true, Set.of(), Flux.<DataBuffer>empty()))
+                .verifyError(IllegalStateException.class);
+
+        verifyNoInteractions(objectStorage);
+    }
+
+    @Test
+    void shouldHidePrivateFilesOfOtherUsers() {
+        var file = FileEntity.builder().id("file-1").ownerId("other").isPublic(false).build();
+        when(fileRepository.findById("file-1")).thenReturn(Mono.just(file));
+
+        StepVerifier.create(fileService.download("file-1", userId))
+                .verifyErrorMatches(ex -> ex instanceof IllegalArgumentException
+                        && Constants.FILE_NOT_FOUND_ERROR.equals(ex.getMessage()));
+
+        verifyNoInteractions(objectStorage);
+    }
+
+    @Test
+    void shouldRejectDeleteByOtherUser() {
+        var file = FileEntity.builder().id("file-1").ownerId("other").build();
+        when(fileRepository.findById("file-1")).thenReturn(Mono.just(file));
+
+        StepVerifier.create(fileService.deleteFile("file-1", userId))
+                .verifyError(IllegalArgumentException.class);
+
+        verify(fileRepository, never()).deleteById(anyString());
+        verifyNoInteractions(objectStorage);
+    }
+}
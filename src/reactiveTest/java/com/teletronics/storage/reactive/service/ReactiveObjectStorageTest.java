@@ -0,0 +1,152 @@
+package com.teletronics.storage.reactive.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveObjectStorageTest {
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    private ReactiveObjectStorage objectStorage;
+
+    @BeforeEach
+    void setUp() {
+        objectStorage = new ReactiveObjectStorage(s3AsyncClient, "teletronics", DataSize.ofBytes(4), 2, 1,
+                2, DataSize.ofBytes(16));
+        when(s3AsyncClient.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().uploadId("upload-1").build()));
+    }
+
+    @Test
+    void shouldCutStreamIntoPartsAndHashIt() throws Exception {
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class))).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(UploadPartResponse.builder()
+                        .eTag("etag-" + invocation.getArgument(0, UploadPartRequest.class).partNumber())
+                        .build()));
+        when(s3AsyncClient.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+
+        StepVerifier.create(objectStorage.upload("file-1", "text/plain", content("abc", "def", "ghi", "j")))
+                .assertNext(stored -> {
+                    assertThat(stored.size()).isEqualTo(10);
+                    assertThat(stored.sha256()).isEqualTo(sha256("abcdefghij"));
+                })
+                .verifyComplete();
+
+        var partCaptor = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(s3AsyncClient, times(2)).uploadPart(partCaptor.capture(), any(AsyncRequestBody.class));
+        assertThat(partCaptor.getAllValues()).extracting(UploadPartRequest::contentLength).containsExactly(6L, 4L);
+
+        var completeCaptor = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3AsyncClient).completeMultipartUpload(completeCaptor.capture());
+        assertThat(completeCaptor.getValue().multipartUpload().parts()).extracting(CompletedPart::eTag)
+                .containsExactly("etag-1", "etag-2");
+        verify(s3AsyncClient, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        assertThat(availablePartPermits()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAbortEmptyUpload() {
+        when(s3AsyncClient.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build()));
+
+        StepVerifier.create(objectStorage.upload("file-1", "text/plain", Flux.empty()))
+                .assertNext(stored -> assertThat(stored.size()).isZero())
+                .verifyComplete();
+
+        verify(s3AsyncClient, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void shouldAbortWhenPartKeepsFailing() {
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(S3Exception.builder().message("boom").build()));
+        when(s3AsyncClient.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build()));
+
+        StepVerifier.create(objectStorage.upload("file-1", "text/plain", content("abcd")))
+                .verifyErrorMessage("boom");
+
+        // the first attempt and one retry
+        verify(s3AsyncClient, times(2)).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+        verify(s3AsyncClient).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        assertThat(availablePartPermits()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAbortContentAboveMaxUploadSize() {
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class))).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("etag").build()));
+        when(s3AsyncClient.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build()));
+
+        StepVerifier.create(objectStorage.upload("file-1", "text/plain", content("abcd", "efgh", "ijkl", "mnop", "q")))
+                .verifyError(DataBufferLimitException.class);
+
+        verify(s3AsyncClient, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(s3AsyncClient).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        assertThat(availablePartPermits()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldWaitForPartPermitHeldByAnotherUpload() {
+        var permits = (PartPermits) ReflectionTestUtils.getField(objectStorage, "partPermits");
+        var otherUpload = new AtomicInteger();
+        permits.acquire(otherUpload).block();
+        permits.acquire(otherUpload).block();
+        when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class))).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("etag").build()));
+        when(s3AsyncClient.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+
+        StepVerifier.create(objectStorage.upload("file-1", "text/plain", content("abcd")))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> verify(s3AsyncClient, never()).uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .then(() -> permits.release(otherUpload))
+                .assertNext(stored -> assertThat(stored.size()).isEqualTo(4))
+                .verifyComplete();
+
+        assertThat(availablePartPermits()).isEqualTo(1);
+    }
+
+    private int availablePartPermits() {
+        return ((PartPermits) ReflectionTestUtils.getField(objectStorage, "partPermits")).available();
+    }
+
+    private static Flux<DataBuffer> content(String... chunks) {
+        return Flux.fromArray(chunks)
+                .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String sha256(String content) throws Exception {
+        return Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.teletronics.storage.config;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundedVirtualThreadExecutorTest {
+
+    @Test
+    void shouldRejectTasksOverConcurrencyLimit() {
+        var executor = new BoundedVirtualThreadExecutor("test-", 2);
+        var release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        executor.execute(blocking);
+        executor.execute(blocking);
+
+        assertThrows(TaskRejectedException.class, () -> executor.execute(blocking));
+
+        release.countDown();
+        Awaitility.await()
+                .atMost(1, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(executor.availablePermits()).isEqualTo(2));
+    }
+
+    @Test
+    void shouldReportActiveTasksAndRejections() {
+        var rejected = new AtomicInteger();
+        var executor = new BoundedVirtualThreadExecutor("test-", 1, rejected::incrementAndGet);
+        var release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        executor.execute(blocking);
+        assertThat(executor.activeCount()).isEqualTo(1);
+
+        assertThrows(TaskRejectedException.class, () -> executor.execute(blocking));
+        assertThat(rejected).hasValue(1);
+
+        release.countDown();
+        Awaitility.await()
+                .atMost(1, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(executor.activeCount()).isZero());
+    }
+
+    @Test
+    void shouldRunTasksOnVirtualThreads() throws Exception {
+        var executor = new BoundedVirtualThreadExecutor("test-", 1);
+
+        var virtual = executor.submit(() -> Thread.currentThread().isVirtual());
+
+        assertThat(virtual.get(1, TimeUnit.SECONDS)).isTrue();
+    }
+}
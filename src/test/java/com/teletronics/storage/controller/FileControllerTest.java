@@ -1,28 +1,48 @@
 package com.teletronics.storage.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teletronics.storage.config.WebConfig;
 import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.dto.FileCursorPageDTO;
 import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.model.DeleteJobEntity;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.PresignedUploadEntity;
+import com.teletronics.storage.service.BatchUploadService;
+import com.teletronics.storage.service.BulkDeleteService;
 import com.teletronics.storage.service.FileService;
+import com.teletronics.storage.service.PresignedTransferService;
+import com.teletronics.storage.service.RetagService;
 import com.teletronics.storage.service.TagService;
+import com.teletronics.storage.service.UploadEventBroadcaster;
+import com.teletronics.storage.service.UploadSessionService;
+import com.teletronics.storage.model.UploadSessionEntity;
+import com.teletronics.storage.repository.FileSelection;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.ByteArrayInputStream;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -38,6 +58,24 @@ class FileControllerTest {
     @MockBean
     private TagService tagService;
 
+    @MockBean
+    private UploadSessionService uploadSessionService;
+
+    @MockBean
+    private UploadEventBroadcaster uploadEventBroadcaster;
+
+    @MockBean
+    private PresignedTransferService presignedTransferService;
+
+    @MockBean
+    private BatchUploadService batchUploadService;
+
+    @MockBean
+    private BulkDeleteService bulkDeleteService;
+
+    @MockBean
+    private RetagService retagService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private String userId;
     private String fileId;
@@ -64,9 +102,10 @@ class FileControllerTest {
         MockMultipartFile file = new MockMultipartFile("file", "test.txt",
                 "text/plain", "Hello World".getBytes());
 
-        when(fileService.fileExists(anyString(), any())).thenReturn(false);
+        when(fileService.generateFileHash(any())).thenReturn("hash123");
+        when(fileService.fileExists(anyString(), anyString(), anyString())).thenReturn(false);
         when(tagService.allTagsExist(any())).thenReturn(true);
-        doNothing().when(fileService).uploadFileAsync(anyString(), anyString(), any(), anyBoolean(), any());
+        doNothing().when(fileService).uploadFileAsync(anyString(), anyString(), any(), anyString(), anyBoolean(), any());
 
         mockMvc.perform(multipart("/files/")
                         .file(file)
@@ -77,6 +116,44 @@ class FileControllerTest {
                 .andExpect(jsonPath("$.message").value("File upload started"))
                 .andExpect(jsonPath("$.status").value("in_progress"))
                 .andExpect(jsonPath("$.file_id").isNotEmpty());
+
+        verify(fileService, times(1)).uploadFileAsync(anyString(), eq(userId), any(), eq("hash123"), eq(true), any());
+    }
+
+    @Test
+    void shouldStartNonBlockingUploadWhenEnabled() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "test.txt",
+                "text/plain", "Hello World".getBytes());
+
+        when(fileService.generateFileHash(any())).thenReturn("hash123");
+        when(fileService.fileExists(anyString(), anyString(), anyString())).thenReturn(false);
+        when(fileService.canUploadNonBlocking(anyLong())).thenReturn(true);
+
+        mockMvc.perform(multipart("/files/")
+                        .file(file)
+                        .header("user_id", userId))
+                .andExpect(status().isAccepted());
+
+        verify(fileService, times(1)).uploadFileNonBlocking(anyString(), eq(userId), any(), eq("hash123"), anyBoolean(), any());
+        verify(fileService, never()).uploadFileAsync(anyString(), anyString(), any(), anyString(), anyBoolean(), any());
+    }
+
+    @Test
+    void shouldRejectUploadWhenExecutorIsSaturated() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "test.txt",
+                "text/plain", "Hello World".getBytes());
+
+        when(fileService.generateFileHash(any())).thenReturn("hash123");
+        when(fileService.fileExists(anyString(), anyString(), anyString())).thenReturn(false);
+        doThrow(new TaskRejectedException("saturated"))
+                .when(fileService).uploadFileAsync(anyString(), anyString(), any(), anyString(), anyBoolean(), any());
+
+        mockMvc.perform(multipart("/files/")
+                        .file(file)
+                        .header("user_id", userId))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"))
+                .andExpect(jsonPath("$.message").value(Constants.UPLOAD_CAPACITY_ERROR));
     }
 
     @Test
@@ -89,6 +166,28 @@ class FileControllerTest {
                 .andExpect(jsonPath("$.status").value(Constants.STATUS_COMPLETED));
     }
 
+    @Test
+    void shouldStreamFileUploadStatus() throws Exception {
+        when(fileService.getUploadStatus(fileId)).thenReturn(Constants.STATUS_IN_PROGRESS);
+        when(uploadEventBroadcaster.subscribeToFile(eq(fileId), any())).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/files/status/" + fileId + "/stream"))
+                .andExpect(request().asyncStarted());
+
+        verify(uploadEventBroadcaster, times(1)).subscribeToFile(eq(fileId),
+                argThat(statusLookup -> Constants.STATUS_IN_PROGRESS.equals(statusLookup.get())));
+    }
+
+    @Test
+    void shouldStreamUserUploadStatus() throws Exception {
+        when(uploadEventBroadcaster.subscribeToOwner(userId)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/files/status/stream").header("user_id", userId))
+                .andExpect(request().asyncStarted());
+
+        verify(uploadEventBroadcaster, times(1)).subscribeToOwner(userId);
+    }
+
     @Test
     void shouldGetFilesList() throws Exception {
         Page<FileEntityDTO> filesPage = new PageImpl<>(List.of(fileDTO));
@@ -103,6 +202,190 @@ class FileControllerTest {
                 .andExpect(jsonPath("$.files.content[0].filename").value("test_file.txt"));
     }
 
+    @Test
+    void shouldGetFilesPageByDefault() throws Exception {
+        Page<FileEntityDTO> filesPage = new PageImpl<>(List.of(fileDTO));
+        when(fileService.getFiles(userId, null, Constants.DEFAULT_PAGE, Constants.DEFAULT_SIZE, "uploadDate", "desc"))
+                .thenReturn(filesPage);
+
+        mockMvc.perform(get("/files/list")
+                        .header("user_id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.files.content[0].filename").value("test_file.txt"));
+
+        verify(fileService, never()).getFilesAfter(anyString(), any(), any(), anyInt(), anyString(), anyString(), anyBoolean());
+    }
+
+    @Test
+    void shouldGetFilesListByCursor() throws Exception {
+        var filesPage = FileCursorPageDTO.builder()
+                .content(List.of(fileDTO))
+                .size(1)
+                .nextCursor("next")
+                .build();
+        when(fileService.getFilesAfter(userId, null, "token", 10, "uploadDate", "desc", false)).thenReturn(filesPage);
+
+        mockMvc.perform(get("/files/list")
+                        .header("user_id", userId)
+                        .param("cursor", "token")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.files.content[0].filename").value("test_file.txt"))
+                .andExpect(jsonPath("$.files.nextCursor").value("next"));
+
+        verify(fileService, never()).getFiles(anyString(), any(), anyInt(), anyInt(), anyString(), anyString());
+    }
+
+    @Test
+    void shouldSearchFiles() throws Exception {
+        when(fileService.searchFiles(userId, "file", Constants.DEFAULT_SIZE)).thenReturn(List.of(fileDTO));
+
+        mockMvc.perform(get("/files/search")
+                        .header("user_id", userId)
+                        .param("q", "file"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.files[0].filename").value("test_file.txt"));
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() throws Exception {
+        when(fileService.getFilesAfter(eq(userId), any(), eq("garbage"), anyInt(), anyString(), anyString(), anyBoolean()))
+                .thenThrow(new IllegalArgumentException(Constants.INVALID_CURSOR_ERROR));
+
+        mockMvc.perform(get("/files/list")
+                        .header("user_id", userId)
+                        .param("cursor", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(Constants.INVALID_CURSOR_ERROR));
+    }
+
+    @Test
+    void shouldStreamFileContent() throws Exception {
+        var content = "Hello World".getBytes();
+        var file = storedFile(content);
+        when(fileService.getReadableFile(fileId, userId)).thenReturn(file);
+        when(fileService.openContent(file, null, null)).thenReturn(contentStream(content));
+
+        var result = mockMvc.perform(get("/files/" + fileId + "/content").header("user_id", userId))
+                .andExpect(request().asyncStarted())
+                .andExpect(request().attribute(WebConfig.NO_ASYNC_TIMEOUT, true))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"hash123\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void shouldAnswerHeadFromMetadata() throws Exception {
+        when(fileService.getReadableFile(fileId, userId)).thenReturn(storedFile("Hello World".getBytes()));
+
+        mockMvc.perform(head("/files/" + fileId + "/content").header("user_id", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"hash123\""))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 11));
+
+        verify(fileService, never()).openContent(any(), any(), any());
+    }
+
+    @Test
+    void shouldStreamRequestedRange() throws Exception {
+        var content = "Hello World".getBytes();
+        var file = storedFile(content);
+        when(fileService.getReadableFile(fileId, null)).thenReturn(file);
+        when(fileService.openContent(file, 6L, 10L)).thenReturn(contentStream("World".getBytes()));
+
+        var result = mockMvc.perform(get("/files/" + fileId + "/content").header(HttpHeaders.RANGE, "bytes=6-"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 6-10/11"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 5))
+                .andExpect(content().string("World"));
+    }
+
+    @Test
+    void shouldIgnoreRangeWhenIfRangeDoesNotMatch() throws Exception {
+        var content = "Hello World".getBytes();
+        var file = storedFile(content);
+        when(fileService.getReadableFile(fileId, null)).thenReturn(file);
+        when(fileService.openContent(file, null, null)).thenReturn(contentStream(content));
+
+        var result = mockMvc.perform(get("/files/" + fileId + "/content")
+                        .header(HttpHeaders.RANGE, "bytes=6-")
+                        .header(HttpHeaders.IF_RANGE, "\"outdated\""))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void shouldRejectUnsatisfiableRange() throws Exception {
+        when(fileService.getReadableFile(fileId, null)).thenReturn(storedFile("Hello World".getBytes()));
+
+        mockMvc.perform(get("/files/" + fileId + "/content").header(HttpHeaders.RANGE, "bytes=100-200"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */11"));
+
+        verify(fileService, never()).openContent(any(), any(), any());
+    }
+
+    @Test
+    void shouldNotServeFilesTheUserCannotRead() throws Exception {
+        when(fileService.getReadableFile(fileId, userId)).thenThrow(new IllegalArgumentException(Constants.FILE_NOT_FOUND_ERROR));
+
+        mockMvc.perform(get("/files/" + fileId + "/content").header("user_id", userId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldCreatePresignedUpload() throws Exception {
+        var upload = PresignedUploadEntity.builder()
+                .id(fileId)
+                .expiresAt(Instant.now().plusSeconds(900))
+                .build();
+        when(presignedTransferService.createUpload(eq(userId), eq("video.mp4"), any(), eq(1024L), eq("hash123"), eq(true), any()))
+                .thenReturn(new PresignedTransferService.PresignedUpload(upload, "http://localhost:9000/teletronics/" + fileId,
+                        Map.of("x-amz-checksum-sha256", List.of("hash123"))));
+
+        mockMvc.perform(post("/files/presigned")
+                        .param("filename", "video.mp4")
+                        .param("size", "1024")
+                        .param("sha256", "hash123")
+                        .header("user_id", userId))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.upload_id").value(fileId))
+                .andExpect(jsonPath("$.method").value("PUT"))
+                .andExpect(jsonPath("$.headers['x-amz-checksum-sha256'][0]").value("hash123"));
+    }
+
+    @Test
+    void shouldRejectPresignedCompletionWithMismatchingContent() throws Exception {
+        when(presignedTransferService.completeUpload(fileId, userId))
+                .thenThrow(new IllegalStateException(Constants.FILE_HASH_MISMATCH_ERROR));
+
+        mockMvc.perform(post("/files/presigned/" + fileId + "/complete").header("user_id", userId))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value(Constants.FILE_HASH_MISMATCH_ERROR));
+    }
+
+    @Test
+    void shouldIssuePresignedDownloadUrl() throws Exception {
+        when(presignedTransferService.presignDownload(fileId, userId))
+                .thenReturn(new PresignedTransferService.PresignedDownload("http://localhost:9000/signed", Instant.now()));
+
+        mockMvc.perform(get("/files/" + fileId + "/download-url").header("user_id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.url").value("http://localhost:9000/signed"));
+    }
+
     @Test
     void shouldRenameFile() throws Exception {
         when(fileService.updateFileName(fileId, "new_name.txt", userId)).thenReturn(fileDTO);
@@ -124,4 +407,224 @@ class FileControllerTest {
                 .andExpect(jsonPath("$.file_id").value(fileId))
                 .andExpect(jsonPath("$.message").value("File deleted"));
     }
+
+    @Test
+    void shouldCreateUploadSession() throws Exception {
+        var session = UploadSessionEntity.builder().id("session-1").ownerId(userId).build();
+        when(fileService.fileNameTaken(anyString(), anyString())).thenReturn(false);
+        when(uploadSessionService.createSession(eq(userId), eq("big.bin"), any(), anyBoolean(), any())).thenReturn(session);
+
+        mockMvc.perform(post("/files/sessions")
+                        .param("filename", "big.bin")
+                        .header("user_id", userId))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.session_id").value("session-1"))
+                .andExpect(jsonPath("$.next_chunk").value(1));
+    }
+
+    @Test
+    void shouldUploadSessionChunk() throws Exception {
+        var session = UploadSessionEntity.builder().id("session-1").ownerId(userId).build();
+        when(uploadSessionService.uploadChunk(eq("session-1"), eq(userId), eq(1), any(), eq(5L))).thenReturn(session);
+        when(uploadSessionService.receivedOffset(session)).thenReturn(5L);
+        when(uploadSessionService.nextChunk(session)).thenReturn(2);
+
+        mockMvc.perform(put("/files/sessions/{sessionId}/chunks/{chunkNumber}", "session-1", 1)
+                        .content("hello".getBytes())
+                        .header("user_id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received_offset").value(5))
+                .andExpect(jsonPath("$.next_chunk").value(2));
+    }
+
+    @Test
+    void shouldReturnNotFoundForChunkOfUnknownSession() throws Exception {
+        when(uploadSessionService.uploadChunk(eq("session-1"), eq(userId), eq(1), any(), eq(5L)))
+                .thenThrow(new IllegalArgumentException(Constants.SESSION_NOT_FOUND_ERROR));
+
+        mockMvc.perform(put("/files/sessions/{sessionId}/chunks/{chunkNumber}", "session-1", 1)
+                        .content("hello".getBytes())
+                        .header("user_id", userId))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value(Constants.SESSION_NOT_FOUND_ERROR));
+    }
+
+    @Test
+    void shouldRejectChunkWithBadNumber() throws Exception {
+        when(uploadSessionService.uploadChunk(eq("session-1"), eq(userId), eq(0), any(), eq(5L)))
+                .thenThrow(new IllegalArgumentException(Constants.CHUNK_NUMBER_ERROR));
+
+        mockMvc.perform(put("/files/sessions/{sessionId}/chunks/{chunkNumber}", "session-1", 0)
+                        .content("hello".getBytes())
+                        .header("user_id", userId))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(Constants.CHUNK_NUMBER_ERROR));
+    }
+
+    @Test
+    void shouldRejectDuplicateOnSessionCompletion() throws Exception {
+        when(uploadSessionService.completeSession("session-1", userId))
+                .thenThrow(new IllegalStateException(Constants.FILE_EXISTS_ERROR));
+
+        mockMvc.perform(post("/files/sessions/{sessionId}/complete", "session-1")
+                        .header("user_id", userId))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value(Constants.FILE_EXISTS_ERROR));
+    }
+
+    private FileEntity storedFile(byte[] content) {
+        return FileEntity.builder()
+                .id(fileId)
+                .filename("test.txt")
+                .ownerId(userId)
+                .fileHash("hash123")
+                .contentType("text/plain")
+                .fileSize(content.length)
+                .uploadDate(Instant.now())
+                .isPublic(true)
+                .build();
+    }
+
+    private static ResponseInputStream<GetObjectResponse> contentStream(byte[] content) {
+        return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content)));
+    }
+
+    @Test
+    void shouldStartBatchUploadWithPerFileStatuses() throws Exception {
+        var first = new MockMultipartFile("files", "a.txt", "text/plain", "first".getBytes());
+        var second = new MockMultipartFile("files", "b.txt", "text/plain", "second".getBytes());
+        when(batchUploadService.prepare(eq(userId), anyList())).thenReturn(List.of(
+                new BatchUploadService.BatchFile("id-1", first, "a.txt", "hash-a", null),
+                new BatchUploadService.BatchFile(null, second, "b.txt", "hash-b", Constants.FILE_EXISTS_ERROR)));
+
+        mockMvc.perform(multipart("/files/batch")
+                        .file(first)
+                        .file(second)
+                        .header("user_id", userId))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.files[0].file_id").value("id-1"))
+                .andExpect(jsonPath("$.files[0].status").value(Constants.STATUS_IN_PROGRESS))
+                .andExpect(jsonPath("$.files[1].status").value(Constants.STATUS_REJECTED))
+                .andExpect(jsonPath("$.files[1].message").value(Constants.FILE_EXISTS_ERROR));
+
+        verify(batchUploadService, times(1)).uploadAsync(eq(userId),
+                argThat(batch -> batch.size() == 1 && batch.get(0).fileId().equals("id-1")), eq(true), any());
+    }
+
+    @Test
+    void shouldValidateBatchTagsOnce() throws Exception {
+        var file = new MockMultipartFile("files", "a.txt", "text/plain", "first".getBytes());
+        when(tagService.processTags(any())).thenReturn(Set.of("unknown"));
+        when(tagService.allTagsExist(Set.of("unknown"))).thenReturn(false);
+
+        mockMvc.perform(multipart("/files/batch")
+                        .file(file)
+                        .param("tags", "unknown")
+                        .header("user_id", userId))
+                .andExpect(status().isBadRequest());
+
+        verify(tagService, times(1)).allTagsExist(any());
+        verifyNoInteractions(batchUploadService);
+    }
+
+    @Test
+    void shouldRejectOversizedBatch() throws Exception {
+        var file = new MockMultipartFile("files", "a.txt", "text/plain", "first".getBytes());
+        when(batchUploadService.prepare(eq(userId), anyList()))
+                .thenThrow(new IllegalArgumentException(Constants.BATCH_SIZE_ERROR + 1000));
+
+        mockMvc.perform(multipart("/files/batch")
+                        .file(file)
+                        .header("user_id", userId))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(Constants.BATCH_SIZE_ERROR + 1000));
+    }
+
+    @Test
+    void shouldStartBulkDeleteJob() throws Exception {
+        var job = DeleteJobEntity.builder().id("job-1").ownerId(userId).tag("java")
+                .status(Constants.STATUS_IN_PROGRESS).totalFiles(200_000).build();
+        when(bulkDeleteService.createJob(userId, null, "java", false)).thenReturn(job);
+
+        mockMvc.perform(post("/files/bulk-delete")
+                        .param("tag", "java")
+                        .header("user_id", userId))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.job_id").value("job-1"))
+                .andExpect(jsonPath("$.total_files").value(200_000))
+                .andExpect(jsonPath("$.error").doesNotExist());
+
+        verify(bulkDeleteService, times(1)).runAsync(job);
+    }
+
+    @Test
+    void shouldRejectBulkDeleteWithoutSingleCriterion() throws Exception {
+        when(bulkDeleteService.createJob(eq(userId), any(), any(), anyBoolean()))
+                .thenThrow(new IllegalArgumentException(Constants.FILE_SELECTION_ERROR));
+
+        mockMvc.perform(post("/files/bulk-delete")
+                        .header("user_id", userId))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(Constants.FILE_SELECTION_ERROR));
+
+        verify(bulkDeleteService, never()).runAsync(any());
+    }
+
+    @Test
+    void shouldReportBulkDeleteProgress() throws Exception {
+        var job = DeleteJobEntity.builder().id("job-1").ownerId(userId)
+                .status(Constants.STATUS_IN_PROGRESS).totalFiles(2000).deletedFiles(1000).build();
+        when(bulkDeleteService.getJob("job-1", userId)).thenReturn(job);
+
+        mockMvc.perform(get("/files/bulk-delete/job-1")
+                        .header("user_id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(Constants.STATUS_IN_PROGRESS))
+                .andExpect(jsonPath("$.deleted_files").value(1000));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownDeleteJob() throws Exception {
+        when(bulkDeleteService.getJob("job-1", userId))
+                .thenThrow(new IllegalArgumentException(Constants.DELETE_JOB_NOT_FOUND_ERROR));
+
+        mockMvc.perform(get("/files/bulk-delete/job-1")
+                        .header("user_id", userId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRetagSelectedFiles() throws Exception {
+        when(tagService.processTags(List.of("java"))).thenReturn(Set.of("java"));
+        when(tagService.processTags(List.of("go"))).thenReturn(Set.of("go"));
+        when(tagService.allTagsExist(Set.of("java"))).thenReturn(true);
+        when(retagService.retag(new FileSelection(userId, List.of("id-1", "id-2"), null), Set.of("java"), Set.of("go")))
+                .thenReturn(2L);
+
+        mockMvc.perform(post("/files/retag")
+                        .param("ids", "id-1", "id-2")
+                        .param("add", "java")
+                        .param("remove", "go")
+                        .header("user_id", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+    }
+
+    @Test
+    void shouldRejectRetagWithUnknownTag() throws Exception {
+        when(tagService.processTags(any())).thenReturn(Set.of("unknown"));
+        when(tagService.allTagsExist(Set.of("unknown"))).thenReturn(false);
+
+        mockMvc.perform(post("/files/retag")
+                        .param("all", "true")
+                        .param("add", "unknown")
+                        .header("user_id", userId))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(Constants.TAG_IS_NOT_ALLOWED_ERROR + Set.of("unknown")));
+
+        verifyNoInteractions(retagService);
+    }
 }
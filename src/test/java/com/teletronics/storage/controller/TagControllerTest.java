@@ -2,13 +2,16 @@ package com.teletronics.storage.controller;
 
 import com.teletronics.storage.constants.Constants;
 import com.teletronics.storage.service.FileService;
+import com.teletronics.storage.service.TagFacetService;
 import com.teletronics.storage.service.TagService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -28,6 +31,9 @@ class TagControllerTest {
     @MockBean
     private TagService tagService;
 
+    @MockBean
+    private TagFacetService tagFacetService;
+
     @Test
     void shouldReturnListOfTags() throws Exception {
         when(tagService.getTags()).thenReturn(List.of("java", "spring", "go"));
@@ -41,6 +47,55 @@ class TagControllerTest {
         verify(tagService, times(1)).getTags();
     }
 
+    @Test
+    void shouldReturnTagFacetsOfUser() throws Exception {
+        var counts = new LinkedHashMap<String, Long>();
+        counts.put("java", 12L);
+        counts.put("go", 0L);
+        when(tagFacetService.getCounts("user123")).thenReturn(counts);
+
+        mockMvc.perform(get("/tags/facets")
+                        .header("user_id", "user123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.facets.java").value(12))
+                .andExpect(jsonPath("$.facets.go").value(0));
+    }
+
+    @Test
+    void shouldStartTagFacetRebuild() throws Exception {
+        when(tagFacetService.lockRebuild()).thenReturn("token");
+
+        mockMvc.perform(post("/tags/facets/rebuild"))
+                .andExpect(status().isAccepted());
+
+        verify(tagFacetService, times(1)).rebuildAsync("token");
+    }
+
+    @Test
+    void shouldRejectTagFacetRebuildWhileOneIsRunning() throws Exception {
+        when(tagFacetService.lockRebuild()).thenReturn(null);
+
+        mockMvc.perform(post("/tags/facets/rebuild"))
+                .andExpect(status().isConflict())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.message").value(Constants.TAG_FACET_REBUILD_RUNNING_ERROR));
+
+        verify(tagFacetService, never()).rebuildAsync(anyString());
+    }
+
+    @Test
+    void shouldRejectTagFacetRebuildWhenExecutorIsSaturated() throws Exception {
+        when(tagFacetService.lockRebuild()).thenReturn("token");
+        doThrow(new TaskRejectedException("saturated")).when(tagFacetService).rebuildAsync("token");
+
+        mockMvc.perform(post("/tags/facets/rebuild"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.message").value(Constants.TASK_CAPACITY_ERROR));
+
+        verify(tagFacetService, times(1)).unlockRebuild("token");
+    }
+
     @Test
     void shouldCreateTag() throws Exception {
         when(tagService.tagExists("java")).thenReturn(false);
@@ -90,6 +145,17 @@ class TagControllerTest {
         verify(tagService, times(1)).deleteTag("java");
     }
 
+    @Test
+    void shouldRejectTagDeletionWhenExecutorIsSaturated() throws Exception {
+        doThrow(new TaskRejectedException("saturated")).when(tagService).deleteTag("java");
+
+        mockMvc.perform(delete("/tags/delete")
+                        .param("tagName", "java"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.message").value(Constants.TASK_CAPACITY_ERROR));
+    }
+
     @Test
     void shouldHandleInternalServerError() throws Exception {
         when(tagService.getTags()).thenThrow(new RuntimeException("Unexpected error"));
@@ -0,0 +1,103 @@
+package com.teletronics.storage.migration;
+
+import com.mongodb.client.result.UpdateResult;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.service.FileService;
+import com.teletronics.storage.service.JobLockService;
+import com.teletronics.storage.service.MultipartUploader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ObjectKeyMigrationTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private MultipartUploader multipartUploader;
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private JobLockService jobLockService;
+
+    @InjectMocks
+    private ObjectKeyMigration objectKeyMigration;
+
+    private FileEntity legacyFile;
+
+    @BeforeEach
+    void setUp() {
+        legacyFile = FileEntity.builder()
+                .id("file-1")
+                .ownerId("user123")
+                .filename("test.txt")
+                .fileSize(1024)
+                .build();
+    }
+
+    @Test
+    void shouldMoveLegacyObjectToFileIdKey() {
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class))).thenReturn(Stream.of(legacyFile));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(FileEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        var migrated = objectKeyMigration.migrate("token");
+
+        assertThat(migrated).isEqualTo(1);
+        verify(multipartUploader, times(1)).copy("user123/test.txt", "file-1", 1024);
+        var deleteCaptor = ArgumentCaptor.forClass(DeleteObjectRequest.class);
+        verify(s3Client, times(1)).deleteObject(deleteCaptor.capture());
+        assertThat(deleteCaptor.getValue().key()).isEqualTo("user123/test.txt");
+    }
+
+    @Test
+    void shouldDropCopyWhenFileChangedDuringMigration() {
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class))).thenReturn(Stream.of(legacyFile));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(FileEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        when(mongoTemplate.findById("file-1", FileEntity.class)).thenReturn(legacyFile);
+
+        var migrated = objectKeyMigration.migrate("token");
+
+        assertThat(migrated).isZero();
+        var deleteCaptor = ArgumentCaptor.forClass(DeleteObjectRequest.class);
+        verify(s3Client, times(1)).deleteObject(deleteCaptor.capture());
+        assertThat(deleteCaptor.getValue().key()).isEqualTo("file-1");
+    }
+
+    @Test
+    void shouldKeepCopyCommittedByAnotherReplica() {
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class))).thenReturn(Stream.of(legacyFile));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(FileEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        when(mongoTemplate.findById("file-1", FileEntity.class))
+                .thenReturn(FileEntity.builder().id("file-1").objectKey("file-1").build());
+
+        var migrated = objectKeyMigration.migrate("token");
+
+        assertThat(migrated).isZero();
+        verify(s3Client, never()).deleteObject(any(DeleteObjectRequest.class));
+    }
+}
@@ -0,0 +1,136 @@
+package com.teletronics.storage.repository;
+
+import com.mongodb.client.MongoClients;
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.FileEntity;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the query plans of every listing shape against a real MongoDB:
+ * the filter and the sort have to come from indexes, without an in-memory sort.
+ * Filename searches have to be served from the search token indexes.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class FileIndexInitializerTest {
+
+    @Container
+    private static final MongoDBContainer mongo = new MongoDBContainer("mongo:6");
+
+    private static MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        mongoTemplate = new MongoTemplate(MongoClients.create(mongo.getConnectionString()), "storage_test");
+        mongoTemplate.indexOps(FileEntity.class).ensureIndex(
+                new Index().on("isPublic", Sort.Direction.ASC)
+                        .named(FileIndexInitializer.LEGACY_PUBLIC_INDEX));
+
+        new FileIndexInitializer(mongoTemplate).createIndexes();
+
+        mongoTemplate.insertAll(IntStream.range(0, 1000)
+                .mapToObj(i -> FileEntity.builder()
+                        .id(String.format("file-%04d", i))
+                        .ownerId("user" + (i % 20))
+                        .filename("file" + i + ".txt")
+                        .filenameGrams(FilenameGrams.of("file" + i + ".txt"))
+                        .fileSize(i * 10L)
+                        .uploadDate(Instant.now().minusSeconds(i))
+                        .isPublic(i % 4 == 0)
+                        .tags(Set.of("tag" + (i % 7)))
+                        .build())
+                .toList());
+    }
+
+    static Stream<Arguments> listings() {
+        List<Arguments> listings = new ArrayList<>();
+        for (var sortField : Constants.SORT_FIELD_NAMES.values()) {
+            for (var direction : Sort.Direction.values()) {
+                for (var tag : new String[]{null, "tag3"}) {
+                    for (var withCursor : new boolean[]{false, true}) {
+                        listings.add(Arguments.of(sortField, direction, tag, withCursor));
+                    }
+                }
+            }
+        }
+        return listings.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("listings")
+    void shouldServeListingFromIndexes(String sortField, Sort.Direction direction, String tag, boolean withCursor) {
+        FileCursor after = null;
+        if (withCursor) {
+            var page = new FileRepositoryImpl(mongoTemplate).findAccessibleAfter("user1", tag, sortField, direction, null, 10);
+            after = FileCursor.after(page.get(page.size() - 1), sortField, direction);
+        }
+        var query = FileRepositoryImpl.accessibleAfterQuery("user1", tag, sortField, direction, after, 11);
+
+        var explain = mongoTemplate.getCollection("files")
+                .find(query.getQueryObject())
+                .sort(query.getSortObject())
+                .limit(query.getLimit())
+                .explain();
+        var winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan");
+
+        List<String> stages = new ArrayList<>();
+        collectStages(winningPlan, stages);
+        assertThat(stages).contains("IXSCAN").doesNotContain("SORT", "COLLSCAN");
+    }
+
+    static Stream<String> searches() {
+        return Stream.of("f", "fi", "e12", "12.txt");
+    }
+
+    @ParameterizedTest
+    @MethodSource("searches")
+    void shouldServeSearchFromIndexes(String search) {
+        var query = FileRepositoryImpl.searchQuery("user1", search, 10);
+
+        var explain = mongoTemplate.getCollection("files")
+                .find(query.getQueryObject())
+                .limit(query.getLimit())
+                .explain();
+        var winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan");
+
+        List<String> stages = new ArrayList<>();
+        collectStages(winningPlan, stages);
+        assertThat(stages).contains("IXSCAN").doesNotContain("COLLSCAN");
+    }
+
+    @Test
+    void shouldDropUnselectivePublicIndex() {
+        assertThat(mongoTemplate.indexOps(FileEntity.class).getIndexInfo())
+                .noneMatch(index -> FileIndexInitializer.LEGACY_PUBLIC_INDEX.equals(index.getName()));
+    }
+
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            if (document.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+}
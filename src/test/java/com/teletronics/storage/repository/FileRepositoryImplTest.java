@@ -0,0 +1,142 @@
+package com.teletronics.storage.repository;
+
+import com.teletronics.storage.model.FileEntity;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileRepositoryImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private FileRepositoryImpl fileRepository;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(FileEntity.class)).thenReturn("files");
+    }
+
+    @Test
+    void shouldSeekPastCursorInsteadOfSkipping() {
+        var cursor = new FileCursor("filename", Sort.Direction.DESC, "m.txt", "id-5");
+
+        fileRepository.findAccessibleAfter("user123", null, "filename", Sort.Direction.DESC, cursor, 11);
+
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Document.class), eq("files"));
+        var query = queryCaptor.getValue();
+        assertThat(query.getSkip()).isZero();
+        assertThat(query.getLimit()).isEqualTo(11);
+        assertThat(query.getSortObject()).isEqualTo(new Document("filename", -1).append("_id", -1));
+
+        var conditions = query.getQueryObject().getList("$and", Document.class);
+        assertThat(conditions.get(1)).isEqualTo(new Document("filename", new Document("$lte", "m.txt")));
+        assertThat(conditions.get(2).getList("$or", Document.class)).containsExactly(
+                new Document("filename", new Document("$lt", "m.txt")),
+                new Document("_id", new Document("$lt", "id-5")));
+    }
+
+    @Test
+    void shouldStartFromFirstFileWithoutCursor() {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("files"))).thenReturn(List.of());
+
+        fileRepository.findAccessibleAfter("user123", "java", "uploadDate", Sort.Direction.ASC, null, 11);
+
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Document.class), eq("files"));
+        var conditions = queryCaptor.getValue().getQueryObject().getList("$and", Document.class);
+        assertThat(conditions.get(1)).isEqualTo(new Document("tags", "java"));
+    }
+
+    @Test
+    void shouldSearchByTrigramsAndCheckName() {
+        fileRepository.searchAccessible("user123", "Report", 10);
+
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Document.class), eq("files"));
+        var query = queryCaptor.getValue();
+        assertThat(query.getLimit()).isEqualTo(10);
+        assertThat(query.getSortObject()).isEmpty();
+
+        var conditions = query.getQueryObject().getList("$and", Document.class);
+        var grams = conditions.get(0).getList("$and", Document.class).get(1).get("filenameGrams", Document.class);
+        assertThat((Collection<?>) grams.get("$all")).containsExactly("rep", "epo", "por", "ort");
+        assertThat(conditions.get(1)).containsKey("filename");
+    }
+
+    @Test
+    void shouldMatchShortSearchAsPrefixOnly() {
+        fileRepository.searchAccessible("user123", "Re", 10);
+
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Document.class), eq("files"));
+        var conditions = queryCaptor.getValue().getQueryObject().getList("$and", Document.class);
+        var grams = conditions.get(1).get("filenameGrams", Document.class);
+        assertThat((Collection<?>) grams.get("$all")).containsExactly("\0re");
+        assertThat(conditions).hasSize(2);
+    }
+
+    @Test
+    void shouldProjectOnlyListedFields() {
+        var uploadDate = new Date();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("files"))).thenReturn(List.of(
+                new Document("_id", "id-1")
+                        .append("filename", "a.txt")
+                        .append("tags", List.of("java"))
+                        .append("contentType", "text/plain")
+                        .append("fileSize", 42L)
+                        .append("uploadDate", uploadDate)));
+        when(mongoTemplate.count(any(Query.class), eq(FileEntity.class))).thenReturn(21L);
+
+        var page = fileRepository.findAccessible("user123", null, PageRequest.of(2, 1, Sort.by("fileSize")));
+
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Document.class), eq("files"));
+        assertThat(queryCaptor.getValue().getFieldsObject()).containsOnlyKeys(
+                "filename", "tags", "contentType", "fileSize", "uploadDate");
+        assertThat(queryCaptor.getValue().getSkip()).isEqualTo(2);
+
+        assertThat(page.getTotalElements()).isEqualTo(21);
+        var file = page.getContent().get(0);
+        assertThat(file.getId()).isEqualTo("id-1");
+        assertThat(file.getTags()).containsExactly("java");
+        assertThat(file.getFileSize()).isEqualTo(42);
+        assertThat(file.getUploadDate()).isEqualTo(uploadDate.toInstant());
+    }
+
+    @Test
+    void shouldReturnOnlyFilesHeldByTheClaim() {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("files")))
+                .thenReturn(List.of(new Document("_id", "id-1")));
+
+        var claimed = fileRepository.claimForDelete(List.of("id-1", "id-2"), "user123", "job-1");
+
+        assertThat(claimed).containsExactly("id-1");
+        var claimCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(claimCaptor.capture(), any(Update.class), eq(FileEntity.class));
+        assertThat(claimCaptor.getValue().getQueryObject()).containsEntry("ownerId", "user123").containsKey("$or");
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(queryCaptor.capture(), eq(Document.class), eq("files"));
+        assertThat(queryCaptor.getValue().getQueryObject()).containsEntry("deleteClaim", "job-1");
+    }
+}
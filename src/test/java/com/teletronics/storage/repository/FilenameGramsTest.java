@@ -0,0 +1,28 @@
+package com.teletronics.storage.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilenameGramsTest {
+
+    @Test
+    void shouldIndexPrefixesAndTrigrams() {
+        assertThat(FilenameGrams.of("Ab.TXT")).containsExactly("\0a", "\0ab", "ab.", "b.t", ".tx", "txt");
+    }
+
+    @Test
+    void shouldIndexShortNamesByPrefixOnly() {
+        assertThat(FilenameGrams.of("a")).containsExactly("\0a");
+        assertThat(FilenameGrams.of(null)).isEmpty();
+    }
+
+    @Test
+    void shouldFindNameByAnyInfix() {
+        var grams = FilenameGrams.of("quarterly_report.pdf");
+
+        assertThat(grams).containsAll(FilenameGrams.ofQuery("REPORT"));
+        assertThat(grams).containsAll(FilenameGrams.ofQuery("qu"));
+        assertThat(grams).doesNotContainAnyElementsOf(FilenameGrams.ofQuery("re"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.teletronics.storage.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncObjectStorageTest {
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    private AsyncObjectStorage asyncObjectStorage;
+
+    @BeforeEach
+    void setUp() {
+        asyncObjectStorage = new AsyncObjectStorage(s3AsyncClient, Runnable::run, 1);
+        ReflectionTestUtils.setField(asyncObjectStorage, "s3Bucket", "teletronics");
+    }
+
+    @Test
+    void shouldUploadWithChecksumVerifiedByStorage() {
+        var response = new CompletableFuture<PutObjectResponse>();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class))).thenReturn(response);
+
+        var upload = asyncObjectStorage.upload("file-1", Path.of("/tmp/upload.part"), "text/plain", "hash123");
+
+        var requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3AsyncClient).putObject(requestCaptor.capture(), any(AsyncRequestBody.class));
+        assertThat(requestCaptor.getValue().key()).isEqualTo("file-1");
+        assertThat(requestCaptor.getValue().checksumSHA256()).isEqualTo("hash123");
+        assertThat(upload).isNotDone();
+
+        response.complete(PutObjectResponse.builder().build());
+
+        assertThat(upload).isCompleted();
+    }
+
+    @Test
+    void shouldPropagateDeleteFailure() {
+        when(s3AsyncClient.deleteObject(any(DeleteObjectRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().message("boom").build()));
+
+        assertThat(asyncObjectStorage.delete("file-1")).isCompletedExceptionally();
+    }
+
+    @Test
+    void shouldRejectUploadsOverInFlightLimit() {
+        var response = new CompletableFuture<PutObjectResponse>();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class))).thenReturn(response);
+
+        asyncObjectStorage.upload("file-1", Path.of("/tmp/upload-1.part"), "text/plain", "hash123");
+
+        assertThrows(TaskRejectedException.class,
+                () -> asyncObjectStorage.upload("file-2", Path.of("/tmp/upload-2.part"), "text/plain", "hash123"));
+
+        response.completeExceptionally(S3Exception.builder().message("BadDigest").build());
+
+        assertThat(asyncObjectStorage.upload("file-2", Path.of("/tmp/upload-2.part"), "text/plain", "hash123")).isNotDone();
+    }
+}
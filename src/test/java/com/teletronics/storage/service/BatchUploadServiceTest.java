@@ -0,0 +1,135 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.FileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchUploadServiceTest {
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private FileExistenceFilter existenceFilter;
+
+    @Mock
+    private TagFacetService tagFacetService;
+
+    private BatchUploadService batchUploadService;
+
+    private final String userId = "user123";
+
+    @BeforeEach
+    void setUp() {
+        batchUploadService = new BatchUploadService(fileService, fileRepository, existenceFilter, tagFacetService, Runnable::run);
+        ReflectionTestUtils.setField(batchUploadService, "maxFiles", 3);
+    }
+
+    @Test
+    void shouldRejectDuplicatesWithOneQuery() throws Exception {
+        when(fileService.generateFileHash(any())).thenAnswer(invocation ->
+                "hash-" + new String(invocation.getArgument(0, MultipartFile.class).getBytes()));
+        when(existenceFilter.mightExist(eq(userId), anyString(), anyString(), eq(false))).thenReturn(true);
+        when(fileRepository.findConflicting(eq(userId), anyCollection(), anyCollection(), eq(false)))
+                .thenReturn(List.of(FileEntity.builder().ownerId("other").filename("c.txt").fileHash("hash-x").build()));
+
+        var batch = batchUploadService.prepare(userId, List.of(
+                file("a.txt", "a"),
+                file("b.txt", "a"),
+                file("c.txt", "x")));
+
+        assertThat(batch).extracting(BatchUploadService.BatchFile::accepted).containsExactly(true, false, false);
+        assertThat(batch.get(0).fileId()).isNotNull();
+        assertThat(batch.get(1).error()).isEqualTo(Constants.FILE_EXISTS_ERROR);
+        verify(fileRepository, times(1)).findConflicting(eq(userId), anyCollection(), anyCollection(), eq(false));
+    }
+
+    @Test
+    void shouldSkipQueryWhenFilterRulesOutBatch() throws Exception {
+        when(fileService.generateFileHash(any())).thenReturn("hash-a", "hash-b");
+
+        var batch = batchUploadService.prepare(userId, List.of(file("a.txt", "a"), file("b.txt", "b")));
+
+        assertThat(batch).allMatch(BatchUploadService.BatchFile::accepted);
+        verifyNoInteractions(fileRepository);
+    }
+
+    @Test
+    void shouldRejectOversizedBatch() {
+        var files = List.<MultipartFile>of(file("a", "a"), file("b", "b"), file("c", "c"), file("d", "d"));
+
+        var exception = assertThrows(IllegalArgumentException.class, () -> batchUploadService.prepare(userId, files));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.BATCH_SIZE_ERROR + 3);
+    }
+
+    @Test
+    void shouldInsertStoredFilesAtOnce() throws Exception {
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0, FileEntity.class).getId().equals("id-2")) {
+                throw new IllegalStateException(Constants.FILE_HASH_MISMATCH_ERROR);
+            }
+            return null;
+        }).when(fileService).storeContent(any(FileEntity.class), any(MultipartFile.class));
+
+        batchUploadService.uploadAsync(userId, List.of(
+                new BatchUploadService.BatchFile("id-1", file("a.txt", "a"), "a.txt", "hash-a", null),
+                new BatchUploadService.BatchFile("id-2", file("b.txt", "b"), "b.txt", "hash-b", null),
+                new BatchUploadService.BatchFile("id-3", file("c.txt", "c"), "c.txt", "hash-c", null)), true, Set.of("java"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<FileEntity>> insertCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(fileRepository, times(1)).insert(insertCaptor.capture());
+        assertThat(insertCaptor.getValue()).extracting(FileEntity::getId).containsExactly("id-1", "id-3");
+        verify(fileService).updateStatus("id-1", userId, Constants.STATUS_COMPLETED);
+        verify(fileService).updateStatus("id-2", userId, Constants.STATUS_FAILED);
+        verify(fileService).updateStatus("id-3", userId, Constants.STATUS_COMPLETED);
+        verify(existenceFilter, times(2)).add(any(FileEntity.class));
+        verify(tagFacetService, times(1)).filesAdded(insertCaptor.getValue());
+    }
+
+    @Test
+    void shouldRegisterOneByOneWhenBulkInsertFails() {
+        when(fileRepository.insert(anyCollection())).thenThrow(new RuntimeException("bulk write error"));
+        when(fileService.registerFile(any(FileEntity.class))).thenAnswer(invocation -> {
+            if (invocation.getArgument(0, FileEntity.class).getId().equals("id-2")) {
+                throw new RuntimeException("duplicate key");
+            }
+            return null;
+        });
+
+        batchUploadService.uploadAsync(userId, List.of(
+                new BatchUploadService.BatchFile("id-1", file("a.txt", "a"), "a.txt", "hash-a", null),
+                new BatchUploadService.BatchFile("id-2", file("b.txt", "b"), "b.txt", "hash-b", null)), false, Set.of());
+
+        verify(fileService, times(2)).registerFile(any(FileEntity.class));
+        verify(fileService).updateStatus("id-1", userId, Constants.STATUS_COMPLETED);
+        verify(fileService).updateStatus("id-2", userId, Constants.STATUS_FAILED);
+        verify(fileService, times(1)).deleteObject(any());
+    }
+
+    private static MockMultipartFile file(String filename, String content) {
+        return new MockMultipartFile("files", filename, "text/plain", content.getBytes());
+    }
+}
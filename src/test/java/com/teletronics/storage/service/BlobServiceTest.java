@@ -0,0 +1,63 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.model.BlobEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlobServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private BlobService blobService;
+
+    private final String fileHash = "n4bQgYhMfWWaL+qgxVrQFaO/TxsrC4Is0V1sFbDwCgg=";
+
+    @Test
+    void shouldBuildUniqueUrlSafeBlobKeys() {
+        var blobKey = BlobService.blobKey(fileHash);
+
+        assertThat(blobKey).startsWith("blobs/n4bQgYhMfWWaL-qgxVrQFaO_TxsrC4Is0V1sFbDwCgg/");
+        assertThat(BlobService.blobKey(fileHash)).isNotEqualTo(blobKey);
+    }
+
+    @Test
+    void shouldKeepBlobWhileReferencesRemain() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(BlobEntity.class)))
+                .thenReturn(BlobEntity.builder().id(fileHash).objectKey("blobs/key").refCount(1).build());
+
+        assertThat(blobService.release(fileHash)).isNull();
+        verify(mongoTemplate, never()).findAndRemove(any(Query.class), eq(BlobEntity.class));
+    }
+
+    @Test
+    void shouldReturnObjectKeyWhenLastReferenceIsReleased() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(BlobEntity.class)))
+                .thenReturn(BlobEntity.builder().id(fileHash).objectKey("blobs/key").refCount(0).build());
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(BlobEntity.class)))
+                .thenReturn(BlobEntity.builder().id(fileHash).objectKey("blobs/key").refCount(0).build());
+
+        assertThat(blobService.release(fileHash)).isEqualTo("blobs/key");
+    }
+
+    @Test
+    void shouldNotDeleteBlobReacquiredConcurrently() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(BlobEntity.class)))
+                .thenReturn(BlobEntity.builder().id(fileHash).objectKey("blobs/key").refCount(0).build());
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(BlobEntity.class))).thenReturn(null);
+
+        assertThat(blobService.release(fileHash)).isNull();
+    }
+}
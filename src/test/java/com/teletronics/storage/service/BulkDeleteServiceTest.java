@@ -0,0 +1,189 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.DeleteJobEntity;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.DeleteJobRepository;
+import com.teletronics.storage.repository.FileRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkDeleteServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private FileRepository fileRepository;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private BlobService blobService;
+
+    @Mock
+    private DeleteJobRepository deleteJobRepository;
+
+    @Mock
+    private FileExistenceFilter existenceFilter;
+
+    @Mock
+    private TagFacetService tagFacetService;
+
+    @InjectMocks
+    private BulkDeleteService bulkDeleteService;
+
+    private final String userId = "user123";
+    private DeleteJobEntity job;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bulkDeleteService, "s3Bucket", "teletronics");
+        job = DeleteJobEntity.builder().id("job-1").ownerId(userId).status(Constants.STATUS_IN_PROGRESS).build();
+    }
+
+    @Test
+    void shouldRequireExactlyOneCriterion() {
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> bulkDeleteService.createJob(userId, List.of("id-1"), "java", false));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.FILE_SELECTION_ERROR);
+        assertThrows(IllegalArgumentException.class, () -> bulkDeleteService.createJob(userId, null, " ", false));
+        verifyNoInteractions(deleteJobRepository);
+    }
+
+    @Test
+    void shouldCountMatchingFilesOfOwnerOnCreate() {
+        when(mongoTemplate.count(any(Query.class), eq(FileEntity.class))).thenReturn(42L);
+        when(deleteJobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var created = bulkDeleteService.createJob(userId, null, " Java ", false);
+
+        assertThat(created.getTotalFiles()).isEqualTo(42);
+        assertThat(created.getTag()).isEqualTo("java");
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).count(queryCaptor.capture(), eq(FileEntity.class));
+        assertThat(queryCaptor.getValue().getQueryObject())
+                .isEqualTo(new Document("ownerId", userId).append("tags", "java"));
+    }
+
+    @Test
+    void shouldDeleteInBatchesOfThousand() {
+        var files = IntStream.range(0, 1500)
+                .mapToObj(i -> FileEntity.builder().id("id-" + i).ownerId(userId).objectKey("id-" + i).build())
+                .toList();
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class))).thenReturn(files.stream());
+        when(fileRepository.claimForDelete(anyList(), eq(userId), eq("job-1")))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(fileRepository.removeClaimed(anyCollection(), eq("job-1"))).thenReturn(1000L, 500L);
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class)))
+                .thenReturn(DeleteObjectsResponse.builder().build())
+                .thenReturn(DeleteObjectsResponse.builder().errors(S3Error.builder().key("id-1499").build()).build());
+
+        bulkDeleteService.run(job);
+
+        var requestCaptor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, times(2)).deleteObjects(requestCaptor.capture());
+        assertThat(requestCaptor.getAllValues()).extracting(request -> request.delete().objects().size())
+                .containsExactly(1000, 500);
+        assertThat(requestCaptor.getAllValues().get(0).delete().quiet()).isTrue();
+        verify(fileRepository, times(2)).removeClaimed(anyCollection(), eq("job-1"));
+
+        var updates = jobUpdates(3);
+        assertThat(updates.get(0).getUpdateObject().get("$inc", Document.class))
+                .containsEntry("deletedFiles", 1000L).containsEntry("failedObjects", 0L);
+        assertThat(updates.get(1).getUpdateObject().get("$inc", Document.class))
+                .containsEntry("deletedFiles", 500L).containsEntry("failedObjects", 1L);
+        assertThat(updates.get(2).getUpdateObject().get("$set", Document.class))
+                .containsEntry("status", Constants.STATUS_COMPLETED);
+    }
+
+    @Test
+    void shouldDeleteBlobOnlyWhenLastReferenceIsGone() {
+        var shared = FileEntity.builder().id("id-1").ownerId(userId).fileHash("hash-1").contentAddressed(true).build();
+        var last = FileEntity.builder().id("id-2").ownerId(userId).fileHash("hash-2").contentAddressed(true).build();
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class))).thenReturn(Stream.of(shared, last));
+        when(fileRepository.claimForDelete(List.of("id-1", "id-2"), userId, "job-1")).thenReturn(List.of("id-1", "id-2"));
+        when(fileRepository.removeClaimed(Set.of("id-1", "id-2"), "job-1")).thenReturn(2L);
+        when(blobService.release("hash-1")).thenReturn(null);
+        when(blobService.release("hash-2")).thenReturn("blobs/hash-2");
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder().build());
+
+        bulkDeleteService.run(job);
+
+        var requestCaptor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client).deleteObjects(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().delete().objects()).extracting(ObjectIdentifier::key)
+                .containsExactly("blobs/hash-2");
+        verify(existenceFilter, times(2)).remove(any(FileEntity.class));
+        verify(tagFacetService, times(1)).filesRemoved(List.of(shared, last));
+    }
+
+    @Test
+    void shouldReleaseOnlyFilesClaimedByTheJob() {
+        var claimed = FileEntity.builder().id("id-1").ownerId(userId).fileHash("hash-1").contentAddressed(true).build();
+        var taken = FileEntity.builder().id("id-2").ownerId(userId).fileHash("hash-1").contentAddressed(true).build();
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class))).thenReturn(Stream.of(claimed, taken));
+        when(fileRepository.claimForDelete(List.of("id-1", "id-2"), userId, "job-1")).thenReturn(List.of("id-1"));
+        when(fileRepository.removeClaimed(Set.of("id-1"), "job-1")).thenReturn(1L);
+
+        bulkDeleteService.run(job);
+
+        verify(blobService, times(1)).release("hash-1");
+        verify(tagFacetService, times(1)).filesRemoved(List.of(claimed));
+        assertThat(jobUpdates(2).get(0).getUpdateObject().get("$inc", Document.class)).containsEntry("deletedFiles", 1L);
+    }
+
+    @Test
+    void shouldMarkJobFailedWhenStreamingFails() {
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class))).thenThrow(new RuntimeException("mongo down"));
+
+        bulkDeleteService.run(job);
+
+        var update = jobUpdates(1).get(0).getUpdateObject().get("$set", Document.class);
+        assertThat(update).containsEntry("status", Constants.STATUS_FAILED).containsEntry("error", "mongo down");
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void shouldHideJobsOfOtherUsers() {
+        when(deleteJobRepository.findById("job-1")).thenReturn(Optional.of(job));
+
+        var exception = assertThrows(IllegalArgumentException.class, () -> bulkDeleteService.getJob("job-1", "wrongUser"));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.DELETE_JOB_NOT_FOUND_ERROR);
+    }
+
+    private List<Update> jobUpdates(int count) {
+        var updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(count)).updateFirst(any(Query.class), updateCaptor.capture(), eq(DeleteJobEntity.class));
+        return updateCaptor.getAllValues();
+    }
+}
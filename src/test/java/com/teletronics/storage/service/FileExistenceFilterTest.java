@@ -0,0 +1,104 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.model.FileEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileExistenceFilterTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FileExistenceFilter existenceFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        existenceFilter = new FileExistenceFilter(mongoTemplate, meterRegistry, true, 1000, 0.01);
+    }
+
+    @Test
+    void shouldReportPossibleHitsUntilBuilt() {
+        assertThat(existenceFilter.mightExist("user1", "a.txt", "hash-a", false)).isTrue();
+        assertThat(existenceFilter.mightExist("user1", "a.txt")).isTrue();
+    }
+
+    @Test
+    void shouldRuleOutUnknownFilesOnceBuilt() {
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class)))
+                .thenReturn(Stream.of(file("user1", "a.txt", "hash-a")));
+
+        existenceFilter.build();
+
+        assertThat(existenceFilter.mightExist("user1", "a.txt", "other", false)).isTrue();
+        assertThat(existenceFilter.mightExist("user2", "b.txt", "hash-a", false)).isTrue();
+        assertThat(existenceFilter.mightExist("user2", "b.txt", "hash-a", true)).isFalse();
+        assertThat(existenceFilter.mightExist("user2", "a.txt")).isFalse();
+        assertThat(meterRegistry.get("storage.dedup.filter.checks").tag("result", "negative").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void shouldAddFilesStoredAfterBuild() {
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class))).thenReturn(Stream.empty());
+        existenceFilter.build();
+
+        existenceFilter.add(file("user1", "new.txt", "hash-new"));
+
+        assertThat(existenceFilter.mightExist("user1", "new.txt")).isTrue();
+        assertThat(existenceFilter.mightExist("user3", "x.txt", "hash-new", false)).isTrue();
+    }
+
+    @Test
+    void shouldKeepFilesStoredWhileRebuilding() {
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class))).thenAnswer(invocation -> {
+            existenceFilter.add(file("user1", "new.txt", "hash-new"));
+            return Stream.empty();
+        });
+
+        existenceFilter.build();
+
+        assertThat(existenceFilter.mightExist("user1", "new.txt")).isTrue();
+    }
+
+    @Test
+    void shouldRebuildOnceStaleKeysPileUp() {
+        when(mongoTemplate.stream(any(Query.class), eq(FileEntity.class)))
+                .thenReturn(Stream.of(file("user1", "a.txt", "hash-a")))
+                .thenReturn(Stream.empty());
+        existenceFilter.build();
+
+        existenceFilter.remove(file("user1", "a.txt", "hash-a"));
+        existenceFilter.rebuildIfDegraded();
+
+        assertThat(existenceFilter.mightExist("user1", "a.txt")).isFalse();
+        assertThat(meterRegistry.get("storage.dedup.filter.stale.keys").gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldStayUnbuiltWhenDisabled() {
+        existenceFilter = new FileExistenceFilter(mongoTemplate, new SimpleMeterRegistry(), false, 1000, 0.01);
+
+        existenceFilter.build();
+
+        assertThat(existenceFilter.mightExist("user1", "a.txt")).isTrue();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private static FileEntity file(String ownerId, String filename, String fileHash) {
+        return FileEntity.builder().ownerId(ownerId).filename(filename).fileHash(fileHash).build();
+    }
+}
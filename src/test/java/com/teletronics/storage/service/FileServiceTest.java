@@ -2,26 +2,47 @@ package com.teletronics.storage.service;
 
 import com.teletronics.storage.constants.Constants;
 import com.teletronics.storage.dto.FileEntityDTO;
+import com.teletronics.storage.event.UploadStatusEvent;
+import com.teletronics.storage.model.BlobEntity;
 import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.repository.FileCursor;
 import com.teletronics.storage.repository.FileRepository;
+import com.teletronics.storage.util.DetachedMultipartFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.awaitility.Awaitility;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,13 +58,40 @@ class FileServiceTest {
     @Mock
     private FileRepository fileRepository;
 
+    @Mock
+    private MultipartUploader multipartUploader;
+
+    @Mock
+    private BlobService blobService;
+
     @Mock
     private MultipartFile mockFile;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AsyncObjectStorage asyncObjectStorage;
+
+    @Mock
+    private FileExistenceFilter existenceFilter;
+
+    @Mock
+    private TagFacetService tagFacetService;
+
+    @Spy
+    private UploadStatusStore uploadStatusStore = new InMemoryUploadStatusStore(1000, Duration.ofHours(1), Clock.systemUTC());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private UploadMetrics uploadMetrics = new UploadMetrics(meterRegistry);
+
     @InjectMocks
     private FileService fileService;
 
     private FileEntity testFileEntity;
+    private FileEntityDTO testListing;
     private final String fileId = "12345";
     private final String userId = "user123";
     private final String fileName = "test.txt";
@@ -65,42 +113,173 @@ class FileServiceTest {
                 .tags(tags)
                 .downloadUrl("http://teletronics/" + fileKey)
                 .build();
+        testListing = FileEntityDTO.builder()
+                .id(fileId)
+                .filename(fileName)
+                .tags(tags)
+                .contentType("text/plain")
+                .fileSize(1024)
+                .uploadDate(testFileEntity.getUploadDate())
+                .build();
     }
 
     @Test
-    void shouldCheckIfFileExists() throws Exception {
-        when(mockFile.getOriginalFilename()).thenReturn(fileName);
-        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream("test data".getBytes())); // Эмуляция InputStream
+    void shouldCheckIfFileExists() {
+        when(existenceFilter.mightExist(userId, fileName, "hash123", false)).thenReturn(true);
         when(fileRepository.existsByOwnerIdAndFilenameOrFileHash(anyString(), anyString(), anyString()))
                 .thenReturn(true);
 
-        boolean exists = fileService.fileExists(userId, mockFile);
+        boolean exists = fileService.fileExists(userId, fileName, "hash123");
 
         assertThat(exists).isTrue();
-        verify(fileRepository, times(1)).existsByOwnerIdAndFilenameOrFileHash(anyString(), anyString(), anyString());
+        verify(fileRepository, times(1)).existsByOwnerIdAndFilenameOrFileHash(userId, fileName, "hash123");
+    }
+
+    @Test
+    void shouldSkipDatabaseWhenFilterRulesOutFile() {
+        when(existenceFilter.mightExist(userId, fileName, "hash123", false)).thenReturn(false);
+
+        assertThat(fileService.fileExists(userId, fileName, "hash123")).isFalse();
+
+        verifyNoInteractions(fileRepository);
+    }
+
+    @Test
+    void shouldCountUnconfirmedFilterHits() {
+        when(existenceFilter.mightExist(userId, fileName)).thenReturn(true);
+        when(fileRepository.existsByOwnerIdAndFilename(userId, fileName)).thenReturn(false);
+
+        assertThat(fileService.fileNameTaken(userId, fileName)).isFalse();
+
+        verify(existenceFilter, times(1)).falsePositive();
+    }
+
+    @Test
+    void shouldGenerateFileHash() throws Exception {
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream("test data".getBytes()));
+
+        var fileHash = fileService.generateFileHash(mockFile);
+
+        var expected = Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest("test data".getBytes()));
+        assertThat(fileHash).isEqualTo(expected);
     }
 
     @Test
     void shouldGetFiles() {
-        var page = new PageImpl<>(List.of(testFileEntity), PageRequest.of(0, 10), 1); // Создаём Page
-        when(fileRepository.findByPublicOrOwner(anyString(), any())).thenReturn(page);
+        var page = new PageImpl<>(List.of(testListing), PageRequest.of(0, 10), 1); // Создаём Page
+        when(fileRepository.findAccessible(eq(userId), isNull(), any())).thenReturn(page);
 
         var files = fileService.getFiles(userId, null, 0, 10, "uploadDate", "desc");
 
         assertThat(files.getContent()).hasSize(1);
-        verify(fileRepository, times(1)).findByPublicOrOwner(anyString(), any());
+        assertThat(files.getContent().get(0).getDownloadUrl()).isEqualTo("/files/" + fileId + "/content");
+        verify(fileRepository, times(1)).findAccessible(eq(userId), isNull(), any());
+    }
+
+    @Test
+    void shouldSearchFilesSortedByName() {
+        var second = FileEntityDTO.builder().id("67890").filename("A_test.txt").build();
+        when(fileRepository.searchAccessible(userId, "my_test", Constants.MAX_SEARCH_SIZE))
+                .thenReturn(List.of(testListing, second));
+
+        var files = fileService.searchFiles(userId, " my test ", 500);
+
+        assertThat(files).extracting(FileEntityDTO::getId).containsExactly("67890", fileId);
+        assertThat(files.get(1).getDownloadUrl()).isEqualTo("/files/" + fileId + "/content");
+    }
+
+    @Test
+    void shouldRejectBlankSearch() {
+        var exception = assertThrows(IllegalArgumentException.class, () -> fileService.searchFiles(userId, " ", 10));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.EMPTY_SEARCH_QUERY_ERROR);
+        verifyNoInteractions(fileRepository);
+    }
+
+    @Test
+    void shouldReturnCursorWhenMoreFilesFollow() {
+        var second = FileEntityDTO.builder().id("67890").filename("b.txt").uploadDate(Instant.now()).build();
+        when(fileRepository.findAccessibleAfter(userId, null, "uploadDate", Sort.Direction.DESC, null, 2))
+                .thenReturn(List.of(testListing, second));
+
+        var page = fileService.getFilesAfter(userId, null, null, 1, "uploaddate", "desc", false);
+
+        assertThat(page.getContent()).extracting(FileEntityDTO::getId).containsExactly(fileId);
+        assertThat(page.getTotalElements()).isNull();
+        var cursor = FileCursor.decode(page.getNextCursor(), "uploadDate", Sort.Direction.DESC);
+        assertThat(cursor.id()).isEqualTo(fileId);
+        assertThat(cursor.value()).isEqualTo(Date.from(testFileEntity.getUploadDate()));
+        verify(fileRepository, never()).countAccessible(anyString(), any());
+    }
+
+    @Test
+    void shouldContinueAfterCursorOnLastPage() {
+        var token = FileCursor.after(testListing, "fileSize", Sort.Direction.ASC).encode();
+        when(fileRepository.findAccessibleAfter(eq(userId), eq("java"), eq("fileSize"), eq(Sort.Direction.ASC), any(), eq(11)))
+                .thenReturn(List.of(testListing));
+        when(fileRepository.countAccessible(userId, "java")).thenReturn(11L);
+
+        var page = fileService.getFilesAfter(userId, "Java", token, 10, "fileSize", "asc", true);
+
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getTotalElements()).isEqualTo(11L);
+    }
+
+    @Test
+    void shouldRejectCursorOfAnotherSort() {
+        var token = FileCursor.after(testListing, "fileSize", Sort.Direction.ASC).encode();
+
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> fileService.getFilesAfter(userId, null, token, 10, "filename", "asc", false));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.INVALID_CURSOR_ERROR);
     }
 
     @Test
     void shouldRenameFile() {
         when(fileRepository.findById(fileId)).thenReturn(Optional.of(testFileEntity));
-        when(s3Client.copyObject(any(CopyObjectRequest.class))).thenReturn(CopyObjectResponse.builder().build());
-        when(s3Client.deleteObject(any(DeleteObjectRequest.class))).thenReturn(DeleteObjectResponse.builder().build());
 
         FileEntityDTO updatedFile = fileService.updateFileName(fileId, newFileName, userId);
 
         assertThat(updatedFile.getFilename()).isEqualTo(newFileName);
-        verify(fileRepository, times(1)).save(any(FileEntity.class));
+        verify(fileRepository, times(1)).rename(testFileEntity);
+        verify(fileRepository, never()).save(any(FileEntity.class));
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void shouldKeepLegacyObjectKeyOnRename() {
+        when(fileRepository.findById(fileId)).thenReturn(Optional.of(testFileEntity));
+
+        fileService.updateFileName(fileId, newFileName, userId);
+
+        assertThat(testFileEntity.getObjectKey()).isEqualTo(fileKey);
+        assertThat(FileService.objectKey(testFileEntity)).isEqualTo(fileKey);
+    }
+
+    @Test
+    void shouldHidePrivateFilesOfOtherUsers() {
+        testFileEntity.setPublic(false);
+        when(fileRepository.findById(fileId)).thenReturn(Optional.of(testFileEntity));
+
+        assertThat(fileService.getReadableFile(fileId, userId)).isSameAs(testFileEntity);
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> fileService.getReadableFile(fileId, "otherUser"));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.FILE_NOT_FOUND_ERROR);
+    }
+
+    @Test
+    void shouldRequestByteRangeOfStoredObject() {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(null);
+
+        fileService.openContent(testFileEntity, 6L, 10L);
+
+        var requestCaptor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().key()).isEqualTo(fileKey);
+        assertThat(requestCaptor.getValue().range()).isEqualTo("bytes=6-10");
     }
 
     @Test
@@ -115,26 +294,169 @@ class FileServiceTest {
 
     @Test
     void shouldGetUploadStatus() throws Exception {
+        var content = "test content".getBytes();
         when(mockFile.getOriginalFilename()).thenReturn("testfile.txt");
-        when(mockFile.getBytes()).thenReturn("test content".getBytes());
-        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream("test content".getBytes()));
+        when(mockFile.getSize()).thenReturn((long) content.length);
+        when(mockFile.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        doAnswer(invocation -> invocation.getArgument(1, InputStream.class).readAllBytes())
+                .when(multipartUploader).upload(anyString(), any(), anyLong(), any(), any());
 
-        fileService.uploadFileAsync(fileId, userId, mockFile, true, tags);
+        var fileHash = fileService.generateFileHash(mockFile);
+        fileService.uploadFileAsync(fileId, userId, mockFile, fileHash, true, tags);
 
         Awaitility.await()
                 .atMost(1, TimeUnit.SECONDS)
                 .pollInterval(100, TimeUnit.MILLISECONDS)
                 .untilAsserted(() -> assertThat(fileService.getUploadStatus(fileId)).isEqualTo(Constants.STATUS_COMPLETED));
+        verify(mockFile, never()).getBytes();
+        verify(mockFile, times(2)).getInputStream();
+        verify(multipartUploader, times(1)).upload(eq(fileId), any(), anyLong(), any(), eq(fileHash));
+    }
+
+    @Test
+    void shouldTimeUploadStages() throws Exception {
+        var content = "test content".getBytes();
+        when(mockFile.getOriginalFilename()).thenReturn("testfile.txt");
+        when(mockFile.getSize()).thenReturn((long) content.length);
+        when(mockFile.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        doAnswer(invocation -> invocation.getArgument(1, InputStream.class).readAllBytes())
+                .when(multipartUploader).upload(anyString(), any(), anyLong(), any(), any());
+
+        var fileHash = fileService.generateFileHash(mockFile);
+        fileService.uploadFileAsync(fileId, userId, mockFile, fileHash, true, tags);
+
+        for (var stage : List.of(UploadMetrics.HASH, UploadMetrics.PUT, UploadMetrics.SAVE)) {
+            assertThat(meterRegistry.get("storage.upload.stage").tag("stage", stage).tag("outcome", "success").timer().count())
+                    .isEqualTo(1);
+        }
+        assertThat(meterRegistry.get("storage.upload.bytes").counter().count()).isEqualTo(content.length);
+        assertThat(meterRegistry.get("storage.upload.throughput").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPublishUploadStatusTransitions() throws Exception {
+        var content = "test content".getBytes();
+        when(mockFile.getOriginalFilename()).thenReturn("testfile.txt");
+        when(mockFile.getSize()).thenReturn((long) content.length);
+        when(mockFile.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        doAnswer(invocation -> invocation.getArgument(1, InputStream.class).readAllBytes())
+                .when(multipartUploader).upload(anyString(), any(), anyLong(), any(), any());
+
+        var fileHash = fileService.generateFileHash(mockFile);
+        fileService.uploadFileAsync(fileId, userId, mockFile, fileHash, true, tags);
+
+        var inOrder = inOrder(eventPublisher);
+        inOrder.verify(eventPublisher).publishEvent(new UploadStatusEvent(fileId, userId, Constants.STATUS_IN_PROGRESS));
+        inOrder.verify(eventPublisher).publishEvent(new UploadStatusEvent(fileId, userId, Constants.STATUS_COMPLETED));
+    }
+
+    @Test
+    void shouldFailUploadWhenStorageRejectsChecksum() throws Exception {
+        var content = "test content".getBytes();
+        when(mockFile.getOriginalFilename()).thenReturn("testfile.txt");
+        when(mockFile.getSize()).thenReturn((long) content.length);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(content));
+        doThrow(S3Exception.builder().message("BadDigest").statusCode(400).build())
+                .when(multipartUploader).upload(anyString(), any(), anyLong(), any(), eq("otherHash"));
+
+        assertThrows(RuntimeException.class,
+                () -> fileService.uploadFileAsync(fileId, userId, mockFile, "otherHash", true, tags));
+
+        assertThat(fileService.getUploadStatus(fileId)).isEqualTo(Constants.STATUS_FAILED);
+        verify(fileRepository, never()).save(any(FileEntity.class));
+        assertThat(meterRegistry.get("storage.upload.stage").tag("stage", UploadMetrics.PUT).tag("outcome", "failure").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("storage.upload.bytes").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldUploadWithoutBlockingWhenEnabled() throws Exception {
+        ReflectionTestUtils.setField(fileService, "nonBlocking", true);
+        var file = DetachedMultipartFile.detach(new MockMultipartFile("file", "test.txt", "text/plain", "test content".getBytes()));
+        var transfer = new CompletableFuture<Void>();
+        when(asyncObjectStorage.upload(eq(fileId), eq(file.getPath()), eq("text/plain"), eq("hash123"))).thenReturn(transfer);
+
+        var upload = fileService.uploadFileNonBlocking(fileId, userId, file, "hash123", true, tags);
+
+        assertThat(fileService.getUploadStatus(fileId)).isEqualTo(Constants.STATUS_IN_PROGRESS);
+        verify(fileRepository, never()).save(any(FileEntity.class));
+
+        transfer.complete(null);
+
+        assertThat(upload.get(1, TimeUnit.SECONDS).getId()).isEqualTo(fileId);
+        assertThat(fileService.getUploadStatus(fileId)).isEqualTo(Constants.STATUS_COMPLETED);
+        assertThat(Files.exists(file.getPath())).isFalse();
+        verifyNoInteractions(multipartUploader);
+    }
+
+    @Test
+    void shouldFailNonBlockingUploadWhenStorageRejectsIt() throws Exception {
+        ReflectionTestUtils.setField(fileService, "nonBlocking", true);
+        var file = DetachedMultipartFile.detach(new MockMultipartFile("file", "test.txt", "text/plain", "test content".getBytes()));
+        when(asyncObjectStorage.upload(anyString(), any(), any(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().message("BadDigest").build()));
+
+        var upload = fileService.uploadFileNonBlocking(fileId, userId, file, "hash123", true, tags);
+
+        assertThat(upload).isCompletedExceptionally();
+        assertThat(fileService.getUploadStatus(fileId)).isEqualTo(Constants.STATUS_FAILED);
+        verify(fileRepository, never()).save(any(FileEntity.class));
+    }
+
+    @Test
+    void shouldDeleteObjectWhenNonBlockingUploadIsNotRegistered() throws Exception {
+        ReflectionTestUtils.setField(fileService, "nonBlocking", true);
+        var file = DetachedMultipartFile.detach(new MockMultipartFile("file", "test.txt", "text/plain", "test content".getBytes()));
+        when(asyncObjectStorage.upload(eq(fileId), eq(file.getPath()), eq("text/plain"), eq("hash123")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(fileRepository.save(any(FileEntity.class))).thenThrow(new DuplicateKeyException("duplicate"));
+        when(asyncObjectStorage.delete(fileId)).thenReturn(CompletableFuture.completedFuture(null));
+
+        var upload = fileService.uploadFileNonBlocking(fileId, userId, file, "hash123", true, tags);
+
+        assertThat(upload).isCompletedExceptionally();
+        assertThat(fileService.getUploadStatus(fileId)).isEqualTo(Constants.STATUS_FAILED);
+        verify(asyncObjectStorage, times(1)).delete(fileId);
+    }
+
+    @Test
+    void shouldRejectNonBlockingUploadWhenTooManyAreInFlight() throws Exception {
+        ReflectionTestUtils.setField(fileService, "nonBlocking", true);
+        var file = DetachedMultipartFile.detach(new MockMultipartFile("file", "test.txt", "text/plain", "test content".getBytes()));
+        when(asyncObjectStorage.upload(anyString(), any(), any(), anyString()))
+                .thenThrow(new TaskRejectedException("Too many non-blocking uploads in flight"));
+
+        assertThrows(TaskRejectedException.class,
+                () -> fileService.uploadFileNonBlocking(fileId, userId, file, "hash123", true, tags));
+
+        assertThat(fileService.getUploadStatus(fileId)).isEqualTo(Constants.STATUS_FAILED);
+        verify(fileRepository, never()).save(any(FileEntity.class));
+        file.delete();
     }
 
     @Test
     void shouldDeleteFile() {
         when(fileRepository.findById(fileId)).thenReturn(Optional.of(testFileEntity));
         when(s3Client.deleteObject(any(DeleteObjectRequest.class))).thenReturn(DeleteObjectResponse.builder().build());
+        when(fileRepository.claimForDelete(eq(List.of(fileId)), eq(userId), anyString())).thenReturn(List.of(fileId));
+        when(fileRepository.removeClaimed(eq(List.of(fileId)), anyString())).thenReturn(1L);
 
         fileService.deleteFile(fileId, userId);
 
-        verify(fileRepository, times(1)).deleteById(fileId);
+        verify(fileRepository, times(1)).removeClaimed(eq(List.of(fileId)), anyString());
+        verify(tagFacetService, times(1)).filesRemoved(List.of(testFileEntity));
+    }
+
+    @Test
+    void shouldLeaveContentToConcurrentDelete() {
+        testFileEntity.setContentAddressed(true);
+        when(fileRepository.findById(fileId)).thenReturn(Optional.of(testFileEntity));
+        when(fileRepository.claimForDelete(eq(List.of(fileId)), eq(userId), anyString())).thenReturn(List.of());
+
+        fileService.deleteFile(fileId, userId);
+
+        verify(fileRepository, never()).removeClaimed(anyCollection(), anyString());
+        verifyNoInteractions(blobService, tagFacetService, s3Client);
     }
 
     @Test
@@ -146,4 +468,100 @@ class FileServiceTest {
 
         assertThat(exception.getMessage()).isEqualTo(Constants.USER_IS_NOT_FILE_OWNER_ERROR);
     }
+
+    @Test
+    void shouldStoreKnownContentAsMetadataOnly() throws Exception {
+        ReflectionTestUtils.setField(fileService, "contentAddressable", true);
+        when(mockFile.getOriginalFilename()).thenReturn("testfile.txt");
+        when(blobService.acquire("hash123")).thenReturn(BlobEntity.builder().objectKey("blobs/hash123").refCount(2).build());
+
+        fileService.uploadFileAsync(fileId, userId, mockFile, "hash123", true, tags);
+
+        var fileCaptor = ArgumentCaptor.forClass(FileEntity.class);
+        verify(fileRepository, times(1)).save(fileCaptor.capture());
+        assertThat(fileCaptor.getValue().getObjectKey()).isEqualTo("blobs/hash123");
+        assertThat(fileCaptor.getValue().isContentAddressed()).isTrue();
+        verify(mockFile, never()).getInputStream();
+        verifyNoInteractions(multipartUploader);
+        assertThat(fileService.getUploadStatus(fileId)).isEqualTo(Constants.STATUS_COMPLETED);
+    }
+
+    @Test
+    void shouldDeleteOwnCopyWhenSameContentWasRegisteredConcurrently() throws Exception {
+        ReflectionTestUtils.setField(fileService, "contentAddressable", true);
+        var content = "test content".getBytes();
+        when(mockFile.getOriginalFilename()).thenReturn("testfile.txt");
+        when(mockFile.getSize()).thenReturn((long) content.length);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(content));
+        doAnswer(invocation -> invocation.getArgument(1, InputStream.class).readAllBytes())
+                .when(multipartUploader).upload(anyString(), any(), anyLong(), any(), any());
+        when(blobService.register(eq("hash123"), anyString(), anyLong()))
+                .thenReturn(BlobEntity.builder().objectKey("blobs/hash123/other").refCount(2).build());
+
+        fileService.uploadFileAsync(fileId, userId, mockFile, "hash123", true, tags);
+
+        var keyCaptor = ArgumentCaptor.forClass(String.class);
+        verify(multipartUploader).upload(keyCaptor.capture(), any(), anyLong(), any(), any());
+        var deleteCaptor = ArgumentCaptor.forClass(DeleteObjectRequest.class);
+        verify(s3Client, times(1)).deleteObject(deleteCaptor.capture());
+        assertThat(deleteCaptor.getValue().key()).isEqualTo(keyCaptor.getValue()).startsWith("blobs/hash123/");
+        var fileCaptor = ArgumentCaptor.forClass(FileEntity.class);
+        verify(fileRepository, times(1)).save(fileCaptor.capture());
+        assertThat(fileCaptor.getValue().getObjectKey()).isEqualTo("blobs/hash123/other");
+    }
+
+    @Test
+    void shouldReuseStoredBlobForUploadedObject() {
+        ReflectionTestUtils.setField(fileService, "contentAddressable", true);
+        when(blobService.acquire("hash123")).thenReturn(BlobEntity.builder().objectKey("blobs/abc").refCount(2).build());
+
+        fileService.registerStoredObject(testFileEntity, fileId);
+
+        assertThat(testFileEntity.getObjectKey()).isEqualTo("blobs/abc");
+        assertThat(testFileEntity.isContentAddressed()).isTrue();
+        verify(s3Client, times(1)).deleteObject(any(DeleteObjectRequest.class));
+        verify(blobService, never()).register(anyString(), anyString(), anyLong());
+        verify(fileRepository, times(1)).save(testFileEntity);
+    }
+
+    @Test
+    void shouldRegisterUploadedObjectUnderItsKey() {
+        fileService.registerStoredObject(testFileEntity, fileId);
+
+        assertThat(testFileEntity.getObjectKey()).isEqualTo(fileId);
+        assertThat(testFileEntity.getDownloadUrl()).isEqualTo("/files/" + fileId + "/content");
+        verifyNoInteractions(blobService, s3Client);
+        verify(tagFacetService, times(1)).filesAdded(List.of(testFileEntity));
+    }
+
+    @Test
+    void shouldKeepSharedBlobUntilLastReferenceIsDeleted() {
+        testFileEntity.setContentAddressed(true);
+        testFileEntity.setObjectKey("blobs/hash123");
+        when(fileRepository.findById(fileId)).thenReturn(Optional.of(testFileEntity));
+        when(blobService.release("hash123")).thenReturn(null);
+        when(fileRepository.claimForDelete(eq(List.of(fileId)), eq(userId), anyString())).thenReturn(List.of(fileId));
+        when(fileRepository.removeClaimed(eq(List.of(fileId)), anyString())).thenReturn(1L);
+
+        fileService.deleteFile(fileId, userId);
+
+        verify(fileRepository, times(1)).removeClaimed(eq(List.of(fileId)), anyString());
+        verify(s3Client, never()).deleteObject(any(DeleteObjectRequest.class));
+    }
+
+    @Test
+    void shouldDeleteBlobWithLastReference() {
+        testFileEntity.setContentAddressed(true);
+        testFileEntity.setObjectKey("blobs/hash123");
+        when(fileRepository.findById(fileId)).thenReturn(Optional.of(testFileEntity));
+        when(blobService.release("hash123")).thenReturn("blobs/hash123");
+        when(fileRepository.claimForDelete(eq(List.of(fileId)), eq(userId), anyString())).thenReturn(List.of(fileId));
+        when(fileRepository.removeClaimed(eq(List.of(fileId)), anyString())).thenReturn(1L);
+
+        fileService.deleteFile(fileId, userId);
+
+        var deleteCaptor = ArgumentCaptor.forClass(DeleteObjectRequest.class);
+        verify(s3Client, times(1)).deleteObject(deleteCaptor.capture());
+        assertThat(deleteCaptor.getValue().key()).isEqualTo("blobs/hash123");
+    }
 }
@@ -0,0 +1,78 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryUploadStatusStoreTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void shouldEvictOldestEntriesBeyondMaxSize() {
+        var store = new InMemoryUploadStatusStore(2, Duration.ofHours(1), clock);
+
+        store.put("file-1", Constants.STATUS_COMPLETED);
+        store.put("file-2", Constants.STATUS_COMPLETED);
+        store.put("file-3", Constants.STATUS_IN_PROGRESS);
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.get("file-1")).isNull();
+        assertThat(store.get("file-3")).isEqualTo(Constants.STATUS_IN_PROGRESS);
+    }
+
+    @Test
+    void shouldKeepRecentlyUpdatedEntries() {
+        var store = new InMemoryUploadStatusStore(2, Duration.ofHours(1), clock);
+
+        store.put("file-1", Constants.STATUS_IN_PROGRESS);
+        store.put("file-2", Constants.STATUS_COMPLETED);
+        store.put("file-1", Constants.STATUS_COMPLETED);
+        store.put("file-3", Constants.STATUS_IN_PROGRESS);
+
+        assertThat(store.get("file-1")).isEqualTo(Constants.STATUS_COMPLETED);
+        assertThat(store.get("file-2")).isNull();
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTtl() {
+        var store = new InMemoryUploadStatusStore(100, Duration.ofMinutes(10), clock);
+
+        store.put("file-1", Constants.STATUS_COMPLETED);
+        clock.advance(Duration.ofMinutes(11));
+        store.put("file-2", Constants.STATUS_IN_PROGRESS);
+
+        assertThat(store.get("file-1")).isNull();
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
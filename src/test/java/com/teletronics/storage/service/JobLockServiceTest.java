@@ -0,0 +1,54 @@
+package com.teletronics.storage.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobLockServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private JobLockService jobLockService;
+
+    @Test
+    void shouldAcquireFreeLease() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq(JobLockService.COLLECTION))).thenReturn(new Document());
+
+        assertThat(jobLockService.acquire("job", Duration.ofMinutes(5))).isNotNull();
+    }
+
+    @Test
+    void shouldNotAcquireLeaseHeldElsewhere() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq(JobLockService.COLLECTION))).thenThrow(new DuplicateKeyException("held"));
+
+        assertThat(jobLockService.acquire("job", Duration.ofMinutes(5))).isNull();
+    }
+
+    @Test
+    void shouldReportLostLeaseOnExtend() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(JobLockService.COLLECTION)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertThat(jobLockService.extend("job", "token", Duration.ofMinutes(5))).isFalse();
+    }
+}
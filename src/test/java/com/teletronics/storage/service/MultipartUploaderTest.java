@@ -0,0 +1,183 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MultipartUploaderTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    private MultipartUploader multipartUploader;
+
+    private final String fileKey = "user123/big.bin";
+    private final int partSize = (int) MultipartUploader.MIN_PART_SIZE;
+
+    @BeforeEach
+    void setUp() {
+        multipartUploader = new MultipartUploader(s3Client, Executors.newFixedThreadPool(4), 4);
+        ReflectionTestUtils.setField(multipartUploader, "s3Bucket", "teletronics");
+        ReflectionTestUtils.setField(multipartUploader, "partSize", DataSize.ofBytes(partSize));
+        ReflectionTestUtils.setField(multipartUploader, "partConcurrency", 2);
+        ReflectionTestUtils.setField(multipartUploader, "partRetries", 1);
+    }
+
+    @Test
+    void shouldUseSinglePutForSmallFiles() {
+        var content = "small file".getBytes();
+
+        multipartUploader.upload(fileKey, new ByteArrayInputStream(content), content.length, "text/plain");
+
+        verify(s3Client, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void shouldUploadLargeFilesInParts() {
+        var content = new byte[partSize * 2 + 10];
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+
+        multipartUploader.upload(fileKey, new ByteArrayInputStream(content), content.length, "application/octet-stream");
+
+        var partCaptor = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(s3Client, times(3)).uploadPart(partCaptor.capture(), any(RequestBody.class));
+        assertThat(partCaptor.getAllValues())
+                .extracting(UploadPartRequest::contentLength)
+                .containsExactlyInAnyOrder((long) partSize, (long) partSize, 10L);
+
+        var completeCaptor = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client, times(1)).completeMultipartUpload(completeCaptor.capture());
+        assertThat(completeCaptor.getValue().multipartUpload().parts())
+                .extracting(CompletedPart::partNumber)
+                .containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void shouldRetryOnlyTheFailedPart() {
+        var content = new byte[partSize + 10];
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(argThat((UploadPartRequest request) -> request != null && request.partNumber() == 1), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag-1").build());
+        when(s3Client.uploadPart(argThat((UploadPartRequest request) -> request != null && request.partNumber() == 2), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("boom").build())
+                .thenReturn(UploadPartResponse.builder().eTag("etag-2").build());
+
+        multipartUploader.upload(fileKey, new ByteArrayInputStream(content), content.length, null);
+
+        verify(s3Client, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(s3Client, times(1)).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void shouldAbortMultipartUploadOnFailure() {
+        var content = new byte[partSize + 1];
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("boom").build());
+
+        var exception = assertThrows(RuntimeException.class,
+                () -> multipartUploader.upload(fileKey, new ByteArrayInputStream(content), content.length, null));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.FILE_UPLOAD_ERROR);
+        verify(s3Client, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void shouldCompleteMultipartUploadMatchingItsHash() throws Exception {
+        var content = new byte[partSize + 10];
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+
+        multipartUploader.upload(fileKey, new ByteArrayInputStream(content), content.length, null, sha256(content));
+
+        verify(s3Client, times(1)).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void shouldAbortMultipartUploadNotMatchingItsHash() throws Exception {
+        var content = new byte[partSize + 10];
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+
+        var exception = assertThrows(RuntimeException.class, () -> multipartUploader.upload(fileKey,
+                new ByteArrayInputStream(content), content.length, null, sha256("other".getBytes())));
+
+        assertThat(exception.getCause()).hasMessage(Constants.FILE_HASH_MISMATCH_ERROR);
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(s3Client, times(1)).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void shouldGrowPartSizeToStayWithinPartLimit() {
+        var hugeFile = DataSize.ofGigabytes(500).toBytes();
+
+        assertThat((long) multipartUploader.partSizeFor(hugeFile) * MultipartUploader.MAX_PARTS)
+                .isGreaterThanOrEqualTo(hugeFile);
+    }
+
+    @Test
+    void shouldCopySmallObjectsInOneRequest() {
+        multipartUploader.copy("user123/old.bin", "file-1", partSize);
+
+        verify(s3Client, times(1)).copyObject(any(CopyObjectRequest.class));
+        verify(s3Client, never()).uploadPartCopy(any(UploadPartCopyRequest.class));
+    }
+
+    @Test
+    void shouldCopyObjectsOverSingleCopyLimitInParts() {
+        var size = MultipartUploader.MAX_SINGLE_COPY_SIZE + 1;
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentType("video/mp4").build());
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPartCopy(any(UploadPartCopyRequest.class)))
+                .thenReturn(UploadPartCopyResponse.builder().copyPartResult(CopyPartResult.builder().eTag("etag").build()).build());
+
+        multipartUploader.copy("user123/old.bin", "file-1", size);
+
+        var partCaptor = ArgumentCaptor.forClass(UploadPartCopyRequest.class);
+        verify(s3Client, atLeast(2)).uploadPartCopy(partCaptor.capture());
+        var lastPart = partCaptor.getAllValues().get(partCaptor.getAllValues().size() - 1);
+        assertThat(lastPart.copySourceRange()).endsWith("-" + (size - 1));
+        verify(s3Client, times(1)).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        var createCaptor = ArgumentCaptor.forClass(CreateMultipartUploadRequest.class);
+        verify(s3Client).createMultipartUpload(createCaptor.capture());
+        assertThat(createCaptor.getValue().contentType()).isEqualTo("video/mp4");
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,228 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.PresignedUploadEntity;
+import com.teletronics.storage.repository.PresignedUploadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresignedTransferServiceTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    @Mock
+    private PresignedUploadRepository presignedUploadRepository;
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private PresignedTransferService presignedTransferService;
+
+    private final String uploadId = "upload-1";
+    private final String userId = "user123";
+    private PresignedUploadEntity upload;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(presignedTransferService, "s3Bucket", "teletronics");
+        ReflectionTestUtils.setField(presignedTransferService, "uploadTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(presignedTransferService, "downloadTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(presignedTransferService, "completionGrace", Duration.ofHours(1));
+
+        upload = PresignedUploadEntity.builder()
+                .id(uploadId)
+                .ownerId(userId)
+                .filename("video.mp4")
+                .objectKey(uploadId)
+                .contentType("video/mp4")
+                .fileSize(1024)
+                .fileHash("hash123")
+                .isPublic(true)
+                .tags(Set.of())
+                .createdAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(900))
+                .build();
+    }
+
+    @Test
+    void shouldPresignPutWithDeclaredChecksum() throws Exception {
+        var presigned = mock(PresignedPutObjectRequest.class);
+        when(presigned.url()).thenReturn(new URL("http://localhost:9000/teletronics/key"));
+        when(presigned.expiration()).thenReturn(Instant.now().plusSeconds(900));
+        when(presigned.signedHeaders()).thenReturn(Map.of(
+                "host", List.of("localhost:9000"),
+                "x-amz-checksum-sha256", List.of("hash123")));
+        when(s3Presigner.presignPutObject(any(PutObjectPresignRequest.class))).thenReturn(presigned);
+        when(presignedUploadRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var created = presignedTransferService.createUpload(userId, "my video.mp4", "video/mp4", 1024, "hash123", true, Set.of());
+
+        var requestCaptor = ArgumentCaptor.forClass(PutObjectPresignRequest.class);
+        verify(s3Presigner).presignPutObject(requestCaptor.capture());
+        assertThat(requestCaptor.getValue().putObjectRequest().checksumSHA256()).isEqualTo("hash123");
+        assertThat(requestCaptor.getValue().putObjectRequest().key()).isEqualTo(created.upload().getId());
+        assertThat(created.upload().getFilename()).isEqualTo("my_video.mp4");
+        assertThat(created.headers()).containsOnlyKeys("x-amz-checksum-sha256");
+    }
+
+    @Test
+    void shouldRejectUploadsOverSinglePutLimit() {
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> presignedTransferService.createUpload(userId, "huge.bin", null,
+                        AsyncObjectStorage.MAX_SINGLE_PUT_SIZE + 1, "hash123", true, Set.of()));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.PRESIGNED_UPLOAD_SIZE_ERROR);
+        verifyNoInteractions(s3Presigner);
+    }
+
+    @Test
+    void shouldRegisterVerifiedUpload() throws Exception {
+        when(presignedUploadRepository.findById(uploadId)).thenReturn(Optional.of(upload));
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(1024L).checksumSHA256("hash123").build());
+
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(PresignedUploadEntity.class))).thenReturn(upload);
+
+        presignedTransferService.completeUpload(uploadId, userId);
+
+        var fileCaptor = ArgumentCaptor.forClass(FileEntity.class);
+        verify(fileService, times(1)).registerStoredObject(fileCaptor.capture(), eq(uploadId));
+        assertThat(fileCaptor.getValue().getId()).isEqualTo(uploadId);
+        assertThat(fileCaptor.getValue().getFileHash()).isEqualTo("hash123");
+        verify(s3Client, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void shouldRegisterUploadOnlyOnceWhenCompletedConcurrently() {
+        when(presignedUploadRepository.findById(uploadId)).thenReturn(Optional.of(upload));
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(1024L).checksumSHA256("hash123").build());
+        // another completion claimed the record after it was read
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(PresignedUploadEntity.class))).thenReturn(null);
+
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> presignedTransferService.completeUpload(uploadId, userId));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.PRESIGNED_UPLOAD_NOT_FOUND_ERROR);
+        verify(fileService, never()).registerStoredObject(any(), anyString());
+        verify(s3Client, never()).deleteObject(any(DeleteObjectRequest.class));
+    }
+
+    @Test
+    void shouldKeepUploadPendingWhenRegistrationFails() {
+        when(presignedUploadRepository.findById(uploadId)).thenReturn(Optional.of(upload));
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(1024L).checksumSHA256("hash123").build());
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(PresignedUploadEntity.class))).thenReturn(upload);
+        when(fileService.registerStoredObject(any(FileEntity.class), eq(uploadId))).thenThrow(new RuntimeException("boom"));
+
+        assertThrows(RuntimeException.class, () -> presignedTransferService.completeUpload(uploadId, userId));
+
+        verify(presignedUploadRepository, times(1)).save(upload);
+        verify(s3Client, never()).deleteObject(any(DeleteObjectRequest.class));
+    }
+
+    @Test
+    void shouldNotReadBackUploadWhenStorageKeepsNoChecksum() {
+        when(presignedUploadRepository.findById(uploadId)).thenReturn(Optional.of(upload));
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(1024L).build());
+
+        assertThrows(IllegalStateException.class, () -> presignedTransferService.completeUpload(uploadId, userId));
+
+        verify(s3Client, never()).getObject(any(GetObjectRequest.class));
+        verify(s3Client, times(1)).deleteObject(any(DeleteObjectRequest.class));
+        verify(fileService, never()).registerStoredObject(any(), anyString());
+    }
+
+    @Test
+    void shouldDiscardUploadThatDoesNotMatchDeclaredSize() {
+        when(presignedUploadRepository.findById(uploadId)).thenReturn(Optional.of(upload));
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(HeadObjectResponse.builder().contentLength(10L).checksumSHA256("hash123").build());
+
+        var exception = assertThrows(IllegalStateException.class,
+                () -> presignedTransferService.completeUpload(uploadId, userId));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.FILE_HASH_MISMATCH_ERROR);
+        verify(s3Client, times(1)).deleteObject(any(DeleteObjectRequest.class));
+        verify(fileService, never()).registerStoredObject(any(), anyString());
+    }
+
+    @Test
+    void shouldReportMissingContent() {
+        when(presignedUploadRepository.findById(uploadId)).thenReturn(Optional.of(upload));
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenThrow(NoSuchKeyException.builder().build());
+
+        var exception = assertThrows(IllegalStateException.class,
+                () -> presignedTransferService.completeUpload(uploadId, userId));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.UPLOADED_OBJECT_NOT_FOUND_ERROR);
+        verify(presignedUploadRepository, never()).deleteById(uploadId);
+    }
+
+    @Test
+    void shouldNotCompleteUploadPastGracePeriod() {
+        upload.setExpiresAt(Instant.now().minus(Duration.ofHours(2)));
+        when(presignedUploadRepository.findById(uploadId)).thenReturn(Optional.of(upload));
+
+        var exception = assertThrows(IllegalStateException.class,
+                () -> presignedTransferService.completeUpload(uploadId, userId));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.PRESIGNED_UPLOAD_EXPIRED_ERROR);
+        verify(s3Client, times(1)).deleteObject(any(DeleteObjectRequest.class));
+        verify(presignedUploadRepository, times(1)).deleteById(uploadId);
+        verify(fileService, never()).registerStoredObject(any(), anyString());
+    }
+
+    @Test
+    void shouldSweepObjectsOfUploadsNeverCompleted() {
+        var completed = PresignedUploadEntity.builder().id("upload-2").objectKey("upload-2").build();
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(PresignedUploadEntity.class)))
+                .thenReturn(upload)
+                .thenReturn(completed)
+                .thenReturn(null);
+        when(mongoTemplate.exists(any(Query.class), eq(FileEntity.class))).thenReturn(false, true);
+
+        presignedTransferService.sweepExpiredUploads();
+
+        var deleteCaptor = ArgumentCaptor.forClass(DeleteObjectRequest.class);
+        verify(s3Client, times(1)).deleteObject(deleteCaptor.capture());
+        assertThat(deleteCaptor.getValue().key()).isEqualTo(uploadId);
+    }
+}
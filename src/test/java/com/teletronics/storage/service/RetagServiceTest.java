@@ -0,0 +1,165 @@
+package com.teletronics.storage.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.TagRemovalEntity;
+import com.teletronics.storage.repository.FileSelection;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetagServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private TagFacetService tagFacetService;
+
+    @InjectMocks
+    private RetagService retagService;
+
+    private final String userId = "user123";
+
+    @Test
+    void shouldAddAndPullInSeparateUpdates() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, FileEntity.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 5, 0, 7, List.of(), List.of()));
+
+        var updated = retagService.retag(FileSelection.of(userId, null, "java", false), Set.of("go"), Set.of("java"));
+
+        assertThat(updated).isEqualTo(7);
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        var updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateMulti(queryCaptor.capture(), updateCaptor.capture());
+        assertThat(queryCaptor.getAllValues().get(0).getQueryObject())
+                .isEqualTo(new Document("ownerId", userId).append("tags", "java"));
+        assertThat(updateCaptor.getAllValues().get(0).getUpdateObject()).containsKey("$pullAll");
+        assertThat(updateCaptor.getAllValues().get(1).getUpdateObject()).containsKey("$addToSet");
+    }
+
+    @Test
+    void shouldOnlyAddTagsToFilesWithinTagLimit() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, FileEntity.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+
+        retagService.retag(FileSelection.of(userId, null, "java", false), Set.of("go"), Set.of());
+
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations).updateMulti(queryCaptor.capture(), any(Update.class));
+        assertThat(queryCaptor.getValue().getQueryObject().toJson())
+                .contains("$expr")
+                .contains("\"$lte\": [{\"$size\"")
+                .contains(", " + Constants.MAX_TAGS + "]");
+    }
+
+    @Test
+    void shouldRejectAddingMoreTagsThanAllowed() {
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> retagService.retag(FileSelection.of(userId, null, null, true), Set.of("a", "b", "c", "d", "e", "f"), Set.of()));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.TOO_MANY_TAGS_ERROR);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void shouldSplitIdSelectionIntoBatches() {
+        var ids = IntStream.range(0, 2500).mapToObj(i -> "id-" + i).toList();
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, FileEntity.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+
+        retagService.retag(FileSelection.of(userId, ids, null, false), Set.of("go"), Set.of());
+
+        verify(bulkOperations, times(3)).updateMulti(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void shouldRequireTagsToChange() {
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> retagService.retag(FileSelection.of(userId, null, null, true), Set.of(), Set.of()));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.RETAG_EMPTY_ERROR);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void shouldPullDeletedTagFromAllFiles() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, FileEntity.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 3, 0, 3, List.of(), List.of()));
+
+        retagService.removeTagFromAllFilesAsync("java");
+
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations).updateMulti(queryCaptor.capture(), any(Update.class));
+        assertThat(queryCaptor.getValue().getQueryObject()).isEqualTo(new Document("tags", "java"));
+        verify(tagFacetService, times(1)).removeTag("java");
+        var removalCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removalCaptor.capture(), eq(TagRemovalEntity.class));
+        assertThat(removalCaptor.getValue().getQueryObject()).containsEntry("_id", "java").containsKey("tagDeletedAt");
+    }
+
+    @Test
+    void shouldRetryTagRemovalsDue() {
+        ReflectionTestUtils.setField(retagService, "removalRetryInterval", Duration.ofMinutes(5));
+        when(mongoTemplate.find(any(Query.class), eq(TagRemovalEntity.class)))
+                .thenReturn(List.of(TagRemovalEntity.builder().tag("java").build()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, FileEntity.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        retagService.retryTagRemovals();
+
+        verify(bulkOperations, times(1)).updateMulti(any(Query.class), any(Update.class));
+        verify(tagFacetService, times(1)).removeTag("java");
+    }
+
+    @Test
+    void shouldCountFacetChangesBeforeRetagging() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, FileEntity.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 10, 0, 10, List.of(), List.of()));
+        // 6 public and 4 private files are selected, all carry "java" and 2 public ones carry "go"
+        when(mongoTemplate.count(any(Query.class), eq(FileEntity.class))).thenAnswer(invocation -> {
+            var query = invocation.getArgument(0, Query.class).getQueryObject().toJson();
+            var isPublic = query.contains("\"isPublic\": true");
+            if (query.contains("\"tags\": \"go\"")) {
+                return isPublic ? 2L : 0L;
+            }
+            return isPublic ? 6L : 4L;
+        });
+
+        retagService.retag(FileSelection.of(userId, null, null, true), Set.of("go"), Set.of("java"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<TagFacetService.Facet, Long>> deltaCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(tagFacetService).increment(deltaCaptor.capture());
+        assertThat(deltaCaptor.getValue())
+                .containsEntry(new TagFacetService.Facet("go", null), 4L)
+                .containsEntry(new TagFacetService.Facet("go", userId), 4L)
+                .containsEntry(new TagFacetService.Facet("java", null), -6L)
+                .containsEntry(new TagFacetService.Facet("java", userId), -4L);
+    }
+}
@@ -0,0 +1,147 @@
+package com.teletronics.storage.service;
+
+import com.mongodb.client.result.DeleteResult;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.TagFacetEntity;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TagFacetServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TagRegistry tagRegistry;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private JobLockService jobLockService;
+
+    @InjectMocks
+    private TagFacetService tagFacetService;
+
+    private final String userId = "user123";
+
+    @Test
+    void shouldSumPublicAndOwnCountsOfKnownTags() {
+        when(mongoTemplate.find(any(Query.class), eq(TagFacetEntity.class))).thenReturn(List.of(
+                TagFacetEntity.builder().tag("java").files(10).build(),
+                TagFacetEntity.builder().tag("java").ownerId(userId).files(2).build(),
+                TagFacetEntity.builder().tag("deleted").files(5).build()));
+        when(tagRegistry.getTags()).thenReturn(List.of("go", "java"));
+
+        var counts = tagFacetService.getCounts(userId);
+
+        assertThat(counts).containsExactly(Map.entry("go", 0L), Map.entry("java", 12L));
+    }
+
+    @Test
+    void shouldIncrementPublicAndOwnerScopes() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TagFacetEntity.class)).thenReturn(bulkOperations);
+
+        tagFacetService.filesAdded(List.of(
+                FileEntity.builder().ownerId(userId).isPublic(true).tags(Set.of("java")).build(),
+                FileEntity.builder().ownerId(userId).isPublic(true).tags(Set.of("java")).build(),
+                FileEntity.builder().ownerId(userId).tags(Set.of("java")).build(),
+                FileEntity.builder().ownerId(userId).build()));
+
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        var updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).upsert(queryCaptor.capture(), updateCaptor.capture());
+        verify(bulkOperations, times(1)).execute();
+        for (var i = 0; i < 2; i++) {
+            var id = queryCaptor.getAllValues().get(i).getQueryObject().getString("_id");
+            var inc = updateCaptor.getAllValues().get(i).getUpdateObject().get("$inc", Document.class);
+            assertThat(inc.get("files")).isEqualTo(id.equals("p\0java") ? 2L : 1L);
+        }
+    }
+
+    @Test
+    void shouldSkipWriteWithoutTaggedFiles() {
+        tagFacetService.filesRemoved(List.of(FileEntity.builder().ownerId(userId).build()));
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void shouldRecountFacetsAndDropStaleOnes() {
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq(FileEntity.class), eq(Document.class)))
+                .thenReturn(Stream.of(
+                        new Document("_id", new Document("tags", "java").append("isPublic", true).append("ownerId", userId))
+                                .append("files", 3),
+                        new Document("_id", new Document("tags", "java").append("isPublic", true).append("ownerId", "other"))
+                                .append("files", 4),
+                        new Document("_id", new Document("tags", "java").append("isPublic", false).append("ownerId", userId))
+                                .append("files", 1)));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TagFacetEntity.class)).thenReturn(bulkOperations);
+        when(mongoTemplate.remove(any(Query.class), eq(TagFacetEntity.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        tagFacetService.rebuild();
+
+        var queryCaptor = ArgumentCaptor.forClass(Query.class);
+        var updateCaptor = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).upsert(queryCaptor.capture(), updateCaptor.capture());
+        for (var i = 0; i < 2; i++) {
+            var id = queryCaptor.getAllValues().get(i).getQueryObject().getString("_id");
+            var set = updateCaptor.getAllValues().get(i).getUpdateObject().get("$set", Document.class);
+            assertThat(set.get("files")).isEqualTo(id.equals("p\0java") ? 7L : 1L);
+        }
+        verify(mongoTemplate, times(1)).remove(any(Query.class), eq(TagFacetEntity.class));
+    }
+
+    @Test
+    void shouldSkipScheduledRebuildThatRanOnAnotherReplica() {
+        ReflectionTestUtils.setField(tagFacetService, "rebuildInterval", Duration.ofMinutes(15));
+        when(jobLockService.acquire(TagFacetService.SCHEDULED_REBUILD_LOCK, Duration.ofMinutes(15))).thenReturn(null);
+
+        tagFacetService.scheduledRebuild();
+
+        verify(jobLockService, never()).acquire(eq(TagFacetService.REBUILD_LOCK), any(Duration.class));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void shouldSkipScheduledRebuildWhileOneIsRunning() {
+        ReflectionTestUtils.setField(tagFacetService, "rebuildInterval", Duration.ofMinutes(15));
+        when(jobLockService.acquire(TagFacetService.SCHEDULED_REBUILD_LOCK, Duration.ofMinutes(15))).thenReturn("scheduled");
+        when(jobLockService.acquire(TagFacetService.REBUILD_LOCK, Duration.ofMinutes(15))).thenReturn(null);
+
+        tagFacetService.scheduledRebuild();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void shouldReleaseRebuildLockWhenRebuildFails() {
+        when(mongoTemplate.aggregateStream(any(Aggregation.class), eq(FileEntity.class), eq(Document.class)))
+                .thenThrow(new RuntimeException("mongo down"));
+
+        tagFacetService.rebuildAsync("token");
+
+        verify(jobLockService, times(1)).release(TagFacetService.REBUILD_LOCK, "token");
+    }
+}
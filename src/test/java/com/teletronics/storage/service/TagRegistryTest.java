@@ -0,0 +1,92 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.model.TagEntity;
+import com.teletronics.storage.model.TagVersionEntity;
+import com.teletronics.storage.repository.TagRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TagRegistryTest {
+
+    @Mock
+    private TagRepository tagRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private TagRegistry tagRegistry;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.findById(TagRegistry.VERSION_ID, TagVersionEntity.class))
+                .thenReturn(new TagVersionEntity(TagRegistry.VERSION_ID, 1));
+        when(tagRepository.findAll()).thenReturn(List.of(new TagEntity("java"), new TagEntity("go")));
+        tagRegistry.load();
+    }
+
+    @Test
+    void shouldAnswerKnownTagsWithoutDatabase() {
+        clearInvocations(mongoTemplate, tagRepository);
+
+        assertThat(tagRegistry.getTags()).containsExactly("java", "go");
+        assertThat(tagRegistry.containsAll(Set.of("java", "GO"))).isTrue();
+        assertThat(tagRegistry.contains("java")).isTrue();
+
+        verifyNoInteractions(mongoTemplate, tagRepository);
+    }
+
+    @Test
+    void shouldNotReloadWhenVersionIsUnchanged() {
+        tagRegistry.poll();
+        assertThat(tagRegistry.contains("python")).isFalse();
+
+        verify(tagRepository, times(1)).findAll();
+    }
+
+    @Test
+    void shouldPickUpTagCreatedOnAnotherReplica() {
+        when(mongoTemplate.findById(TagRegistry.VERSION_ID, TagVersionEntity.class))
+                .thenReturn(new TagVersionEntity(TagRegistry.VERSION_ID, 2));
+        when(tagRepository.findAll()).thenReturn(List.of(new TagEntity("java"), new TagEntity("go"), new TagEntity("python")));
+
+        assertThat(tagRegistry.containsAll(Set.of("java", "python"))).isTrue();
+        assertThat(tagRegistry.getTags()).contains("python");
+    }
+
+    @Test
+    void shouldBumpVersionOnChange() {
+        when(mongoTemplate.findById(TagRegistry.VERSION_ID, TagVersionEntity.class))
+                .thenReturn(new TagVersionEntity(TagRegistry.VERSION_ID, 2));
+        when(tagRepository.findAll()).thenReturn(List.of(new TagEntity("java")));
+
+        tagRegistry.tagsChanged();
+
+        verify(mongoTemplate, times(1)).upsert(any(Query.class), any(Update.class), eq(TagVersionEntity.class));
+        assertThat(tagRegistry.getTags()).containsExactly("java");
+    }
+
+    @Test
+    void shouldKeepTagsWhenPollingFails() {
+        when(mongoTemplate.findById(TagRegistry.VERSION_ID, TagVersionEntity.class))
+                .thenThrow(new RuntimeException("mongo down"));
+
+        tagRegistry.poll();
+
+        assertThat(tagRegistry.getTags()).containsExactly("java", "go");
+    }
+}
@@ -7,11 +7,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
 
 import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,6 +22,12 @@ class TagServiceTest {
     @Mock
     private TagRepository tagRepository;
 
+    @Mock
+    private TagRegistry tagRegistry;
+
+    @Mock
+    private RetagService retagService;
+
     @InjectMocks
     private TagService tagService;
 
@@ -32,46 +40,62 @@ class TagServiceTest {
         String result = tagService.createTag(tagName);
         assertThat(result).isEqualTo(tagName);
         verify(tagRepository, times(1)).save(any(TagEntity.class));
+        verify(tagRegistry, times(1)).tagsChanged();
     }
 
     @Test
     void shouldDeleteTag() {
         var tagName = "java";
         tagService.deleteTag(tagName);
-        verify(tagRepository, times(1)).deleteByNameIgnoreCase(tagName);
+        var inOrder = inOrder(retagService, tagRepository, tagRegistry);
+        inOrder.verify(retagService).recordTagRemoval(tagName);
+        inOrder.verify(retagService).removeTagFromAllFilesAsync(tagName);
+        inOrder.verify(tagRepository).deleteByNameIgnoreCase(tagName);
+        inOrder.verify(tagRegistry).tagsChanged();
+        inOrder.verify(retagService).tagDeleted(tagName);
+    }
+
+    @Test
+    void shouldKeepTagWhenRemovalFromFilesIsRejected() {
+        doThrow(new TaskRejectedException("saturated")).when(retagService).removeTagFromAllFilesAsync("java");
+
+        assertThrows(TaskRejectedException.class, () -> tagService.deleteTag("java"));
+
+        verify(retagService, times(1)).discardTagRemoval("java");
+        verifyNoInteractions(tagRepository, tagRegistry);
     }
 
     @Test
     void shouldCheckIfAllTagsExist() {
         Set<String> tags = Set.of("java", "go");
-        when(tagRepository.countByNameInIgnoreCase(tags)).thenReturn(Long.valueOf(2));
+        when(tagRegistry.containsAll(tags)).thenReturn(true);
 
         boolean result = tagService.allTagsExist(tags);
 
         assertThat(result).isTrue();
-        verify(tagRepository, times(1)).countByNameInIgnoreCase(tags);
+        verifyNoInteractions(tagRepository);
     }
 
     @Test
     void shouldReturnFalseIfSomeTagsDoNotExist() {
         Set<String> tags = Set.of("java", "unknown");
-        when(tagRepository.countByNameInIgnoreCase(tags)).thenReturn(Long.valueOf(1));
+        when(tagRegistry.containsAll(tags)).thenReturn(false);
 
         boolean result = tagService.allTagsExist(tags);
 
         assertThat(result).isFalse();
-        verify(tagRepository, times(1)).countByNameInIgnoreCase(tags);
+        verifyNoInteractions(tagRepository);
     }
 
     @Test
     void shouldCheckIfTagExists() {
         String tag = "docker";
-        when(tagRepository.countByNameIgnoreCase(tag)).thenReturn(Long.valueOf(1));
+        when(tagRegistry.contains(tag)).thenReturn(true);
 
         boolean result = tagService.tagExists(tag);
 
         assertThat(result).isTrue();
-        verify(tagRepository, times(1)).countByNameIgnoreCase(tag);
+        verifyNoInteractions(tagRepository);
     }
 
     @Test
@@ -86,15 +110,11 @@ class TagServiceTest {
 
     @Test
     void shouldReturnExpectedListOfTags() {
-        when(tagRepository.findAll()).thenReturn(List.of(
-                new TagEntity("java"),
-                new TagEntity("go"),
-                new TagEntity("python")
-        ));
+        when(tagRegistry.getTags()).thenReturn(List.of("java", "go", "python"));
 
         var tags = tagService.getTags();
 
         assertThat(tags).containsExactlyInAnyOrder("java", "go", "python");
-        verify(tagRepository, times(1)).findAll();
+        verifyNoInteractions(tagRepository);
     }
 }
@@ -0,0 +1,74 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.event.UploadStatusEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadEventBroadcasterTest {
+
+    private UploadEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new UploadEventBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "timeout", Duration.ofMinutes(1));
+    }
+
+    @Test
+    void shouldCloseFileStreamWhenUploadAlreadyFinished() {
+        broadcaster.subscribeToFile("file-1", () -> Constants.STATUS_COMPLETED);
+
+        assertThat(broadcaster.subscriberCount()).isZero();
+    }
+
+    @Test
+    void shouldCloseFileStreamOnFinalStatus() {
+        broadcaster.subscribeToFile("file-1", () -> Constants.STATUS_IN_PROGRESS);
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+
+        broadcaster.onStatusChange(new UploadStatusEvent("file-1", "user123", Constants.STATUS_FAILED));
+
+        assertThat(broadcaster.subscriberCount()).isZero();
+    }
+
+    @Test
+    void shouldRegisterFileStreamBeforeReadingStatus() {
+        broadcaster.subscribeToFile("file-1", () -> {
+            assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+            return Constants.STATUS_IN_PROGRESS;
+        });
+
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFollowUploadFinishedOnAnotherReplica() {
+        var status = new AtomicReference<>(Constants.STATUS_IN_PROGRESS);
+        broadcaster.subscribeToFile("file-1", status::get);
+
+        broadcaster.pollStatuses();
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+
+        status.set(Constants.STATUS_COMPLETED);
+        broadcaster.pollStatuses();
+
+        assertThat(broadcaster.subscriberCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepOwnerStreamAcrossUploads() {
+        broadcaster.subscribeToOwner("user123");
+
+        broadcaster.onStatusChange(new UploadStatusEvent("file-1", "user123", Constants.STATUS_COMPLETED));
+        broadcaster.onStatusChange(new UploadStatusEvent("file-2", "user123", Constants.STATUS_IN_PROGRESS));
+
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,228 @@
+package com.teletronics.storage.service;
+
+import com.teletronics.storage.constants.Constants;
+import com.teletronics.storage.model.FileEntity;
+import com.teletronics.storage.model.UploadSessionEntity;
+import com.teletronics.storage.repository.UploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionServiceTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private UploadSessionRepository sessionRepository;
+
+    @Mock
+    private FileService fileService;
+
+    @InjectMocks
+    private UploadSessionService uploadSessionService;
+
+    private final String sessionId = "session-1";
+    private final String userId = "user123";
+    private UploadSessionEntity session;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(uploadSessionService, "sessionTtl", Duration.ofHours(24));
+        session = UploadSessionEntity.builder()
+                .id(sessionId)
+                .ownerId(userId)
+                .filename("big.bin")
+                .fileKey(sessionId)
+                .uploadId("upload-1")
+                .isPublic(true)
+                .tags(Set.of("java"))
+                .createdAt(Instant.now())
+                .chunks(new HashMap<>())
+                .build();
+    }
+
+    @Test
+    void shouldCreateSessionBackedByMultipartUpload() {
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(sessionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var created = uploadSessionService.createSession(userId, "big file.bin", "application/octet-stream", true, Set.of());
+
+        assertThat(created.getUploadId()).isEqualTo("upload-1");
+        assertThat(created.getFilename()).isEqualTo("big_file.bin");
+        assertThat(created.getFileKey()).isEqualTo(created.getId());
+    }
+
+    @Test
+    void shouldRecordUploadedChunk() {
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag-1").build());
+
+        var updated = uploadSessionService.uploadChunk(sessionId, userId, 1, new ByteArrayInputStream(new byte[10]), 10);
+
+        assertThat(uploadSessionService.receivedOffset(updated)).isEqualTo(10);
+        assertThat(uploadSessionService.nextChunk(updated)).isEqualTo(2);
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(UploadSessionEntity.class));
+    }
+
+    @Test
+    void shouldReportOffsetOfContiguousChunksOnly() {
+        session.getChunks().put("1", new UploadSessionEntity.UploadedChunk(1, "etag-1", 100, null));
+        session.getChunks().put("3", new UploadSessionEntity.UploadedChunk(3, "etag-3", 100, null));
+
+        assertThat(uploadSessionService.receivedOffset(session)).isEqualTo(100);
+        assertThat(uploadSessionService.nextChunk(session)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCompleteSessionWithDigestOfStreamedChunks() throws Exception {
+        var first = new byte[(int) UploadSessionService.MIN_CHUNK_SIZE];
+        Arrays.fill(first, (byte) 'a');
+        var second = "second chunk".getBytes();
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(1, RequestBody.class).contentStreamProvider().newStream().readAllBytes();
+                    return UploadPartResponse.builder().eTag("etag").build();
+                });
+
+        uploadSessionService.uploadChunk(sessionId, userId, 1, new ByteArrayInputStream(first), first.length);
+        uploadSessionService.uploadChunk(sessionId, userId, 2, new ByteArrayInputStream(second), second.length);
+        uploadSessionService.completeSession(sessionId, userId);
+
+        var digest = MessageDigest.getInstance("SHA-256");
+        digest.update(first);
+        digest.update(second);
+        var expectedHash = Base64.getEncoder().encodeToString(digest.digest());
+
+        var fileCaptor = ArgumentCaptor.forClass(FileEntity.class);
+        verify(fileService, times(1)).registerStoredObject(fileCaptor.capture(), eq(sessionId));
+        assertThat(fileCaptor.getValue().getFileHash()).isEqualTo(expectedHash);
+        assertThat(fileCaptor.getValue().getFileSize()).isEqualTo(first.length + second.length);
+        verify(s3Client, times(1)).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        verify(s3Client, never()).getObject(any(GetObjectRequest.class));
+        verify(sessionRepository, times(1)).deleteById(sessionId);
+    }
+
+    @Test
+    void shouldHashStoredObjectWhenChunksArrivedOutOfOrder() throws Exception {
+        var content = new byte[100];
+        session.getChunks().put("1", new UploadSessionEntity.UploadedChunk(1, "etag-1", 100, null));
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().build(), AbortableInputStream.create(new ByteArrayInputStream(content))));
+
+        uploadSessionService.completeSession(sessionId, userId);
+
+        var expectedHash = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(content));
+        var fileCaptor = ArgumentCaptor.forClass(FileEntity.class);
+        verify(fileService, times(1)).registerStoredObject(fileCaptor.capture(), eq(sessionId));
+        assertThat(fileCaptor.getValue().getFileHash()).isEqualTo(expectedHash);
+    }
+
+    @Test
+    void shouldHashStoredObjectWhenChunkWasResentThroughAnotherReplica() throws Exception {
+        var first = new byte[(int) UploadSessionService.MIN_CHUNK_SIZE];
+        var second = "second chunk".getBytes();
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(1, RequestBody.class).contentStreamProvider().newStream().readAllBytes();
+                    return UploadPartResponse.builder().eTag("etag").build();
+                });
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().build(), AbortableInputStream.create(new ByteArrayInputStream(second))));
+
+        uploadSessionService.uploadChunk(sessionId, userId, 1, new ByteArrayInputStream(first), first.length);
+        uploadSessionService.uploadChunk(sessionId, userId, 2, new ByteArrayInputStream(second), second.length);
+        // chunk 1 received again by another replica, which did not digest it
+        session.getChunks().put("1", new UploadSessionEntity.UploadedChunk(1, "etag-other", first.length, null));
+        uploadSessionService.completeSession(sessionId, userId);
+
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void shouldNotCompleteSessionWithTooSmallChunk() {
+        session.getChunks().put("1", new UploadSessionEntity.UploadedChunk(1, "etag-1", 100, null));
+        session.getChunks().put("2", new UploadSessionEntity.UploadedChunk(2, "etag-2", 100, null));
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+
+        var exception = assertThrows(IllegalStateException.class,
+                () -> uploadSessionService.completeSession(sessionId, userId));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.CHUNK_TOO_SMALL_ERROR + 1);
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void shouldNotCompleteSessionWithMissingChunks() {
+        session.getChunks().put("1", new UploadSessionEntity.UploadedChunk(1, "etag-1", 100, null));
+        session.getChunks().put("3", new UploadSessionEntity.UploadedChunk(3, "etag-3", 100, null));
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+
+        var exception = assertThrows(IllegalStateException.class,
+                () -> uploadSessionService.completeSession(sessionId, userId));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.MISSING_CHUNKS_ERROR + 2);
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void shouldNotAllowOtherUsersToUploadChunks() {
+        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(session));
+
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> uploadSessionService.uploadChunk(sessionId, "wrongUser", 1, new ByteArrayInputStream(new byte[1]), 1));
+
+        assertThat(exception.getMessage()).isEqualTo(Constants.USER_IS_NOT_FILE_OWNER_ERROR);
+    }
+
+    @Test
+    void shouldAbortExpiredSessions() {
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(UploadSessionEntity.class)))
+                .thenReturn(session)
+                .thenReturn(null);
+
+        uploadSessionService.sweepExpiredSessions();
+
+        var captor = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3Client, times(1)).abortMultipartUpload(captor.capture());
+        assertThat(captor.getValue().uploadId()).isEqualTo("upload-1");
+        assertThat(captor.getValue().key()).isEqualTo(sessionId);
+    }
+}